@@ -0,0 +1,13 @@
+# compiles many source files in one JVM, each into an .asm next to it (or under --out=<dir>).
+# arguments are source files or directories of them, e.g. ./batch.bash --jobs=4 --out=out Test/TestCases
+# two sources with the same base name under --out are refused, nothing is compiled then.
+# every .asm starts with allInOne.asm, as the output of codegen.bash does.
+
+set -e
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAVA=(java -classpath "$DIR/lib/antlr-4.7.1-complete.jar:$DIR/bin")
+if [ -f "$DIR/bin/wantonwind.jsa" ]; then   # made by build.bash
+    JAVA=(java -XX:SharedArchiveFile="$DIR/bin/wantonwind.jsa" -Xlog:disable -Xlog:all=warning:stderr
+          -classpath "$DIR/lib/antlr-4.7.1-complete.jar:$DIR/bin/wantonwind.jar")
+fi
+"${JAVA[@]}" Compiler2018.WantonWind --batch --runtime="$DIR/idea/src/Compiler2018/allInOne.asm" "$@"
@@ -4,4 +4,19 @@
 set -e
 cd "$(dirname "$0")"
 mkdir -p bin
-find ./idea/src/ -name *.java | javac -d bin -classpath "lib/antlr-4.7.1-complete.jar" @/dev/stdin
\ No newline at end of file
+find ./idea/src/ -name *.java | javac -d bin -classpath "lib/antlr-4.7.1-complete.jar" @/dev/stdin
+
+# A class-data sharing archive of what a compile loads, a fresh JVM maps it in rather than loading and
+# verifying every class again. It is made by compiling the test programs once, Warmup has one that takes
+# the ANTLR path. The archive takes classes from a jar only and works only with the JDK that made it,
+# the scripts fall back to bin without it.
+rm -f bin/wantonwind.jar bin/wantonwind.jsa
+if command -v jar > /dev/null; then
+    jar cf bin/wantonwind.jar -C bin Compiler2018
+    WARMUP="$(mktemp -d)"
+    java -XX:ArchiveClassesAtExit=bin/wantonwind.jsa -Xlog:disable \
+        -classpath "lib/antlr-4.7.1-complete.jar:bin/wantonwind.jar" Compiler2018.WantonWind --batch --out="$WARMUP" \
+        idea/src/Compiler2018/Test/CodeGenTest idea/src/Compiler2018/Test/SemanticTest \
+        idea/src/Compiler2018/Test/Warmup > /dev/null 2>&1 || true
+    rm -rf "$WARMUP"
+fi
@@ -0,0 +1,89 @@
+# checks over the test programs, run build.bash first. exits 1 when one of them fails.
+# PrattParser must build the same AST as MParser and ASTBuilder on every test program.
+# Test/Cache/edit.Mx must still hit the cache for every function but the one that is edited.
+# chains of 100k operators and 20k nested parentheses must compile without a deeper JVM stack.
+# every program under Test/Levels must print the same at -O1 and at -O2, that needs nasm and gcc
+# to run them and is skipped without.
+
+cd "$(dirname "$0")"
+CP=./lib/antlr-4.7.1-complete.jar:./bin
+JAVA=(java -classpath "$CP" Compiler2018.WantonWind)
+TEST=idea/src/Compiler2018/Test
+FAIL=0
+
+java -classpath "$CP" Compiler2018.FrontEnd.Pratt.ParserDiff \
+    "$TEST"/TestCases "$TEST"/CodeGenTest "$TEST"/SemanticTest "$TEST"/MyTest "$TEST"/Optim "$TEST"/Levels "$TEST"/Cache || FAIL=1
+
+WORK="$(mktemp -d)"
+trap 'rm -rf "$WORK"' EXIT
+
+# edit.Mx is compiled once into an empty cache, then its main is edited and a function is added:
+# only the edited or new function may miss, and the output must be what a compile without the cache gives
+"${JAVA[@]}" --cache="$WORK/cache" "$TEST"/Cache/edit.Mx > /dev/null 2>&1
+sed 's/int edited = 10;/int edited = 20;/' "$TEST"/Cache/edit.Mx > "$WORK/main.Mx"
+{ cat "$WORK/main.Mx"; echo 'int unrelated() { return 3; }'; } > "$WORK/added.Mx"
+for edit in main added; do
+    "${JAVA[@]}" "$WORK/$edit.Mx" > "$WORK/$edit.asm" 2> /dev/null
+    "${JAVA[@]}" --cache="$WORK/cache" --stats "$WORK/$edit.Mx" 2> "$WORK/$edit.err" > "$WORK/$edit.cached.asm"
+    if ! grep -q ' 1 misses' "$WORK/$edit.err"; then
+        echo "edit.Mx, $edit edited: $(grep 'cache:' "$WORK/$edit.err"), only that function should miss" >&2
+        FAIL=1
+    fi
+    if ! cmp -s "$WORK/$edit.asm" "$WORK/$edit.cached.asm"; then
+        echo "edit.Mx, $edit edited: the cache changes the output" >&2
+        FAIL=1
+    fi
+done
+
+# machine-made chains and nestings of 100k operators or 20k parentheses must compile at the default stack size
+chain() {   # name, declaration, head, term, separator, count: head term separator term ... term
+    awk -v d="$2" -v h="$3" -v t="$4" -v s="$5" -v n="$6" 'BEGIN {
+        printf "int main() {\n    %s\n    %s%s", d, h, t
+        for (i = 1; i < n; i++) printf "%s%s", s, t
+        printf ";\n    return 0;\n}\n" }' > "$WORK/deep/$1.Mx"
+}
+nest() {    # name, declaration, head, open, inner, close, count: head open ... open inner close ... close
+    awk -v d="$2" -v h="$3" -v o="$4" -v m="$5" -v c="$6" -v n="$7" 'BEGIN {
+        printf "int main() {\n    %s\n    %s", d, h
+        for (i = 0; i < n; i++) printf "%s", o
+        printf "%s", m
+        for (i = 0; i < n; i++) printf "%s", c
+        printf ";\n    return 0;\n}\n" }' > "$WORK/deep/$1.Mx"
+}
+mkdir "$WORK/deep"
+chain add "int a = 1;" "a = " "a" " + " 100000
+chain and "bool b = true;" "b = " "b" " && " 100000
+chain or "bool b = true;" "b = " "b" " || " 100000
+chain concat 'string s = "x";' "s = " "s" " + " 100000
+chain assign "int a = 1;" "" "a" " = " 100000
+nest negate "int a = 1;" "a = " "-~" "a" "" 50000
+nest not "bool b = true;" "b = " "!" "b" "" 100000
+nest parens "int a = 1;" "a = " "(" "a" ")" 20000
+nest parenAdd "int a = 1;" "a = " "-(a + " "a" ")" 20000
+for prog in "$WORK"/deep/*.Mx; do
+    if ! "${JAVA[@]}" "$prog" > /dev/null 2> "$WORK/deep.err"; then
+        echo "$(basename "$prog"): $(grep -v allocated "$WORK/deep.err" | head -1)" >&2
+        FAIL=1
+    fi
+done
+
+if command -v nasm > /dev/null && command -v gcc > /dev/null; then
+    for prog in "$TEST"/Levels/*.Mx; do
+        for level in O1 O2; do
+            "${JAVA[@]}" -$level --runtime=idea/src/Compiler2018/allInOne.asm "$prog" > "$WORK/$level.asm" 2> /dev/null &&
+                nasm -felf64 "$WORK/$level.asm" -o "$WORK/$level.o" &&
+                gcc -no-pie "$WORK/$level.o" -o "$WORK/$level" &&
+                "$WORK/$level" < /dev/null > "$WORK/$level.out" 2>&1 ||
+                echo "failed at -$level" > "$WORK/$level.out"
+        done
+        if ! cmp -s "$WORK/O1.out" "$WORK/O2.out"; then
+            echo "$prog: -O2 prints differently from -O1" >&2
+            diff "$WORK/O1.out" "$WORK/O2.out" >&2
+            FAIL=1
+        fi
+    done
+else
+    echo "no nasm or gcc, -O1 against -O2 not checked" >&2
+fi
+
+exit $FAIL
@@ -6,6 +6,8 @@
 set -e
 cd "$(dirname "$0")"
 export CCHK="java -classpath ./lib/antlr-4.7.1-complete.jar:./bin Compiler2018.WantonWind"
+if [ -f bin/wantonwind.jsa ]; then   # made by build.bash, JVM warnings go to stderr, not into the output
+    export CCHK="java -XX:SharedArchiveFile=bin/wantonwind.jsa -Xlog:disable -Xlog:all=warning:stderr -classpath ./lib/antlr-4.7.1-complete.jar:./bin/wantonwind.jar Compiler2018.WantonWind"
+fi
 cat > program.txt   # save everything in stdin to program.txt
-cat idea/src/Compiler2018/allInOne.asm
-$CCHK
\ No newline at end of file
+$CCHK --runtime=idea/src/Compiler2018/allInOne.asm   # allInOne.asm first, then the compiled program
\ No newline at end of file
@@ -0,0 +1,49 @@
+# drop-in replacement for codegen.bash that sends the program to a resident compiler.
+# the compiler is started on first use and exits after being idle for a while.
+# falls back to a fresh JVM when the server can not be reached.
+
+set -e
+cd "$(dirname "$0")"
+export CCHK="java -classpath ./lib/antlr-4.7.1-complete.jar:./bin Compiler2018.WantonWind"
+if [ -f bin/wantonwind.jsa ]; then   # made by build.bash, JVM warnings go to stderr, not into the output
+    export CCHK="java -XX:SharedArchiveFile=bin/wantonwind.jsa -Xlog:disable -Xlog:all=warning:stderr -classpath ./lib/antlr-4.7.1-complete.jar:./bin/wantonwind.jar Compiler2018.WantonWind"
+fi
+SOCK="${WANTONWIND_SOCK:-${TMPDIR:-/tmp}/wantonwind.$(id -u).sock}"
+cat > program.txt   # save everything in stdin to program.txt
+if [ ! -S "$SOCK" ] && command -v python3 > /dev/null; then
+    # one client at a time checks and starts the server, the others wait here and find its socket.
+    # the server must not inherit the lock, it would hold it until it exits
+    (
+        flock 9 2> /dev/null || true    # without flock two clients may race, one of them falls back
+        if [ ! -S "$SOCK" ]; then
+            nohup $CCHK --server="$SOCK" --idle="${WANTONWIND_IDLE:-600}" > /dev/null 2>&1 9>&- &
+            for i in $(seq 100); do [ -S "$SOCK" ] && break; sleep 0.05; done
+        fi
+    ) 9> "$SOCK.lock"
+fi
+cat idea/src/Compiler2018/allInOne.asm
+rc=0
+if [ -S "$SOCK" ] && command -v python3 > /dev/null; then
+    python3 - "$SOCK" program.txt <<'PY' || rc=$?
+import socket, sys
+src = open(sys.argv[2], 'rb').read()
+try:
+    s = socket.socket(socket.AF_UNIX)
+    s.connect(sys.argv[1])
+    s.sendall(b'%d\n' % len(src) + src)
+    s.shutdown(socket.SHUT_WR)
+    f = s.makefile('rb')
+    status, length = f.readline().split()
+    body = f.read(int(length))
+except (OSError, ValueError):
+    sys.exit(3)   # no usable server
+(sys.stdout if status == b'OK' else sys.stderr).buffer.write(body)
+sys.exit(0 if status == b'OK' else 1)
+PY
+else
+    rc=3
+fi
+if [ $rc -eq 3 ]; then
+    exec $CCHK
+fi
+exit $rc
@@ -0,0 +1,32 @@
+# times fresh JVMs compiling one program, from bin and with the class-data archive build.bash makes.
+# e.g. ./coldstart.bash 20 idea/src/Compiler2018/Test/TestCases/testcase_509.txt
+# prints the mean wall time of a compile in ms for either way, the output is checked to be the same.
+
+set -e
+cd "$(dirname "$0")"
+RUNS="${1:-20}"
+PROG="${2:-idea/src/Compiler2018/Test/TestCases/testcase_509.txt}"
+if [ ! -f bin/wantonwind.jsa ]; then
+    echo "no bin/wantonwind.jsa, run build.bash first" >&2
+    exit 1
+fi
+PLAIN=(java -classpath ./lib/antlr-4.7.1-complete.jar:./bin)
+SHARED=(java -XX:SharedArchiveFile=bin/wantonwind.jsa -Xlog:disable -Xlog:all=warning:stderr
+        -classpath ./lib/antlr-4.7.1-complete.jar:./bin/wantonwind.jar)
+OUT="$(mktemp -d)"
+trap 'rm -rf "$OUT"' EXIT
+
+# mean ms of RUNS compiles, the first one is not counted, it pulls the files into the page cache
+measure() {
+    local name=$1; shift
+    "$@" Compiler2018.WantonWind "$PROG" > "$OUT/$name.asm" 2> /dev/null || true
+    local start=$(date +%s%N)
+    for i in $(seq "$RUNS"); do
+        "$@" Compiler2018.WantonWind "$PROG" > /dev/null 2>&1 || true
+    done
+    echo "$name $(( ($(date +%s%N) - start) / 1000000 / RUNS )) ms"
+}
+
+measure bin "${PLAIN[@]}"
+measure archive "${SHARED[@]}"
+cmp -s "$OUT/bin.asm" "$OUT/archive.asm" || { echo "outputs differ" >&2; exit 1; }
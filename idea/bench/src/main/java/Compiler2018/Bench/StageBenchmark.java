@@ -0,0 +1,217 @@
+package Compiler2018.Bench;
+
+import Compiler2018.AST.Program;
+import Compiler2018.BackEnd.CostBudget;
+import Compiler2018.BackEnd.NasmColor;
+import Compiler2018.FrontEnd.ASTBuilder;
+import Compiler2018.FrontEnd.Pratt.PrattParser;
+import Compiler2018.IR.IRStructure.IRProgram;
+import Compiler2018.PassManager;
+import Compiler2018.Synth.ProgramGenerator;
+import Compiler2018.WantonWind;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// One benchmark per compiler stage. Each stage starts from a state prepared by the stages before it,
+// so only the stage itself is measured. main runs every stage over every program in
+// Test/TestCases and Test/CodeGenTest that compiles:
+//   java -jar target/benchmarks.jar [jmh options]
+//   java -Dtests=<dir of TestCases and CodeGenTest> -jar target/benchmarks.jar -p program=CodeGenTest/Random.Mx
+//   java -jar target/benchmarks.jar -p "program=synthetic:--functions=2000 --seed=3"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StageBenchmark {
+    private static final String[] suites = {"TestCases", "CodeGenTest"};
+    private static final String synthetic = "synthetic:";    // followed by ProgramGenerator knobs
+    private static final PrintStream nowhere = new PrintStream(OutputStream.nullOutputStream());
+
+    // GreedyAllocator reports to stderr, it is kept out of the JMH output for these passes only
+    private static void runQuietly(PassManager passManager, String... passes) throws IOException {
+        PrintStream err = System.err;
+        System.setErr(nowhere);
+        try {
+            passManager.run(passes);
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    private static Path tests() {
+        return Paths.get(System.getProperty("tests", "../src/Compiler2018/Test"));
+    }
+
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"CodeGenTest/Random.Mx"})
+        public String program;
+
+        private String source;
+        private ParseTree tree;
+
+        @Setup(Level.Trial)
+        public void load() throws IOException {
+            source = program.startsWith(synthetic)
+                    ? ProgramGenerator.parse(List.of(program.substring(synthetic.length()).split(" "))).generate()
+                    : new String(Files.readAllBytes(tests().resolve(program)), StandardCharsets.UTF_8);
+            tree = WantonWind.parse(source, null);
+        }
+
+        Program buildAST() {
+            ASTBuilder astBuilder = new ASTBuilder();
+            new ParseTreeWalker().walk(astBuilder, tree);
+            return astBuilder.getProgram();
+        }
+    }
+
+    // a fresh program that has been through the given passes, built again before every invocation
+    public static abstract class Prepared {
+        PassManager passManager;
+
+        void prepare(Input input, String... passes) throws IOException {
+            passManager = new PassManager(input.buildAST(), null);
+            runQuietly(passManager, passes);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Built extends Prepared {
+        @Setup(Level.Invocation)
+        public void setup(Input input) throws IOException {
+            prepare(input);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Checked extends Prepared {
+        @Setup(Level.Invocation)
+        public void setup(Input input) throws IOException {
+            prepare(input, "stmt-scan");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Lowered extends Prepared {
+        @Setup(Level.Invocation)
+        public void setup(Input input) throws IOException {
+            prepare(input, "ir-build", "inline");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Allocated extends Prepared {
+        @Setup(Level.Invocation)
+        public void setup(Input input) throws IOException {
+            prepare(input, "ir-build", "inline", "liveness", "conflict-graph", "frame", "pre-alloc", "greedy-alloc");
+        }
+    }
+
+    @Benchmark
+    public ParseTree lexAndParse(Input input) {
+        return WantonWind.parse(input.source, null);
+    }
+
+    @Benchmark
+    public Program buildAST(Input input) {
+        return input.buildAST();
+    }
+
+    // lexing, parsing and building the AST at once, to set against lexAndParse plus buildAST
+    @Benchmark
+    public Program prattParse(Input input) {
+        return PrattParser.parse(input.source);
+    }
+
+    @Benchmark
+    public PassManager semantic(Built state) throws IOException {
+        state.passManager.run("class-scan", "func-scan", "class-var-scan", "stmt-scan");
+        return state.passManager;
+    }
+
+    @Benchmark
+    public IRProgram buildIR(Checked state) throws IOException {
+        state.passManager.run("ir-class", "ir-param", "ir-build");
+        return state.passManager.getIrProgram();
+    }
+
+    @Benchmark
+    public IRProgram livenessAndAllocation(Lowered state) throws IOException {
+        runQuietly(state.passManager, "liveness", "conflict-graph", "frame", "pre-alloc", "greedy-alloc");
+        return state.passManager.getIrProgram();
+    }
+
+    @Benchmark
+    public StringBuilder emit(Allocated state) {
+        NasmColor nasmColor = new NasmColor();
+        state.passManager.getIrProgram().accept(nasmColor);
+        return nasmColor.getBuilder();
+    }
+
+    // whether the program gets through every stage, some in the suites are meant to fail the semantic check
+    private static boolean compiles(Path file) {
+        PrintStream err = System.err;
+        System.setErr(nowhere);
+        try {
+            WantonWind.compile(WantonWind.readTestFile(file.toString()), PassManager.Level.O1, false, null, null, null,
+                    new CostBudget(), Writer.nullWriter());
+            return true;
+        } catch (Exception | StackOverflowError e) {
+            return false;
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    // every program of the suites that compiles, relative to the test directory
+    private static String[] programs() throws IOException {
+        List<String> programs = new ArrayList<>();
+        for (String suite : suites) {
+            try (Stream<Path> files = Files.list(tests().resolve(suite))) {
+                for (Path file : files.sorted().collect(Collectors.toList())) {
+                    if (compiles(file)) {
+                        programs.add(suite + "/" + file.getFileName());
+                    } else {
+                        System.err.println(suite + "/" + file.getFileName() + " does not compile, left out");
+                    }
+                }
+            }
+        }
+        return programs.toArray(new String[0]);
+    }
+
+    public static void main(String[] args) throws IOException, CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(StageBenchmark.class.getName());
+        }
+        if (!commandLine.getParameter("program").hasValue()) {
+            builder.param("program", programs());
+        }
+        builder.jvmArgsAppend("-Dtests=" + tests().toAbsolutePath());
+        new Runner(builder.build()).run();
+    }
+}
@@ -2,6 +2,15 @@ package Compiler2018.AST;
 
 import Compiler2018.FrontEnd.IASTVistor;
 
+import java.util.Arrays;
+import java.util.List;
+
 public abstract class AbstractASTNode {
     public abstract void accept(IASTVistor visitor);
+
+    // children are kept in an array of their number, a LinkedList costs a node object for every one
+    @SuppressWarnings("unchecked")
+    static <T> List<T> compact(List<T> children) {
+        return (List<T>) Arrays.asList(children.toArray());
+    }
 }
@@ -1,7 +1,5 @@
 package Compiler2018.AST;
 
-import Compiler2018.IR.IRStructure.BasicBlock;
-import Compiler2018.IR.IRValue.Register;
 import Compiler2018.Symbol.FuncSymbol;
 
 public abstract class AbstractExpr extends AbstractASTNode {
@@ -34,46 +32,6 @@ public abstract class AbstractExpr extends AbstractASTNode {
         this.func = func;
     }
 
-    // short-cut
-    private BasicBlock ifTrue = null;
-    private BasicBlock ifFalse = null;
-
-    public BasicBlock getIfTrue() {
-        return ifTrue;
-    }
-
-    public void setIfTrue(BasicBlock ifTrue) {
-        this.ifTrue = ifTrue;
-    }
-
-    public BasicBlock getIfFalse() {
-        return ifFalse;
-    }
-
-    public void setIfFalse(BasicBlock ifFalse) {
-        this.ifFalse = ifFalse;
-    }
-
-    // IR generation Info
-    private Register register = null;
-    private boolean dataInMem = false; // where the real data in
-
-    public Register getRegister() {
-        return register;
-    }
-
-    public void setRegister(Register register) {
-        this.register = register;
-    }
-
-    public boolean isDataInMem() {
-        return dataInMem;
-    }
-
-    public void setDataInMem(boolean dataInMem) {
-        this.dataInMem = dataInMem;
-    }
-
     // constant folder
     boolean folded = false;
     Integer ans = null;
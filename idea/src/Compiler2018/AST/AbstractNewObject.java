@@ -1,7 +1,5 @@
 package Compiler2018.AST;
 
-import Compiler2018.IR.IRValue.Register;
-
 public abstract class AbstractNewObject extends AbstractASTNode {
     private final ClassType type;
 
@@ -9,17 +7,6 @@ public abstract class AbstractNewObject extends AbstractASTNode {
         this.type = type;
     }
 
-    // prepare for IR Generation
-    private Register register = null;
-
-    public Register getRegister() {
-        return register;
-    }
-
-    public void setRegister(Register register) {
-        this.register = register;
-    }
-
     public ClassType getType() {
         return type;
     }
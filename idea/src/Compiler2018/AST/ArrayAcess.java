@@ -5,10 +5,10 @@ import Compiler2018.FrontEnd.IASTVistor;
 public class ArrayAcess extends AbstractExpr {
     private final AbstractExpr array;
     private final AbstractExpr subscript;
-    private final SourcePosition posArray;
-    private final SourcePosition posSubscript;
+    private final long posArray;
+    private final long posSubscript;
 
-    public ArrayAcess(AbstractExpr array, AbstractExpr subscript, SourcePosition posArray, SourcePosition posSubscript) {
+    public ArrayAcess(AbstractExpr array, AbstractExpr subscript, long posArray, long posSubscript) {
         this.array = array;
         this.subscript = subscript;
         this.posArray = posArray;
@@ -23,11 +23,11 @@ public class ArrayAcess extends AbstractExpr {
         return subscript;
     }
 
-    public SourcePosition getPosArray() {
+    public long getPosArray() {
         return posArray;
     }
 
-    public SourcePosition getPosSubscript() {
+    public long getPosSubscript() {
         return posSubscript;
     }
 
@@ -13,11 +13,11 @@ public class BinaryExpr extends AbstractExpr {
     private final BinaryOp op;
     private final AbstractExpr lhs;
     private final AbstractExpr rhs;
-    private final SourcePosition posOp;
-    private final SourcePosition posLhs;
-    private final SourcePosition posRhs;
+    private final long posOp;
+    private final long posLhs;
+    private final long posRhs;
 
-    public BinaryExpr(BinaryOp op, AbstractExpr lhs, AbstractExpr rhs, SourcePosition posOp, SourcePosition posLhs, SourcePosition posRhs) {
+    public BinaryExpr(BinaryOp op, AbstractExpr lhs, AbstractExpr rhs, long posOp, long posLhs, long posRhs) {
         this.op = op;
         this.lhs = lhs;
         this.rhs = rhs;
@@ -38,15 +38,15 @@ public class BinaryExpr extends AbstractExpr {
         return rhs;
     }
 
-    public SourcePosition getPosOp() {
+    public long getPosOp() {
         return posOp;
     }
 
-    public SourcePosition getPosLhs() {
+    public long getPosLhs() {
         return posLhs;
     }
 
-    public SourcePosition getPosRhs() {
+    public long getPosRhs() {
         return posRhs;
     }
 
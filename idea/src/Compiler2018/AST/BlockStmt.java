@@ -2,14 +2,14 @@ package Compiler2018.AST;
 
 import Compiler2018.FrontEnd.IASTVistor;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class BlockStmt extends AbstractStmt {
     private final List<AbstractStmt> stmts;
 
     public static class Builder {
-        private List<AbstractStmt> stmts = new LinkedList<>();
+        private List<AbstractStmt> stmts = new ArrayList<>();
 
         public void addStmt(AbstractStmt stmt) {
             stmts.add(stmt);
@@ -21,7 +21,7 @@ public class BlockStmt extends AbstractStmt {
     }
 
     private BlockStmt(List<AbstractStmt> stmts) {
-        this.stmts = stmts;
+        this.stmts = compact(stmts);
     }
 
     public List<AbstractStmt> getStmts() {
@@ -6,10 +6,10 @@ public class BranchStmt extends AbstractStmt {
     private final AbstractExpr cond;
     private final AbstractStmt ifStmt;
     private final AbstractStmt elseStmt; // can be null
-    private final SourcePosition posBranch;
+    private final long posBranch;
 
     public BranchStmt(
-            AbstractExpr cond, AbstractStmt ifStmt, AbstractStmt elseStmt, SourcePosition posBranch) {
+            AbstractExpr cond, AbstractStmt ifStmt, AbstractStmt elseStmt, long posBranch) {
         this.cond = cond;
         this.ifStmt = ifStmt;
         this.elseStmt = elseStmt;
@@ -28,7 +28,7 @@ public class BranchStmt extends AbstractStmt {
         return elseStmt;
     }
 
-    public SourcePosition getPosBranch() {
+    public long getPosBranch() {
         return posBranch;
     }
 
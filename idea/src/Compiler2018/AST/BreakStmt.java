@@ -3,13 +3,13 @@ package Compiler2018.AST;
 import Compiler2018.FrontEnd.IASTVistor;
 
 public class BreakStmt extends AbstractJumpStmt {
-    private final SourcePosition posBreak;
+    private final long posBreak;
 
-    public BreakStmt(SourcePosition posBreak) {
+    public BreakStmt(long posBreak) {
         this.posBreak = posBreak;
     }
 
-    public SourcePosition getPosBreak() {
+    public long getPosBreak() {
         return posBreak;
     }
 
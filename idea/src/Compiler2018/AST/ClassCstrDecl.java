@@ -3,7 +3,7 @@ package Compiler2018.AST;
 import Compiler2018.FrontEnd.IASTVistor;
 import Compiler2018.Symbol.CstrSymbol;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ClassCstrDecl extends AbstractClassItem {
@@ -13,7 +13,7 @@ public class ClassCstrDecl extends AbstractClassItem {
 
     public static class Builder {
         private String name;
-        private List<VarDecl> parameters = new LinkedList<>();
+        private List<VarDecl> parameters = new ArrayList<>();
         private BlockStmt block;
 
         public void setName(String name) {
@@ -35,7 +35,7 @@ public class ClassCstrDecl extends AbstractClassItem {
 
     private ClassCstrDecl(String name, List<VarDecl> parameters, BlockStmt block) {
         this.name = name;
-        this.parameters = parameters;
+        this.parameters = compact(parameters);
         this.block = block;
     }
 
@@ -2,7 +2,7 @@ package Compiler2018.AST;
 
 import Compiler2018.FrontEnd.IASTVistor;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ClassDecl extends AbstractDecl {
@@ -11,7 +11,7 @@ public class ClassDecl extends AbstractDecl {
 
     public static class Builder {
         private String name;
-        private List<AbstractClassItem> items = new LinkedList<>();
+        private List<AbstractClassItem> items = new ArrayList<>();
 
         public void setName(String name) {
             this.name = name;
@@ -28,7 +28,7 @@ public class ClassDecl extends AbstractDecl {
 
     private ClassDecl(String name, List<AbstractClassItem> items) {
         this.name = name;
-        this.items = items;
+        this.items = compact(items);
     }
 
     public String getName() {
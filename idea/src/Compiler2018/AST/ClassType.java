@@ -1,14 +1,42 @@
 package Compiler2018.AST;
 
 import Compiler2018.FrontEnd.IASTVistor;
+import Compiler2018.Symbol.ClassSymbol;
 
+import java.util.ArrayList;
+import java.util.List;
+
+// Made only by TypeTable, there is one of every base type and dim in a program so types are compared by reference.
 public class ClassType extends AbstractASTNode {
     private final String baseType;
     private final Integer dim;
+    private final ClassType base;           // of dim 0, the one pointing to the ClassSymbol
+    private final List<ClassType> dims;     // of baseType by dim, shared with base
+    private ClassSymbol classSymbol = null; // on base, null for null and a class never declared
 
-    public ClassType(String baseType, Integer dim) {
+    ClassType(String baseType) {
         this.baseType = baseType;
+        this.dim = 0;
+        this.base = this;
+        this.dims = new ArrayList<>();
+        dims.add(this);
+    }
+
+    private ClassType(ClassType base, int dim) {
+        this.baseType = base.baseType;
         this.dim = dim;
+        this.base = base;
+        this.dims = base.dims;
+    }
+
+    // of the same base type, an element of an array is withDim(getDim() - 1)
+    public ClassType withDim(int dim) {
+        synchronized (dims) {
+            while (dims.size() <= dim) {
+                dims.add(new ClassType(base, dims.size()));
+            }
+            return dims.get(dim);
+        }
     }
 
     public String getBaseType() {
@@ -19,6 +47,18 @@ public class ClassType extends AbstractASTNode {
         return dim;
     }
 
+    public ClassType getBase() {
+        return base;
+    }
+
+    public ClassSymbol getClassSymbol() {
+        return base.classSymbol;
+    }
+
+    void setClassSymbol(ClassSymbol classSymbol) {
+        this.classSymbol = classSymbol;
+    }
+
     // prepare for IR Generation
     public Integer isPtrSaved() {
         if (dim > 0) {
@@ -37,13 +77,6 @@ public class ClassType extends AbstractASTNode {
 //        return dim > 0 | baseType.equals("string");
 //    }
 
-    @Override
-    public boolean equals(Object obj) {
-        return obj instanceof ClassType
-                && baseType.equals(((ClassType) obj).getBaseType())
-                && dim.equals(((ClassType) obj).getDim());
-    }
-
     @Override
     public String toString() {
         return "baseType: " + baseType + "\t" + "dim: " + dim;
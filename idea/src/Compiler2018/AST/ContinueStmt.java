@@ -3,13 +3,13 @@ package Compiler2018.AST;
 import Compiler2018.FrontEnd.IASTVistor;
 
 public class ContinueStmt extends AbstractJumpStmt {
-    private final SourcePosition posContinue;
+    private final long posContinue;
 
-    public ContinueStmt(SourcePosition posContinue) {
+    public ContinueStmt(long posContinue) {
         this.posContinue = posContinue;
     }
 
-    public SourcePosition getPosContinue() {
+    public long getPosContinue() {
         return posContinue;
     }
 
@@ -4,9 +4,9 @@ import Compiler2018.FrontEnd.IASTVistor;
 
 public class ExprStmt extends AbstractStmt {
     private final AbstractExpr expr;
-    private final SourcePosition posExpr;
+    private final long posExpr;
 
-    public ExprStmt(AbstractExpr expr, SourcePosition posExpr) {
+    public ExprStmt(AbstractExpr expr, long posExpr) {
         this.expr = expr;
         this.posExpr = posExpr;
     }
@@ -15,7 +15,7 @@ public class ExprStmt extends AbstractStmt {
         return expr;
     }
 
-    public SourcePosition getPosExpr() {
+    public long getPosExpr() {
         return posExpr;
     }
 
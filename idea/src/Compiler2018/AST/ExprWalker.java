@@ -0,0 +1,71 @@
+package Compiler2018.AST;
+
+import Compiler2018.FrontEnd.IASTVistor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+// Walks the BinaryExpr and UnaryExpr under an expression with a stack of its own, so a machine-made
+// a + b + ... of 100k terms does not need a JVM stack as deep. Every other operand is a leaf, it is
+// visited through accept as before and walks its own operators again from there.
+public class ExprWalker {
+    public interface Steps {
+        // does what comes after operand last of node, null before the first, and gives the next operand
+        // to visit, null once node is done
+        AbstractExpr next(AbstractExpr node, AbstractExpr last);
+    }
+
+    private ExprWalker() {
+    }
+
+    public static boolean isOperator(AbstractExpr expr) {
+        return expr instanceof BinaryExpr || expr instanceof UnaryExpr;
+    }
+
+    // lhs then rhs of a BinaryExpr, expr of a UnaryExpr
+    public static AbstractExpr operand(AbstractExpr node, AbstractExpr last) {
+        if (node instanceof UnaryExpr) {
+            return last == null ? ((UnaryExpr) node).getExpr() : null;
+        }
+        BinaryExpr binaryExpr = (BinaryExpr) node;
+        if (last == null) {
+            return binaryExpr.getLhs();
+        }
+        return last == binaryExpr.getLhs() ? binaryExpr.getRhs() : null;
+    }
+
+    public static void walk(AbstractExpr root, IASTVistor visitor, Steps steps) {
+        Deque<AbstractExpr> nodes = new ArrayDeque<>();
+        nodes.push(root);
+        AbstractExpr last = null;
+        while (!nodes.isEmpty()) {
+            AbstractExpr node = nodes.peek();
+            AbstractExpr next = steps.next(node, last);
+            if (next == null) {
+                last = nodes.pop();
+            } else if (isOperator(next)) {
+                nodes.push(next);
+                last = null;
+            } else {
+                next.accept(visitor);
+                last = next;
+            }
+        }
+    }
+
+    // operands in order, before or after may be null
+    public static void walk(AbstractExpr root, IASTVistor visitor, Consumer<AbstractExpr> before,
+                            Consumer<AbstractExpr> after) {
+        walk(root, visitor, (node, last) -> {
+            if (last == null && before != null) {
+                before.accept(node);
+            }
+            AbstractExpr next = operand(node, last);
+            if (next == null && after != null) {
+                after.accept(node);
+            }
+            return next;
+        });
+    }
+}
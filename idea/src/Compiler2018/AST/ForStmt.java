@@ -7,18 +7,18 @@ public class ForStmt extends AbstractLoopStmt {
     private final AbstractExpr cond; // can be null
     private final AbstractExpr step;
     private final AbstractStmt stmt;
-    private final SourcePosition posInit;
-    private final SourcePosition posCond; // can be null
-    private final SourcePosition posStep;
+    private final long posInit;
+    private final long posCond; // can be none
+    private final long posStep;
 
     public ForStmt(
             AbstractExpr init,
             AbstractExpr cond,
             AbstractExpr step,
             AbstractStmt stmt,
-            SourcePosition posInit,
-            SourcePosition posCond,
-            SourcePosition posStep) {
+            long posInit,
+            long posCond,
+            long posStep) {
         this.init = init;
         this.cond = cond;
         this.step = step;
@@ -44,15 +44,15 @@ public class ForStmt extends AbstractLoopStmt {
         return stmt;
     }
 
-    public SourcePosition getPosInit() {
+    public long getPosInit() {
         return posInit;
     }
 
-    public SourcePosition getPosCond() {
+    public long getPosCond() {
         return posCond;
     }
 
-    public SourcePosition getPosStep() {
+    public long getPosStep() {
         return posStep;
     }
 
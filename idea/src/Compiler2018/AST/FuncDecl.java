@@ -3,7 +3,7 @@ package Compiler2018.AST;
 import Compiler2018.FrontEnd.IASTVistor;
 import Compiler2018.Symbol.FuncSymbol;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class FuncDecl extends AbstractDecl {
@@ -11,16 +11,16 @@ public class FuncDecl extends AbstractDecl {
     private final String name;
     private final List<VarDecl> parameters; // can contain nothing // this will be added if in a class
     private final BlockStmt block;
-    private final SourcePosition posType;
-    private final SourcePosition posName;
+    private final long posType;
+    private final long posName;
 
     public static class Builder {
         private ClassType type;
         private String name;
-        private List<VarDecl> parameters = new LinkedList<>();
+        private List<VarDecl> parameters = new ArrayList<>();
         private BlockStmt block;
-        private SourcePosition posType;
-        private SourcePosition posName;
+        private long posType = SourcePosition.none;
+        private long posName = SourcePosition.none;
 
         public void setType(ClassType type) {
             this.type = type;
@@ -34,11 +34,11 @@ public class FuncDecl extends AbstractDecl {
             this.block = block;
         }
 
-        public void setPosType(SourcePosition posType) {
+        public void setPosType(long posType) {
             this.posType = posType;
         }
 
-        public void setPosName(SourcePosition posName) {
+        public void setPosName(long posName) {
             this.posName = posName;
         }
 
@@ -51,10 +51,10 @@ public class FuncDecl extends AbstractDecl {
         }
     }
 
-    public FuncDecl(ClassType returnType, String name, List<VarDecl> parameters, BlockStmt block, SourcePosition posType, SourcePosition posName) {
+    public FuncDecl(ClassType returnType, String name, List<VarDecl> parameters, BlockStmt block, long posType, long posName) {
         this.returnType = returnType;
         this.name = name;
-        this.parameters = parameters;
+        this.parameters = compact(parameters);
         this.block = block;
         this.posType = posType;
         this.posName = posName;
@@ -76,11 +76,11 @@ public class FuncDecl extends AbstractDecl {
         return block;
     }
 
-    public SourcePosition getPosType() {
+    public long getPosType() {
         return posType;
     }
 
-    public SourcePosition getPosName() {
+    public long getPosName() {
         return posName;
     }
 
@@ -2,20 +2,20 @@ package Compiler2018.AST;
 
 import Compiler2018.FrontEnd.IASTVistor;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class FunctionCall extends AbstractExpr {
     private final AbstractExpr name;
     private final List<AbstractExpr> parameters; // can contain nothing
-    private final SourcePosition posName;
-    private final List<SourcePosition> posParameters; // can contain nothing
+    private final long posName;
+    private final long[] posParameters; // can contain nothing
 
     public static class Builder {
         private AbstractExpr name;
-        private List<AbstractExpr> parameters = new LinkedList<>();
-        private SourcePosition posName;
-        private List<SourcePosition> posParameters = new LinkedList<>();
+        private List<AbstractExpr> parameters = new ArrayList<>();
+        private long posName = SourcePosition.none;
+        private List<Long> posParameters = new ArrayList<>();
 
         public void setName(AbstractExpr name) {
             this.name = name;
@@ -25,26 +25,26 @@ public class FunctionCall extends AbstractExpr {
             parameters.add(parameter);
         }
 
-        public void setPosName(SourcePosition posName) {
+        public void setPosName(long posName) {
             this.posName = posName;
         }
 
-        public void addPosParameter(SourcePosition posParameter) {
+        public void addPosParameter(long posParameter) {
             posParameters.add(posParameter);
         }
 
         public FunctionCall build() {
-            return new FunctionCall(name, parameters, posName, posParameters);
+            return new FunctionCall(name, parameters, posName, posParameters.stream().mapToLong(x -> x).toArray());
         }
     }
 
     private FunctionCall(
             AbstractExpr name,
             List<AbstractExpr> parameters,
-            SourcePosition posName,
-            List<SourcePosition> posParameters) {
+            long posName,
+            long[] posParameters) {
         this.name = name;
-        this.parameters = parameters;
+        this.parameters = compact(parameters);
         this.posName = posName;
         this.posParameters = posParameters;
     }
@@ -57,11 +57,11 @@ public class FunctionCall extends AbstractExpr {
         return parameters;
     }
 
-    public SourcePosition getPosName() {
+    public long getPosName() {
         return posName;
     }
 
-    public List<SourcePosition> getPosParameters() {
+    public long[] getPosParameters() {
         return posParameters;
     }
 
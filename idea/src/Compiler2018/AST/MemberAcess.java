@@ -5,11 +5,11 @@ import Compiler2018.FrontEnd.IASTVistor;
 public class MemberAcess extends AbstractExpr {
     private final AbstractExpr expr;
     private final String name;      // to avoid trouble in Visitor
-    private final SourcePosition posExpr;
-    private final SourcePosition posName;
+    private final long posExpr;
+    private final long posName;
 
     public MemberAcess(
-            AbstractExpr expr, String name, SourcePosition posExpr, SourcePosition posName) {
+            AbstractExpr expr, String name, long posExpr, long posName) {
         this.expr = expr;
         this.name = name;
         this.posExpr = posExpr;
@@ -24,11 +24,11 @@ public class MemberAcess extends AbstractExpr {
         return name;
     }
 
-    public SourcePosition getPosExpr() {
+    public long getPosExpr() {
         return posExpr;
     }
 
-    public SourcePosition getPosName() {
+    public long getPosName() {
         return posName;
     }
 
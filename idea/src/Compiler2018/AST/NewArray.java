@@ -2,7 +2,7 @@ package Compiler2018.AST;
 
 import Compiler2018.FrontEnd.IASTVistor;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class NewArray extends AbstractNewObject {
@@ -10,7 +10,7 @@ public class NewArray extends AbstractNewObject {
 
     public static class Builder {
         private ClassType type;
-        private List<AbstractExpr> lens = new LinkedList<>();
+        private List<AbstractExpr> lens = new ArrayList<>();
 
         public void setType(ClassType type) {
             this.type = type;
@@ -27,7 +27,7 @@ public class NewArray extends AbstractNewObject {
 
     public NewArray(ClassType type, List<AbstractExpr> lens) {
         super(type);
-        this.lens = lens;
+        this.lens = compact(lens);
     }
 
     public List<AbstractExpr> getLens() {
@@ -4,9 +4,9 @@ import Compiler2018.FrontEnd.IASTVistor;
 
 public class NewExpr extends AbstractExpr {
     private final AbstractNewObject newObject;
-    private final SourcePosition posNewObject;
+    private final long posNewObject;
 
-    public NewExpr(AbstractNewObject newObject, SourcePosition posNewObject) {
+    public NewExpr(AbstractNewObject newObject, long posNewObject) {
         this.newObject = newObject;
         this.posNewObject = posNewObject;
     }
@@ -15,7 +15,7 @@ public class NewExpr extends AbstractExpr {
         return newObject;
     }
 
-    public SourcePosition getPosNewObject() {
+    public long getPosNewObject() {
         return posNewObject;
     }
 
@@ -2,7 +2,7 @@ package Compiler2018.AST;
 
 import Compiler2018.FrontEnd.IASTVistor;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class NewNonArray extends AbstractNewObject {
@@ -10,7 +10,7 @@ public class NewNonArray extends AbstractNewObject {
 
     public static class Builder {
         private ClassType type;
-        private List<AbstractExpr> parameters = new LinkedList<>();
+        private List<AbstractExpr> parameters = new ArrayList<>();
 
         public void setType(ClassType baseType) {
             this.type = baseType;
@@ -27,7 +27,7 @@ public class NewNonArray extends AbstractNewObject {
 
     public NewNonArray(ClassType type, List<AbstractExpr> parameters) {
         super(type);
-        this.parameters = parameters;
+        this.parameters = compact(parameters);
     }
 
     public List<AbstractExpr> getParameters() {
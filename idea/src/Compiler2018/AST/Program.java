@@ -2,32 +2,43 @@ package Compiler2018.AST;
 
 import Compiler2018.FrontEnd.IASTVistor;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class Program extends AbstractASTNode {
     private final List<AbstractDecl> sections;
+    private final TypeTable typeTable;
 
     public static class Builder {
-        private List<AbstractDecl> sections = new LinkedList<>();
+        private List<AbstractDecl> sections = new ArrayList<>();
+        private final TypeTable typeTable;
+
+        public Builder(TypeTable typeTable) {
+            this.typeTable = typeTable;
+        }
 
         public void addSection(AbstractDecl section) {
             sections.add(section);
         }
 
         public Program build() {
-            return new Program(sections);
+            return new Program(sections, typeTable);
         }
     }
 
-    private Program(List<AbstractDecl> sections) {
-        this.sections = sections;
+    private Program(List<AbstractDecl> sections, TypeTable typeTable) {
+        this.sections = compact(sections);
+        this.typeTable = typeTable;
     }
 
     public List<AbstractDecl> getSections() {
         return sections;
     }
 
+    public TypeTable getTypeTable() {
+        return typeTable;
+    }
+
     @Override
     public void accept(IASTVistor visitor) {
         visitor.visit(this);
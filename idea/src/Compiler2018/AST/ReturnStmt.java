@@ -4,9 +4,9 @@ import Compiler2018.FrontEnd.IASTVistor;
 
 public class ReturnStmt extends AbstractJumpStmt {
     private final AbstractExpr expr;
-    private final SourcePosition posReturn;
+    private final long posReturn;
 
-    public ReturnStmt(AbstractExpr expr, SourcePosition posReturn) {
+    public ReturnStmt(AbstractExpr expr, long posReturn) {
         this.expr = expr;
         this.posReturn = posReturn;
     }
@@ -15,7 +15,7 @@ public class ReturnStmt extends AbstractJumpStmt {
         return expr;
     }
 
-    public SourcePosition getPosReturn() {
+    public long getPosReturn() {
         return posReturn;
     }
 
@@ -4,38 +4,39 @@ import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
-public class SourcePosition {
-    private final int line;
-    private final int column;
+// A position is packed in a long, the line in the high half and the column in the low one,
+// so the nodes hold their positions without an object for each.
+public final class SourcePosition {
+    public static final long none = -1;     // for a part that is not there
 
-    public int getLine() {
-        return line;
+    private SourcePosition() {
     }
 
-    public int getColumn() {
-        return column;
+    public static long of(int line, int column) {
+        return (long) line << 32 | column & 0xffffffffL;
     }
 
-    public SourcePosition(int line, int column) {
-        this.line = line;
-        this.column = column;
+    public static long of(Token token) {
+        return of(token.getLine(), token.getCharPositionInLine());
     }
 
-    public SourcePosition(Token token) {
-        this.line = token.getLine();
-        this.column = token.getCharPositionInLine();
+    public static long of(ParserRuleContext ctx) {
+        return of(ctx.start);
     }
 
-    public SourcePosition(ParserRuleContext ctx) {
-        this(ctx.start);
+    public static long of(TerminalNode terminal) {
+        return of(terminal.getSymbol());
     }
 
-    public SourcePosition(TerminalNode terminal) {
-        this(terminal.getSymbol());
+    public static int getLine(long position) {
+        return (int) (position >>> 32);
     }
 
-    @Override
-    public String toString() {
-        return "Line " + line + " Column " + column;
+    public static int getColumn(long position) {
+        return (int) position;
+    }
+
+    public static String toString(long position) {
+        return position == none ? "none" : "Line " + getLine(position) + " Column " + getColumn(position);
     }
 }
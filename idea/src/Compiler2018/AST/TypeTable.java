@@ -0,0 +1,22 @@
+package Compiler2018.AST;
+
+import Compiler2018.Symbol.ClassSymbol;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// The types of one program. The parser makes the types written in the source through it, the semantic
+// passes the rest. ClassScanner declares every class, its types then point to the ClassSymbol.
+public class TypeTable {
+    private final Map<String, ClassType> bases = new HashMap<>();
+
+    public synchronized ClassType get(String baseType, int dim) {
+        return bases.computeIfAbsent(baseType, ClassType::new).withDim(dim);
+    }
+
+    public void declare(ClassSymbol classSymbol) {
+        ClassType type = get(classSymbol.getName(), 0);
+        type.setClassSymbol(classSymbol);
+        classSymbol.setType(type);
+    }
+}
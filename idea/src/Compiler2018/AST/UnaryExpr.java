@@ -12,9 +12,9 @@ public class UnaryExpr extends AbstractExpr {
 
     private final UnaryOp op;
     private final AbstractExpr expr;
-    private final SourcePosition posExpr;
+    private final long posExpr;
 
-    public UnaryExpr(UnaryOp op, AbstractExpr expr, SourcePosition posExpr) {
+    public UnaryExpr(UnaryOp op, AbstractExpr expr, long posExpr) {
         this.op = op;
         this.expr = expr;
         this.posExpr = posExpr;
@@ -28,7 +28,7 @@ public class UnaryExpr extends AbstractExpr {
         return expr;
     }
 
-    public SourcePosition getPosExpr() {
+    public long getPosExpr() {
         return posExpr;
     }
 
@@ -7,17 +7,17 @@ public class VarDecl extends AbstractDecl {
     private final ClassType type;
     private final String name;
     private final AbstractExpr init; // can be null
-    private final SourcePosition posType;
-    private final SourcePosition posName;
-    private final SourcePosition posInit;
+    private final long posType;
+    private final long posName;
+    private final long posInit;
 
     public VarDecl(
             ClassType type,
             String name,
             AbstractExpr init,
-            SourcePosition posType,
-            SourcePosition posName,
-            SourcePosition posInit) {
+            long posType,
+            long posName,
+            long posInit) {
         this.type = type;
         this.name = name;
         this.init = init;
@@ -38,15 +38,15 @@ public class VarDecl extends AbstractDecl {
         return init;
     }
 
-    public SourcePosition getPosType() {
+    public long getPosType() {
         return posType;
     }
 
-    public SourcePosition getPosName() {
+    public long getPosName() {
         return posName;
     }
 
-    public SourcePosition getPosInit() {
+    public long getPosInit() {
         return posInit;
     }
 
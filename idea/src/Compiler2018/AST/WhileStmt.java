@@ -5,9 +5,9 @@ import Compiler2018.FrontEnd.IASTVistor;
 public class WhileStmt extends AbstractLoopStmt {
     private final AbstractExpr cond;
     private final AbstractStmt stmt;
-    private final SourcePosition posCond;
+    private final long posCond;
 
-    public WhileStmt(AbstractExpr cond, AbstractStmt stmt, SourcePosition posCond) {
+    public WhileStmt(AbstractExpr cond, AbstractStmt stmt, long posCond) {
         this.cond = cond;
         this.stmt = stmt;
         this.posCond = posCond;
@@ -21,7 +21,7 @@ public class WhileStmt extends AbstractLoopStmt {
         return stmt;
     }
 
-    public SourcePosition getPosCond() {
+    public long getPosCond() {
         return posCond;
     }
 
@@ -5,10 +5,12 @@ import Compiler2018.IR.IRStructure.*;
 import Compiler2018.IR.IRValue.Register;
 
 import java.util.LinkedHashSet;
+import java.util.Objects;
 import java.util.Set;
 
 public class ConfictGraphBuilder implements IIRVistor {
     Set<Register> registerSet;
+    InterferenceGraph graph;
 
     @Override
     public void visit(IRProgram irProgram) {
@@ -17,9 +19,32 @@ public class ConfictGraphBuilder implements IIRVistor {
 
     @Override
     public void visit(IRFunction irFunction) {
+        // every register defined or used, liveness only ever holds these
         registerSet = new LinkedHashSet<>();
-        irFunction.getBasicBlockSet().forEach(x -> x.accept(this));
+        irFunction.getBasicBlockSet().forEach(x -> {
+            BasicBlock.Iter iter = new BasicBlock.Iter(x);
+            while (iter.hasNext()) {
+                AbstractIRInstruction irInstruction = iter.next();
+                if (irInstruction.getDefinedRegister() != null) {
+                    registerSet.add(irInstruction.getDefinedRegister());
+                }
+                if (irInstruction.getUsedRegisterList() != null) {
+                    irInstruction.getUsedRegisterList().stream().filter(Objects::nonNull).forEach(registerSet::add);
+                }
+                if (irInstruction instanceof BinaryCalc) {
+                    BinaryCalc binaryCalc = (BinaryCalc) irInstruction;
+                    registerSet.add(binaryCalc.getDestination());
+                    registerSet.add(binaryCalc.getLeftOperand());
+                    registerSet.add(binaryCalc.getRightOperand());
+                }
+            }
+        });
+        graph = new InterferenceGraph(registerSet);
         registerSet = null;
+
+        irFunction.getBasicBlockSet().forEach(x -> x.accept(this));
+        irFunction.setInterferenceGraph(graph);
+        graph = null;
     }
 
     @Override
@@ -37,14 +62,13 @@ public class ConfictGraphBuilder implements IIRVistor {
         BasicBlock.Iter iter = new BasicBlock.Iter(basicBlock);
         while (iter.hasNext()) {
             AbstractIRInstruction irInstruction = iter.next();
-            irInstruction.buildGraph();
+            irInstruction.buildGraph(graph);
             irInstruction.accept(this);
         }
     }
 
     void link(Register lhs, Register rhs) {
-        lhs.getConflictRegisterSet().add(rhs);
-        rhs.getConflictRegisterSet().add(lhs);
+        graph.addEdge(lhs, rhs);
     }
 
     @Override
@@ -139,58 +139,79 @@ public class ConstantFolder implements IASTVistor {
 
     @Override
     public void visit(UnaryExpr node) {
-        node.getExpr().accept(this);
+        ExprWalker.walk(node, this, null, null);
     }
 
     @Override
     public void visit(BinaryExpr node) {
-        node.getLhs().accept(this);
-        node.getRhs().accept(this);
-        if (node.getLhs().isFolded() && node.getRhs().isFolded()) {
-            switch (node.getOp()) {
-                case ADD:
-                    node.setAns(node.getLhs().getAns() + node.getRhs().getAns());
-                    node.setFolded(true);
-                    break;
-                case SUB:
-                    node.setAns(node.getLhs().getAns() - node.getRhs().getAns());
-                    node.setFolded(true);
-                    break;
-                case MUL:
-                    node.setAns(node.getLhs().getAns() * node.getRhs().getAns());
-                    node.setFolded(true);
-                    break;
-                case DIV:
-                    node.setAns(node.getLhs().getAns() / node.getRhs().getAns());
-                    node.setFolded(true);
-                    break;
-                case MOD:
-                    node.setAns(node.getLhs().getAns() % node.getRhs().getAns());
-                    node.setFolded(true);
-                    break;
-                case LEFT_SHIFT:
-                    node.setAns(node.getLhs().getAns() << node.getRhs().getAns());
-                    node.setFolded(true);
-                    break;
-                case RIGHT_SHIFT:
-                    node.setAns(node.getLhs().getAns() >> node.getRhs().getAns());
-                    node.setFolded(true);
-                    break;
-                case BITWISE_OR:
-                    node.setAns(node.getLhs().getAns() | node.getRhs().getAns());
-                    node.setFolded(true);
-                    break;
-                case BITWISE_AND:
-                    node.setAns(node.getLhs().getAns() & node.getRhs().getAns());
-                    node.setFolded(true);
-                    break;
-                case XOR:
-                    node.setAns(node.getLhs().getAns() ^ node.getRhs().getAns());
-                    node.setFolded(true);
-                    break;
-                default:
+        ExprWalker.walk(node, this, null, x -> {
+            if (x instanceof BinaryExpr) {
+                fold((BinaryExpr) x);
             }
+        });
+    }
+
+    // of a BinaryExpr whose operands are folded. NasmColor computes in 64-bit registers, an Immediate is an int:
+    // the value is worked out in long as the machine does and only folded when it fits an int, a shift only
+    // by 0..31, everything else is left to run time as at -O1
+    private void fold(BinaryExpr node) {
+        if (!node.getLhs().isFolded() || !node.getRhs().isFolded()) {
+            return;
         }
+        long lhs = node.getLhs().getAns();
+        long rhs = node.getRhs().getAns();
+        long ans;
+        switch (node.getOp()) {
+            case ADD:
+                ans = lhs + rhs;
+                break;
+            case SUB:
+                ans = lhs - rhs;
+                break;
+            case MUL:
+                ans = lhs * rhs;
+                break;
+            case DIV:
+                if (rhs == 0) {
+                    return;     // left for the program to fault on at run time
+                }
+                ans = lhs / rhs;
+                break;
+            case MOD:
+                if (rhs == 0) {
+                    return;     // left for the program to fault on at run time
+                }
+                ans = lhs % rhs;
+                break;
+            case LEFT_SHIFT:
+                if (rhs < 0 || rhs > 31) {
+                    return;
+                }
+                ans = lhs << rhs;
+                break;
+            case RIGHT_SHIFT:
+                if (rhs < 0 || rhs > 31) {
+                    return;
+                }
+                ans = lhs >> rhs;
+                break;
+            case BITWISE_OR:
+                ans = lhs | rhs;
+                break;
+            case BITWISE_AND:
+                ans = lhs & rhs;
+                break;
+            case XOR:
+                ans = lhs ^ rhs;
+                break;
+            default:
+                return;
+        }
+        if (ans != (int) ans) {
+            return;
+        }
+        node.setAns((int) ans);
+        node.setFolded(true);
     }
 
     @Override
@@ -0,0 +1,71 @@
+package Compiler2018.BackEnd;
+
+import Compiler2018.IR.IRInstruction.AbstractIRInstruction;
+import Compiler2018.IR.IRStructure.BasicBlock;
+import Compiler2018.IR.IRStructure.IRFunction;
+import Compiler2018.IR.IRValue.Register;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+
+// Decides for every function whether the passes that grow faster than it are run on it.
+// Liveness and the conflict graph cost about instructions x registers, a function above
+// functionCost, or any function once the compile-time budget is used up, is downgraded:
+// those passes and greedy-alloc are skipped and every register is left on the stack, as at -O0.
+public class CostBudget {
+    public static final long defaultFunctionCost = 1L << 32;   // about 50000 registers, 150 MB of conflict graph
+    private static final Set<String> downgraded = Set.of("liveness", "conflict-graph", "greedy-alloc");
+
+    private final long functionCost;    // 0 for no limit
+    private final long start = System.nanoTime();
+    private final long millis;          // compile-time budget from when the budget was made, 0 for no limit
+
+    public CostBudget() {
+        this(defaultFunctionCost, 0);
+    }
+
+    public CostBudget(long functionCost, long millis) {
+        this.functionCost = functionCost;
+        this.millis = millis;
+    }
+
+    public static boolean isDowngraded(String pass) {
+        return downgraded.contains(pass);
+    }
+
+    // instructions x registers
+    public static long cost(IRFunction irFunction) {
+        long instructions = 0;
+        Set<Register> registers = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (BasicBlock basicBlock : irFunction.getBasicBlockSet()) {
+            BasicBlock.Iter iter = new BasicBlock.Iter(basicBlock);
+            while (iter.hasNext()) {
+                AbstractIRInstruction inst = iter.next();
+                ++instructions;
+                if (inst.getDefinedRegister() != null) {
+                    registers.add(inst.getDefinedRegister());
+                }
+                if (inst.getUsedRegisterList() != null) {
+                    inst.getUsedRegisterList().stream().filter(Objects::nonNull).forEach(registers::add);
+                }
+            }
+        }
+        return instructions * registers.size();
+    }
+
+    // why irFunction is downgraded, null when it is not
+    public String check(IRFunction irFunction) {
+        if (millis > 0 && System.nanoTime() - start > millis * 1000000) {
+            return "compile-time budget of " + millis + " ms used up";
+        }
+        if (functionCost > 0) {
+            long cost = cost(irFunction);
+            if (cost > functionCost) {
+                return "cost " + cost + " over " + functionCost;
+            }
+        }
+        return null;
+    }
+}
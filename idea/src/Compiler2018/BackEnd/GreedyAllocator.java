@@ -20,7 +20,7 @@ public class GreedyAllocator implements IIRVistor{
         }
         if (!register.isTryed() && register.getAllocatedRegister() == null) {
             Set<Register.PysicalRegister> used = new LinkedHashSet<>();
-            register.getConflictRegisterSet().forEach(x -> used.add(x.getAllocatedRegister()));
+            currentFunction.getInterferenceGraph().forEachNeighbor(register, x -> used.add(x.getAllocatedRegister()));
             for (Register.PysicalRegister reg : allReg) {
                 if (!used.contains(reg)) {
 //                    System.err.println(register.toIRString() + "<-" + reg.toString());
@@ -87,9 +87,16 @@ public class GreedyAllocator implements IIRVistor{
         calleeReg.add(Register.PysicalRegister.R15);
     }
 
+    public GreedyAllocator() {
+        init();
+    }
+
+    public Integer getCounter() {
+        return counter;
+    }
+
     @Override
     public void visit(IRProgram irProgram) {
-        init();
         irProgram.getIrFunctionMap().forEach((x, y) -> y.accept(this));
         System.err.println(counter + " allocated");
     }
@@ -102,6 +109,7 @@ public class GreedyAllocator implements IIRVistor{
         irFunction.getStackOffsetMap().forEach((x, y) -> order.add(x)); // need resolver
         Collections.shuffle(order, new Random(72));
         order.forEach(this::color);
+        irFunction.clearLiveness();
         parameterList = null;
         currentFunction = null;
     }
@@ -3,30 +3,32 @@ package Compiler2018.BackEnd;
 import Compiler2018.IR.IRInstruction.*;
 import Compiler2018.IR.IRStructure.*;
 import Compiler2018.IR.IRValue.Register;
+import Compiler2018.IR.IRValue.RegisterBitSet;
 
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 public class LivenessAnalysis implements IIRVistor{
     private IRProgram irProgram;
 
+    // dense numbering of the current function
+    private final List<AbstractIRInstruction> instList = new ArrayList<>();
+    private final List<Register> registerList = new ArrayList<>();
+
     public LivenessAnalysis(IRProgram irProgram) {
         this.irProgram = irProgram;
     }
 
-    private void initBlock(BasicBlock basicBlock) {
-        BasicBlock.Iter iter = new BasicBlock.Iter(basicBlock);
-        while (iter.hasNext()) {
-            AbstractIRInstruction inst = iter.next();
-            if (inst.getLiveInSet() == null) {
-                inst.setLiveInSet(new LinkedHashSet<>());
-                inst.setLiveOutSet(new LinkedHashSet<>());
-            } else {
-                inst.getLiveInSet().clear();
-                inst.getLiveOutSet().clear();
-            }
+    private int number(Register register) {
+        if (register == null) {
+            return -1;
+        }
+        int index = register.getIndex();
+        if (index < 0 || index >= registerList.size() || registerList.get(index) != register) {
+            index = registerList.size();
+            register.setIndex(index);
+            registerList.add(register);
         }
+        return index;
     }
 
     @Override
@@ -34,52 +36,208 @@ public class LivenessAnalysis implements IIRVistor{
         irProgram.getIrFunctionMap().forEach((x,y) -> y.accept(this));
     }
 
+    private static boolean isTerminator(AbstractIRInstruction inst) {
+        return inst instanceof Branch || inst instanceof Jump || inst instanceof Ret;
+    }
+
+    private static int[] successors(AbstractIRInstruction inst, Map<BasicBlock, Integer> blockIndex) {
+        if (inst instanceof Branch) {
+            return new int[]{
+                    blockIndex.getOrDefault(((Branch) inst).getIfTrue(), -1),
+                    blockIndex.getOrDefault(((Branch) inst).getIfFalse(), -1)};
+        } else if (inst instanceof Jump) {
+            return new int[]{blockIndex.getOrDefault(((Jump) inst).getJumpBlock(), -1)};
+        } else {
+            return new int[0];  // Ret, or falling off the end of the block
+        }
+    }
+
     @Override
     public void visit(IRFunction irFunction) {
-        List<BasicBlock> basicBlockList = irFunction.getReversePreOrder();
-//        Set<BasicBlock> basicBlockList = irFunction.getBasicBlockSet();
-        basicBlockList.forEach(this::initBlock);
-
-        Set<Register> inSet = new LinkedHashSet<>();
-        Set<Register> outSet = new LinkedHashSet<>();
-        boolean changed = true;
-        while (changed) {
-            changed = false;
-            for (BasicBlock block : basicBlockList) {
-                for (AbstractIRInstruction inst = block.getTail(); inst != null; inst = inst.getPrev()) {
-                    inSet.clear();
-                    outSet.clear();
-                    if (inst instanceof Branch) {
-                            outSet.addAll(((Branch) inst).getIfTrue().getHead().getLiveInSet());
-                            outSet.addAll(((Branch) inst).getIfFalse().getHead().getLiveInSet());
-                    } else if (inst instanceof Jump) {
-                            outSet.addAll(((Jump) inst).getJumpBlock().getHead().getLiveInSet());
-                    } else if (!(inst instanceof Ret)) {
-                        if (inst.getNext() != null) {
-                            outSet.addAll(inst.getNext().getLiveInSet());
-                        }
-                    }
-                    inSet.addAll(outSet);
-                    Register definedRegister = inst.getDefinedRegister();
-                    if (definedRegister != null) {
-                        inSet.remove(definedRegister);
+        List<BasicBlock> basicBlockList = irFunction.getPostOrder();
+        int blockCount = basicBlockList.size();
+        int[] blockStart = new int[blockCount + 1];
+        Map<BasicBlock, Integer> blockIndex = new HashMap<>();
+
+        // number instructions block by block, registers by first appearance
+        for (int b = 0; b < blockCount; ++b) {
+            BasicBlock block = basicBlockList.get(b);
+            blockIndex.put(block, b);
+            blockStart[b] = instList.size();
+            BasicBlock.Iter iter = new BasicBlock.Iter(block);
+            while (iter.hasNext()) {
+                instList.add(iter.next());
+            }
+        }
+        blockStart[blockCount] = instList.size();
+
+        int n = instList.size();
+        int[] def = new int[n];
+        int[][] use = new int[n][];
+        for (int i = 0; i < n; ++i) {
+            AbstractIRInstruction inst = instList.get(i);
+            def[i] = number(inst.getDefinedRegister());
+            List<Register> usedRegisterList = inst.getUsedRegisterList();
+            if (usedRegisterList != null) {
+                use[i] = usedRegisterList.stream().filter(Objects::nonNull).mapToInt(this::number).toArray();
+            }
+        }
+        int words = (registerList.size() + 63) >>> 6;
+
+        // gen / kill of each block, up to its first terminator
+        long[] gen = new long[blockCount * words];
+        long[] kill = new long[blockCount * words];
+        int[][] succ = new int[blockCount][];
+        for (int b = 0; b < blockCount; ++b) {
+            if (blockStart[b] == blockStart[b + 1]) {
+                succ[b] = new int[0];
+                continue;
+            }
+            int end = blockStart[b];
+            while (end < blockStart[b + 1] - 1 && !isTerminator(instList.get(end))) {
+                ++end;
+            }
+            succ[b] = successors(instList.get(end), blockIndex);
+            int base = b * words;
+            for (int i = end; i >= blockStart[b]; --i) {
+                if (def[i] >= 0) {
+                    gen[base + (def[i] >>> 6)] &= ~(1L << def[i]);
+                    kill[base + (def[i] >>> 6)] |= 1L << def[i];
+                }
+                if (use[i] != null) {
+                    for (int u : use[i]) {
+                        gen[base + (u >>> 6)] |= 1L << u;
                     }
-                    List<Register> usedRegisterList = inst.getUsedRegisterList();
-                    if (usedRegisterList != null) {
-                        inSet.addAll(usedRegisterList);
+                }
+            }
+        }
+
+        // worklist over blocks, seeded in postorder
+        long[] liveIn = new long[blockCount * words];
+        long[] out = new long[words];
+        boolean[] queued = new boolean[blockCount];
+        Deque<Integer> worklist = new ArrayDeque<>();
+        for (int b = 0; b < blockCount; ++b) {
+            worklist.add(b);
+            queued[b] = true;
+        }
+        while (!worklist.isEmpty()) {
+            int b = worklist.poll();
+            queued[b] = false;
+            Arrays.fill(out, 0);
+            for (int s : succ[b]) {
+                if (s >= 0) {
+                    for (int w = 0; w < words; ++w) {
+                        out[w] |= liveIn[s * words + w];
                     }
-                    if (inst.getLiveInSet() == null) {
-                        throw new RuntimeException();
+                }
+            }
+            boolean changed = false;
+            int base = b * words;
+            for (int w = 0; w < words; ++w) {
+                long in = gen[base + w] | (out[w] & ~kill[base + w]);
+                if (in != liveIn[base + w]) {
+                    liveIn[base + w] = in;
+                    changed = true;
+                }
+            }
+            if (changed) {
+                for (BasicBlock pred : basicBlockList.get(b).getPred()) {
+                    Integer p = blockIndex.get(pred);
+                    if (p != null && !queued[p]) {
+                        queued[p] = true;
+                        worklist.add(p);
                     }
-                    if (!inst.getLiveInSet().equals(inSet) || !inst.getLiveOutSet().equals(outSet)) {
-                        changed = true;
-                        inst.getLiveInSet().clear();
-                        inst.getLiveOutSet().clear();
-                        inst.getLiveInSet().addAll(inSet);
-                        inst.getLiveOutSet().addAll(outSet);
+                }
+            }
+        }
+
+        // per-instruction sets are filled block by block when first asked for
+        FunctionLiveness liveness = new FunctionLiveness(
+                registerList.toArray(new Register[0]), instList.toArray(new AbstractIRInstruction[0]),
+                blockStart, blockIndex, def, use, liveIn, words);
+        for (int b = 0; b < blockCount; ++b) {
+            final int block = b;
+            Runnable sweep = () -> liveness.sweep(block);
+            for (int i = blockStart[b]; i < blockStart[b + 1]; ++i) {
+                instList.get(i).setLiveInSet(null);
+                instList.get(i).setLiveOutSet(null);
+                instList.get(i).setLiveSweep(sweep);
+            }
+        }
+        instList.clear();
+        registerList.clear();
+    }
+
+    private static class FunctionLiveness {
+        private final Register[] universe;
+        private final Map<Register, Integer> numbering = new IdentityHashMap<>();
+        private final AbstractIRInstruction[] insts;
+        private final int[] blockStart;
+        private final Map<BasicBlock, Integer> blockIndex;
+        private final int[] def;
+        private final int[][] use;
+        private final long[] liveIn;  // of each block
+        private final int words;
+
+        FunctionLiveness(Register[] universe, AbstractIRInstruction[] insts, int[] blockStart, Map<BasicBlock, Integer> blockIndex,
+                         int[] def, int[][] use, long[] liveIn, int words) {
+            this.universe = universe;
+            for (int i = 0; i < universe.length; ++i) {
+                numbering.put(universe[i], i);
+            }
+            this.insts = insts;
+            this.blockStart = blockStart;
+            this.blockIndex = blockIndex;
+            this.def = def;
+            this.use = use;
+            this.liveIn = liveIn;
+            this.words = words;
+        }
+
+        private void orBlockIn(long[] live, int base, BasicBlock target) {
+            Integer t = blockIndex.get(target);
+            if (t != null) {
+                for (int w = 0; w < words; ++w) {
+                    live[base + w] |= liveIn[t * words + w];
+                }
+            }
+        }
+
+        // one backward sweep over the block, every instruction after the first terminator included
+        void sweep(int b) {
+            int start = blockStart[b];
+            int len = blockStart[b + 1] - start;
+            long[] live = new long[2 * len * words];  // live-in of k at [k * words], live-out at [(len + k) * words]
+            for (int k = len - 1; k >= 0; --k) {
+                AbstractIRInstruction inst = insts[start + k];
+                int inBase = k * words;
+                int outBase = (len + k) * words;
+                if (inst instanceof Branch) {
+                    orBlockIn(live, outBase, ((Branch) inst).getIfTrue());
+                    orBlockIn(live, outBase, ((Branch) inst).getIfFalse());
+                } else if (inst instanceof Jump) {
+                    orBlockIn(live, outBase, ((Jump) inst).getJumpBlock());
+                } else if (!(inst instanceof Ret) && k + 1 < len) {
+                    System.arraycopy(live, inBase + words, live, outBase, words);
+                }
+                System.arraycopy(live, outBase, live, inBase, words);
+                int d = def[start + k];
+                if (d >= 0) {
+                    live[inBase + (d >>> 6)] &= ~(1L << d);
+                }
+                if (use[start + k] != null) {
+                    for (int u : use[start + k]) {
+                        live[inBase + (u >>> 6)] |= 1L << u;
                     }
                 }
             }
+            for (int k = 0; k < len; ++k) {
+                AbstractIRInstruction inst = insts[start + k];
+                inst.setLiveInSet(new RegisterBitSet(universe, numbering, live, k * words, words));
+                inst.setLiveOutSet(new RegisterBitSet(universe, numbering, live, (len + k) * words, words));
+                inst.setLiveSweep(null);
+            }
         }
     }
 
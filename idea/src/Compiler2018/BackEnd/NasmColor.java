@@ -1,5 +1,6 @@
 package Compiler2018.BackEnd;
 
+import Compiler2018.Cache.CompilationCache;
 import Compiler2018.IR.IRInstruction.*;
 import Compiler2018.IR.IRStructure.*;
 import Compiler2018.IR.IRValue.AbstractValue;
@@ -7,6 +8,9 @@ import Compiler2018.IR.IRValue.Immediate;
 import Compiler2018.IR.IRValue.Label;
 import Compiler2018.IR.IRValue.Register;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,10 +32,35 @@ public class NasmColor implements IIRVistor {
     private Register.PysicalRegister leftOpPreserved = Register.PysicalRegister.RAX;
     private Register.PysicalRegister rightOpPreserved = Register.PysicalRegister.RCX;    // conhere with coloring
 
+    private final Writer out;    // null to keep everything in builder
+    private final CompilationCache cache;   // gets every function that is emitted, may be null
+
+    public NasmColor() {
+        this(null, null);
+    }
+
+    // builder is handed to out after every function, so only one function is held at a time
+    public NasmColor(Writer out, CompilationCache cache) {
+        this.out = out;
+        this.cache = cache;
+    }
+
     public StringBuilder getBuilder() {
         return builder;
     }
 
+    public void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.append(builder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        builder.setLength(0);
+    }
+
     private void stackAddr(Register register) {
         builder.append("qword [rbp - ");
         builder.append(-register.getStackOffset());
@@ -70,10 +99,21 @@ public class NasmColor implements IIRVistor {
 
     @Override
     public void visit(IRProgram irProgram) {
+        textSection();
+        flush();
+        irProgram.getFunctionList().forEach(x -> x.accept(this));
+        dataSection(irProgram);
+        flush();
+    }
+
+    // the parts around the functions, for drivers that render functions separately
+    public void textSection() {
         builder.append("global main\n\n");
 
         builder.append("SECTION .text\n\n");
-        irProgram.getIrFunctionMap().forEach((x,y) -> y.accept(this));
+    }
+
+    public void dataSection(IRProgram irProgram) {
         builder.append("SECTION .data\n\n");
         globalVar = true;
         irProgram.getGlobalVarMap().forEach((x, y) -> y.accept(this));
@@ -84,6 +124,12 @@ public class NasmColor implements IIRVistor {
 
     @Override
     public void visit(IRFunction irFunction) {
+        if (irFunction.getCached() != null) {
+            builder.append(irFunction.getCached().resolve(irFunction));
+            flush();
+            return;
+        }
+        int begin = builder.length();
         currentFunction = irFunction;
         currentRSP = 0;
         if (irFunction.getProcessedName().equals("_main")) {
@@ -116,6 +162,10 @@ public class NasmColor implements IIRVistor {
         irFunction.getBasicBlockSet().forEach(x -> x.accept(this));
         builder.append("\n");
         currentFunction = null;
+        if (cache != null) {
+            cache.store(irFunction, builder.substring(begin));
+        }
+        flush();
     }
 
     @Override
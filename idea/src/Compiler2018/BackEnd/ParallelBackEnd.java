@@ -0,0 +1,153 @@
+package Compiler2018.BackEnd;
+
+import Compiler2018.Cache.CompilationCache;
+import Compiler2018.CompileStats;
+import Compiler2018.IR.IRStructure.IRFunction;
+import Compiler2018.IR.IRStructure.IRProgram;
+import Compiler2018.Stats.FunctionStats;
+import Compiler2018.Stats.Profiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs the function-local passes after SimpleInliner function by function, on a fork-join pool if there is one.
+// Each function is rendered into its own buffer and the buffers are written out in program order,
+// so the text is the same as the one produced pass by pass. Functions from the cache skip the passes.
+// A function is released as soon as it is rendered and only a few are in flight at a time, so the
+// analyses of the largest function, not of the whole program, bound the memory used here.
+// When it releases, the functions waiting for their turn are kept compact, in a DenseBody, and are
+// expanded back into blocks and instructions just before their passes.
+public class ParallelBackEnd {
+    private final ForkJoinPool pool;    // null to compile the functions one after the other
+    private final Map<String, Supplier<IIRVistor>> passes;  // by name in order, NasmColor is run after them
+    private final CompilationCache cache;
+    private final CompileStats stats;   // null when nothing is counted
+    private final Profiler profiler;    // null when nothing is timed
+    private final CostBudget budget;
+    private final boolean release;      // drop the IR of every function once it is rendered
+    private final AtomicInteger allocated = new AtomicInteger(0);
+    private boolean allocating = false;
+
+    public ParallelBackEnd(ForkJoinPool pool, Map<String, Supplier<IIRVistor>> passes, CompilationCache cache,
+                           CompileStats stats, Profiler profiler, CostBudget budget, boolean release) {
+        this.pool = pool;
+        this.passes = passes;
+        this.cache = cache;
+        this.stats = stats;
+        this.profiler = profiler;
+        this.budget = budget;
+        this.release = release;
+    }
+
+    // functionStats is null when nothing is counted
+    private String compile(IRFunction irFunction, FunctionStats functionStats) {
+        boolean downgraded = false;     // not stored in the cache, it would be taken for a full compile
+        if (irFunction.getCached() == null) {   // one from the cache is only spliced in
+            if (irFunction.isCompact()) {
+                Profiler.Span span = profiler == null ? null : profiler.start("expand", irFunction.getProcessedName());
+                irFunction.expand();
+                if (span != null) {
+                    span.end();
+                }
+            }
+            if (functionStats != null) {
+                functionStats.countIR(irFunction);
+            }
+            String downgrade = budget.check(irFunction);
+            if (downgrade != null) {
+                downgraded = true;
+                System.err.println(irFunction.getProcessedName() + ": " + downgrade + ", every register left on the stack");
+                if (functionStats != null) {
+                    functionStats.setDowngraded(true);
+                }
+            }
+            for (Map.Entry<String, Supplier<IIRVistor>> pass : passes.entrySet()) {
+                if (downgrade != null && CostBudget.isDowngraded(pass.getKey())) {
+                    continue;
+                }
+                IIRVistor vistor = pass.getValue().get();
+                Profiler.Span span = profiler == null ? null : profiler.start(pass.getKey(), irFunction.getProcessedName());
+                vistor.visit(irFunction);
+                if (span != null) {
+                    span.end();
+                }
+                if (vistor instanceof GreedyAllocator) {
+                    allocating = true;
+                    allocated.addAndGet(((GreedyAllocator) vistor).getCounter());
+                }
+                if (vistor instanceof ConfictGraphBuilder && functionStats != null) {
+                    functionStats.setConflictEdges(irFunction.getInterferenceGraph().getEdgeCount());
+                }
+            }
+            if (functionStats != null) {
+                functionStats.countFrame(irFunction);
+            }
+        } else if (functionStats != null) {
+            functionStats.setCached(true);
+        }
+
+        // NASM generation
+        Profiler.Span span = profiler == null ? null : profiler.start("emit", irFunction.getProcessedName());
+        NasmColor nasmColor = new NasmColor(null, downgraded ? null : cache);
+        nasmColor.visit(irFunction);
+        if (span != null) {
+            span.end();
+        }
+        if (release) {
+            irFunction.release();
+        }
+        String text = nasmColor.getBuilder().toString();
+        if (functionStats != null) {
+            functionStats.countEmitted(text);
+        }
+        return text;
+    }
+
+    private FunctionStats functionStats(IRFunction irFunction) {
+        return stats == null ? null : stats.function(irFunction.getProcessedName());
+    }
+
+    public void run(IRProgram irProgram, Writer out) throws IOException {
+        NasmColor nasmColor = new NasmColor(out, null);
+        nasmColor.textSection();
+        nasmColor.flush();
+        List<IRFunction> functionList = irProgram.getFunctionList();
+        if (release) {
+            Profiler.Span span = profiler == null ? null : profiler.start("compact", null);
+            functionList.stream().filter(x -> x.getCached() == null).forEach(IRFunction::compact);
+            if (span != null) {
+                span.end();
+            }
+        }
+        if (pool == null) {
+            for (IRFunction irFunction : functionList) {
+                out.write(compile(irFunction, functionStats(irFunction)));
+            }
+        } else {
+            int window = 2 * pool.getParallelism();     // enough to keep the pool busy
+            Deque<ForkJoinTask<String>> tasks = new ArrayDeque<>();
+            int next = 0;
+            while (next < functionList.size() || !tasks.isEmpty()) {
+                while (next < functionList.size() && tasks.size() < window) {
+                    IRFunction irFunction = functionList.get(next++);
+                    FunctionStats functionStats = functionStats(irFunction);
+                    tasks.add(pool.submit(() -> compile(irFunction, functionStats)));
+                }
+                out.write(tasks.poll().join());
+            }
+        }
+        nasmColor.dataSection(irProgram);
+        nasmColor.flush();
+        if (allocating) {
+            System.err.println(allocated + " allocated");   // as GreedyAllocator does for a whole program
+        }
+    }
+}
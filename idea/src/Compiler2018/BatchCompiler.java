@@ -0,0 +1,151 @@
+package Compiler2018;
+
+import Compiler2018.BackEnd.CostBudget;
+import Compiler2018.Cache.CompilationCache;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Compiles many programs in one JVM, every input gets an .asm of the same base name.
+// The DFA caches of MLexer / MParser are static, so they stay warm from one program to the next.
+// With jobs > 1 the programs are compiled on a pool, each IRProgram hands out its own ids.
+public class BatchCompiler {
+    private final Path outDir;      // null for next to the source
+    private final Path runtime;     // prepended to every .asm as codegen.bash does with allInOne.asm, may be null
+    private final PassManager.Level level;
+    private final int jobs;
+    private final CompilationCache cache;   // shared by all inputs, may be null
+    private final long functionCost;        // for a CostBudget per input, its time budget starts with the input
+    private final long timeBudget;
+
+    public BatchCompiler(Path outDir, Path runtime, PassManager.Level level, int jobs, CompilationCache cache,
+                         long functionCost, long timeBudget) {
+        this.outDir = outDir;
+        this.runtime = runtime;
+        this.level = level;
+        this.jobs = jobs;
+        this.cache = cache;
+        this.functionCost = functionCost;
+        this.timeBudget = timeBudget;
+    }
+
+    // directories are expanded to their .mx / .txt files, in name order
+    public static List<Path> collect(List<String> args) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (!Files.isDirectory(path)) {
+                inputs.add(path);
+                continue;
+            }
+            try (Stream<Path> files = Files.list(path)) {
+                inputs.addAll(files.filter(file -> {
+                    String name = file.getFileName().toString().toLowerCase();
+                    return Files.isRegularFile(file) && (name.endsWith(".mx") || name.endsWith(".txt"));
+                }).sorted().collect(Collectors.toList()));
+            }
+        }
+        return inputs;
+    }
+
+    private Path target(Path source) {
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        name = (dot > 0 ? name.substring(0, dot) : name) + ".asm";
+        return outDir == null ? source.resolveSibling(name) : outDir.resolve(name);
+    }
+
+    // null on success, otherwise the message to report
+    private String compile(Path source) {
+        Path target = target(source);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (runtime != null) {
+                WantonWind.transfer(runtime, channel);
+            }
+            Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1), 1 << 16);
+            WantonWind.compile(WantonWind.readTestFile(source.toString()), level, false, null, null, cache,
+                    new CostBudget(functionCost, timeBudget), out);
+            out.write('\n');
+            out.flush();
+            return null;
+        } catch (Exception | StackOverflowError e) {
+            try {
+                Files.deleteIfExists(target);   // no half written .asm
+            } catch (IOException ignored) {
+            }
+            return e.toString();
+        }
+    }
+
+    // returns the number of inputs that failed to compile.
+    // Two inputs that would write the same .asm, as a/x.Mx and b/x.Mx under --out, fail before anything is compiled.
+    public int run(List<Path> inputs) throws IOException {
+        Map<Path, Path> sources = new HashMap<>();     // by target
+        int clashes = 0;
+        for (Path source : inputs) {
+            Path target = target(source).toAbsolutePath().normalize();
+            Path other = sources.putIfAbsent(target, source);
+            if (other != null) {
+                System.err.println(source + ": " + other + " also compiles to " + target);
+                ++clashes;
+            }
+        }
+        if (clashes > 0) {
+            return clashes;
+        }
+
+        if (outDir != null) {
+            Files.createDirectories(outDir);
+        }
+        List<String> errors = new ArrayList<>();
+        if (jobs <= 1) {
+            for (Path source : inputs) {
+                errors.add(compile(source));
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(jobs);
+            try {
+                List<ForkJoinTask<String>> tasks = new ArrayList<>();
+                for (Path source : inputs) {
+                    tasks.add(pool.submit(() -> compile(source)));
+                }
+                for (ForkJoinTask<String> task : tasks) {
+                    errors.add(task.join());
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        int failed = 0;
+        for (int i = 0; i < inputs.size(); ++i) {
+            if (errors.get(i) != null) {
+                System.err.println(inputs.get(i) + ": " + errors.get(i));
+                ++failed;
+            }
+        }
+        System.err.println((inputs.size() - failed) + " compiled, " + failed + " failed");
+        if (cache != null) {
+            cache.evict();
+            System.err.print(cache);
+        }
+        return failed;
+    }
+}
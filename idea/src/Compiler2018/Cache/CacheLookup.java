@@ -0,0 +1,338 @@
+package Compiler2018.Cache;
+
+import Compiler2018.AST.*;
+import Compiler2018.FrontEnd.IASTVistor;
+import Compiler2018.IR.IRStructure.IRProgram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Looks every function up in the CompilationCache, after the semantic passes and before any IR exists.
+// The key of a function covers the build of the compiler, its own fingerprint, the layouts of the classes and the globals it uses,
+// and the fingerprints of every function it can reach, since SimpleInliner copies callee bodies into callers.
+// Every hit is taken, one that a function that is compiled can reach still gets its IR built to be inlined.
+public class CacheLookup implements IASTVistor {
+    private static String build = null;     // fingerprint of the compiler, entries of another build are never read
+
+    private static class Function {
+        private final int index;    // in the order ir-build meets the functions
+        private final byte[] digest;
+        private final String uses;  // class layouts and globals
+        private final Set<String> callees;
+
+        private Function(int index, byte[] digest, String uses, Set<String> callees) {
+            this.index = index;
+            this.digest = digest;
+            this.uses = uses;
+            this.callees = callees;
+        }
+    }
+
+    private final CompilationCache cache;
+    private final IRProgram irProgram;
+    private final List<String> pipeline;
+    private final Map<String, String> layoutMap = new LinkedHashMap<>();
+    private final List<VarDecl> globalList = new ArrayList<>();
+    private final Map<String, Function> functionMap = new LinkedHashMap<>();   // processed name
+    private String className = null;
+
+    public CacheLookup(CompilationCache cache, IRProgram irProgram, List<String> pipeline) {
+        this.cache = cache;
+        this.irProgram = irProgram;
+        this.pipeline = pipeline;
+    }
+
+    // fields in heap order, and whether new calls a constructor
+    private static String layout(ClassDecl node) {
+        StringBuilder builder = new StringBuilder(node.getName()).append('{');
+        for (AbstractClassItem item : node.getItems()) {
+            if (item instanceof ClassVarDecl) {
+                VarDecl decl = ((ClassVarDecl) item).getDecl();
+                builder.append(decl.getType().getBaseType()).append('[').append(decl.getType().getDim()).append("] ")
+                        .append(decl.getName()).append(';');
+            } else if (item instanceof ClassCstrDecl) {
+                builder.append("cstr;");
+            }
+        }
+        return builder.append('}').toString();
+    }
+
+    private void add(String name, AbstractASTNode node, List<VarDecl> globalInits) {
+        FunctionHasher hasher = new FunctionHasher();
+        globalInits.forEach(x -> x.accept(hasher));
+        node.accept(hasher);
+
+        StringBuilder uses = new StringBuilder();
+        Set<String> classes = new LinkedHashSet<>(hasher.getClasses());
+        if (className != null) {
+            classes.add(className);
+        }
+        classes.stream().filter(layoutMap::containsKey).forEach(x -> uses.append(layoutMap.get(x)));
+        hasher.getGlobals().forEach((x, y) ->
+                uses.append('@').append(x).append(' ').append(y.getBaseType()).append('[').append(y.getDim()).append("];"));
+        functionMap.put(name, new Function(functionMap.size(), hasher.getDigest(), uses.toString(), hasher.getCallees()));
+    }
+
+    private Set<String> reach(Collection<String> roots) {
+        Set<String> reached = new LinkedHashSet<>();
+        Deque<String> stack = new ArrayDeque<>(roots);
+        while (!stack.isEmpty()) {
+            String name = stack.pop();
+            if (functionMap.containsKey(name) && reached.add(name)) {
+                stack.addAll(functionMap.get(name).callees);
+            }
+        }
+        return reached;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 15, 16)).append(Character.forDigit(b & 15, 16));
+        }
+        return builder.toString();
+    }
+
+    // the jar the compiler is loaded from, or every .class under its directory
+    private static synchronized String build() {
+        if (build == null) {
+            MessageDigest digest = FunctionHasher.sha256();
+            try {
+                Path location = Paths.get(CacheLookup.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+                List<Path> files;
+                if (Files.isDirectory(location)) {
+                    try (Stream<Path> walk = Files.walk(location)) {
+                        files = walk.filter(x -> x.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+                    }
+                } else {
+                    files = List.of(location);
+                }
+                byte[] buffer = new byte[1 << 16];
+                for (Path file : files) {
+                    FunctionHasher.put(digest, location.relativize(file).toString());
+                    try (InputStream in = Files.newInputStream(file)) {
+                        int n;
+                        while ((n = in.read(buffer)) > 0) {
+                            digest.update(buffer, 0, n);
+                        }
+                    }
+                }
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                throw new RuntimeException("cannot fingerprint the compiler for the cache", e);
+            }
+            build = hex(digest.digest());
+        }
+        return build;
+    }
+
+    private String key(String name) {
+        MessageDigest digest = FunctionHasher.sha256();
+        FunctionHasher.put(digest, build());
+        FunctionHasher.put(digest, String.join(",", pipeline));
+        FunctionHasher.put(digest, name);
+        List<String> reached = new ArrayList<>(reach(List.of(name)));
+        reached.sort(Comparator.comparingInt(x -> functionMap.get(x).index));
+        for (String callee : reached) {
+            Function function = functionMap.get(callee);
+            FunctionHasher.put(digest, callee);
+            digest.update(function.digest);
+            FunctionHasher.put(digest, function.uses);
+        }
+        return hex(digest.digest());
+    }
+
+    @Override
+    public void visit(Program node) {
+        node.getSections().stream().filter(x -> x instanceof ClassDecl)
+                .forEach(x -> layoutMap.put(((ClassDecl) x).getName(), layout((ClassDecl) x)));
+        node.getSections().stream().filter(x -> x instanceof VarDecl).forEach(x -> x.accept(this));
+        node.getSections().stream().filter(x -> !(x instanceof VarDecl)).forEach(x -> x.accept(this));
+
+        Map<String, String> keyMap = new LinkedHashMap<>();
+        Map<String, CachedFunction> foundMap = new LinkedHashMap<>();
+        for (String name : functionMap.keySet()) {
+            String key = key(name);
+            keyMap.put(name, key);
+            CachedFunction cached = cache.load(key);
+            if (cached != null) {
+                foundMap.put(name, cached);
+            }
+        }
+        List<String> compiled = new ArrayList<>(functionMap.keySet());
+        compiled.removeAll(foundMap.keySet());
+        Set<String> inlined = pipeline.contains("inline") ? reach(compiled) : Set.of();  // their IR is needed
+        for (String name : functionMap.keySet()) {
+            if (foundMap.containsKey(name)) {
+                irProgram.putCachedFunction(name, foundMap.get(name));
+                if (inlined.contains(name)) {
+                    irProgram.putInlinedCached(name);
+                }
+                cache.hit();
+            } else {
+                irProgram.putCacheKey(name, keyMap.get(name));
+                cache.miss();
+            }
+        }
+    }
+
+    @Override
+    public void visit(ClassDecl node) {
+        className = node.getName();
+        node.getItems().forEach(x -> x.accept(this));
+        className = null;
+    }
+
+    @Override
+    public void visit(FuncDecl node) {
+        String name = node.getFuncSymbol().getProcessedName();
+        add(name, node, name.equals("_main") ? globalList : List.of());    // globals are initialized in _main
+    }
+
+    @Override
+    public void visit(VarDecl node) {
+        globalList.add(node);
+    }
+
+    @Override
+    public void visit(ClassVarDecl node) {
+
+    }
+
+    @Override
+    public void visit(ClassCstrDecl node) {
+        add(node.getCstrSymbol().getProcessedName(), node, List.of());
+    }
+
+    @Override
+    public void visit(ClassFuncDecl node) {
+        node.getDecl().accept(this);
+    }
+
+    @Override
+    public void visit(BlockStmt node) {
+
+    }
+
+    @Override
+    public void visit(VarDeclStmt node) {
+
+    }
+
+    @Override
+    public void visit(BranchStmt node) {
+
+    }
+
+    @Override
+    public void visit(ExprStmt node) {
+
+    }
+
+    @Override
+    public void visit(EmptyStmt node) {
+
+    }
+
+    @Override
+    public void visit(ReturnStmt node) {
+
+    }
+
+    @Override
+    public void visit(BreakStmt node) {
+
+    }
+
+    @Override
+    public void visit(ContinueStmt node) {
+
+    }
+
+    @Override
+    public void visit(ForStmt node) {
+
+    }
+
+    @Override
+    public void visit(WhileStmt node) {
+
+    }
+
+    @Override
+    public void visit(ClassType node) {
+
+    }
+
+    @Override
+    public void visit(FunctionCall node) {
+
+    }
+
+    @Override
+    public void visit(ArrayAcess node) {
+
+    }
+
+    @Override
+    public void visit(MemberAcess node) {
+
+    }
+
+    @Override
+    public void visit(NewExpr node) {
+
+    }
+
+    @Override
+    public void visit(UnaryExpr node) {
+
+    }
+
+    @Override
+    public void visit(BinaryExpr node) {
+
+    }
+
+    @Override
+    public void visit(Identifier node) {
+
+    }
+
+    @Override
+    public void visit(NewArray node) {
+
+    }
+
+    @Override
+    public void visit(NewNonArray node) {
+
+    }
+
+    @Override
+    public void visit(BoolConst node) {
+
+    }
+
+    @Override
+    public void visit(NumConst node) {
+
+    }
+
+    @Override
+    public void visit(StrConst node) {
+
+    }
+
+    @Override
+    public void visit(NullConst node) {
+
+    }
+}
@@ -0,0 +1,209 @@
+package Compiler2018.Cache;
+
+import Compiler2018.IR.IRStructure.IRFunction;
+import Compiler2018.IR.IRStructure.IRProgram;
+import Compiler2018.IR.IRStructure.StaticData;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// The assembly of one function with its block and label ids cut out, so it fits a program that numbers them
+// differently. A block is kept as a run of ids its function was given plus an offset into the run,
+// a label as the global variable or string constant it stands for.
+public class CachedFunction {
+    // a block is <name>.<vId>, a label __Label<id>
+    private static final Pattern idPattern = Pattern.compile("(?<![\\w.])(__Label|[A-Za-z_][\\w.]*\\.)(\\d+)(?![\\w.])");
+
+    private final int[] rangeLengths;           // of the runs of block ids, the body is the last one
+    private final List<String> staticStrings;   // asked for by the body, in this order
+    private final List<String> labels;          // 'g' and a global variable or 's' and a string constant
+    private final List<String> texts;           // the assembly around the ids, one more than there are ids
+    private final int[] idRanges;               // the run of a block id, -1 for a label
+    private final int[] idValues;               // the offset into the run, or the index in labels
+
+    private CachedFunction(int[] rangeLengths, List<String> staticStrings, List<String> labels,
+                           List<String> texts, int[] idRanges, int[] idValues) {
+        this.rangeLengths = rangeLengths;
+        this.staticStrings = staticStrings;
+        this.labels = labels;
+        this.texts = texts;
+        this.idRanges = idRanges;
+        this.idValues = idValues;
+    }
+
+    public int getBodyBlockCount() {
+        return rangeLengths[rangeLengths.length - 1];
+    }
+
+    public List<String> getStaticStrings() {
+        return staticStrings;
+    }
+
+    public int getSize() {
+        int size = 0;
+        for (String text : texts) {
+            size += text.length();
+        }
+        return size;
+    }
+
+    // null when the text names a block of another function, as code inlined with its jumps would
+    public static CachedFunction of(IRFunction irFunction, String asm) {
+        List<Integer> ranges = irFunction.getBlockIdRanges();
+        int[] rangeLengths = new int[ranges.size() / 2];
+        for (int i = 0; i < rangeLengths.length; ++i) {
+            rangeLengths[i] = ranges.get(2 * i + 1);
+        }
+
+        Map<Integer, String> labelMap = null;
+        Map<String, Integer> labelIndex = new LinkedHashMap<>();
+        List<String> texts = new ArrayList<>();
+        List<Integer> idRanges = new ArrayList<>();
+        List<Integer> idValues = new ArrayList<>();
+        Matcher matcher = idPattern.matcher(asm);
+        int last = 0;
+        while (matcher.find()) {
+            int id = Integer.parseInt(matcher.group(2));
+            if (matcher.group(1).equals("__Label")) {
+                if (labelMap == null) {
+                    labelMap = labelMap(irFunction.getIrProgram());
+                }
+                String label = labelMap.get(id);
+                if (label == null) {
+                    return null;
+                }
+                idRanges.add(-1);
+                idValues.add(labelIndex.computeIfAbsent(label, x -> labelIndex.size()));
+            } else {
+                int range = 0;
+                while (range < rangeLengths.length
+                        && (id < ranges.get(2 * range) || id >= ranges.get(2 * range) + rangeLengths[range])) {
+                    ++range;
+                }
+                if (range == rangeLengths.length) {
+                    return null;
+                }
+                idRanges.add(range);
+                idValues.add(id - ranges.get(2 * range));
+            }
+            texts.add(asm.substring(last, matcher.start(2)));
+            last = matcher.end(2);
+        }
+        texts.add(asm.substring(last));
+
+        return new CachedFunction(rangeLengths, new ArrayList<>(irFunction.getStaticStrings()),
+                new ArrayList<>(labelIndex.keySet()), texts,
+                idRanges.stream().mapToInt(x -> x).toArray(), idValues.stream().mapToInt(x -> x).toArray());
+    }
+
+    private static Map<Integer, String> labelMap(IRProgram irProgram) {
+        Map<Integer, String> labelMap = new HashMap<>();
+        irProgram.getGlobalVarMap().forEach((x, y) -> labelMap.put(y.getLabel().getId(), "g" + x));
+        irProgram.getStaticStringMap().forEach((x, y) -> labelMap.put(y.getLabel().getId(), "s" + x));
+        return labelMap;
+    }
+
+    // the text with the ids irFunction was given in this program
+    public String resolve(IRFunction irFunction) {
+        List<Integer> ranges = irFunction.getBlockIdRanges();
+        if (ranges.size() != 2 * rangeLengths.length) {
+            throw new RuntimeException("cached " + irFunction.getProcessedName() + " does not fit its function");
+        }
+        for (int i = 0; i < rangeLengths.length; ++i) {
+            if (ranges.get(2 * i + 1) != rangeLengths[i]) {
+                throw new RuntimeException("cached " + irFunction.getProcessedName() + " does not fit its function");
+            }
+        }
+
+        IRProgram irProgram = irFunction.getIrProgram();
+        int[] labelIds = new int[labels.size()];
+        for (int i = 0; i < labelIds.length; ++i) {
+            String label = labels.get(i);
+            StaticData data = label.charAt(0) == 'g'
+                    ? irProgram.getGlobalVar(label.substring(1)) : irProgram.getStaticString(label.substring(1));
+            if (data == null) {
+                throw new RuntimeException("cached " + irFunction.getProcessedName() + " uses a missing label");
+            }
+            labelIds[i] = data.getLabel().getId();
+        }
+
+        StringBuilder builder = new StringBuilder(getSize() + 8 * idRanges.length);
+        for (int i = 0; i < idRanges.length; ++i) {
+            builder.append(texts.get(i));
+            builder.append(idRanges[i] < 0 ? labelIds[idValues[i]] : ranges.get(2 * idRanges[i]) + idValues[i]);
+        }
+        builder.append(texts.get(idRanges.length));
+        return builder.toString();
+    }
+
+    // strings may be longer than writeUTF allows
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            writeString(out, string);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] ints) throws IOException {
+        out.writeInt(ints.length);
+        for (int x : ints) {
+            out.writeInt(x);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] ints = new int[in.readInt()];
+        for (int i = 0; i < ints.length; ++i) {
+            ints[i] = in.readInt();
+        }
+        return ints;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        writeInts(out, rangeLengths);
+        writeStrings(out, staticStrings);
+        writeStrings(out, labels);
+        writeStrings(out, texts);
+        writeInts(out, idRanges);
+        writeInts(out, idValues);
+    }
+
+    public static CachedFunction read(DataInputStream in) throws IOException {
+        int[] rangeLengths = readInts(in);
+        List<String> staticStrings = readStrings(in);
+        List<String> labels = readStrings(in);
+        List<String> texts = readStrings(in);
+        int[] idRanges = readInts(in);
+        int[] idValues = readInts(in);
+        if (rangeLengths.length == 0 || texts.size() != idRanges.length + 1 || idValues.length != idRanges.length) {
+            throw new IOException("malformed cache entry");
+        }
+        return new CachedFunction(rangeLengths, staticStrings, labels, texts, idRanges, idValues);
+    }
+}
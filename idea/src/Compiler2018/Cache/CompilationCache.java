@@ -0,0 +1,197 @@
+package Compiler2018.Cache;
+
+import Compiler2018.IR.IRStructure.IRFunction;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Assembly of single functions kept on disk between compilations, looked up by CacheLookup.
+// One file per key. An entry is written to a temporary file and moved in place, so compilers sharing the
+// directory only ever read whole entries. A hit refreshes the time of its file; eviction drops the entries
+// older than maxAgeMillis, then the least recently used ones until the directory holds at most maxBytes.
+// Shared by every program of a batch or a server, so it is safe to use from several threads.
+public class CompilationCache {
+    private static final int magic = 0x4d784331;    // "MxC1", changed with the entry format
+    private static final String suffix = ".fn";
+
+    private final Path dir;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong stores = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong written = new AtomicLong(0);   // bytes stored since the last eviction
+
+    public CompilationCache(Path dir, long maxBytes, long maxAgeMillis) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        Files.createDirectories(dir);
+    }
+
+    private Path file(String key) {
+        return dir.resolve(key + suffix);
+    }
+
+    // null when there is no entry, or none that can be read
+    public CachedFunction load(String key) {
+        Path file = file(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != magic || !in.readUTF().equals(key)) {
+                return null;
+            }
+            CachedFunction cached = CachedFunction.read(in);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return cached;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            delete(file);   // cut short by a crash or a full disk
+            return null;
+        }
+    }
+
+    // keeps the assembly of a function CacheLookup gave a key to
+    public void store(IRFunction irFunction, String asm) {
+        String key = irFunction.getIrProgram().getCacheKey(irFunction.getProcessedName());
+        if (key == null) {
+            return;
+        }
+        CachedFunction cached = CachedFunction.of(irFunction, asm);
+        if (cached == null) {
+            return;
+        }
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(dir, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(magic);
+                out.writeUTF(key);
+                cached.write(out);
+            }
+            long size = Files.size(temp);
+            Files.move(temp, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            stores.incrementAndGet();
+            if (written.addAndGet(size) > maxBytes / 4) {
+                evict();
+            }
+        } catch (IOException e) {
+            if (temp != null) {
+                delete(temp);
+            }
+            System.err.println("cache: " + e);  // a cache that cannot be written only costs time
+        }
+    }
+
+    private boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static class Entry {
+        private final Path file;
+        private final long time;
+        private final long size;
+
+        private Entry(Path file, BasicFileAttributes attributes) {
+            this.file = file;
+            this.time = attributes.lastModifiedTime().toMillis();
+            this.size = attributes.size();
+        }
+    }
+
+    public synchronized void evict() {
+        written.set(0);
+        long now = System.currentTimeMillis();
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(suffix) && !name.endsWith(".tmp")) {
+                    continue;
+                }
+                Entry entry;
+                try {
+                    entry = new Entry(file, Files.readAttributes(file, BasicFileAttributes.class));
+                } catch (IOException e) {
+                    continue;   // gone already
+                }
+                if (name.endsWith(".tmp")) {
+                    if (now - entry.time > 3600 * 1000 && delete(file)) {
+                        continue;   // left behind by a compiler that died
+                    }
+                } else if (now - entry.time > maxAgeMillis) {
+                    if (delete(file)) {
+                        evictions.incrementAndGet();
+                    }
+                } else {
+                    entries.add(entry);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("cache: " + e);
+            return;
+        }
+
+        long total = entries.stream().mapToLong(x -> x.size).sum();
+        entries.sort(Comparator.comparingLong(x -> x.time));
+        for (Entry entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (delete(entry.file)) {
+                evictions.incrementAndGet();
+            }
+            total -= entry.size;
+        }
+    }
+
+    void hit() {
+        hits.incrementAndGet();
+    }
+
+    void miss() {
+        misses.incrementAndGet();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getStores() {
+        return stores.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    // of the functions looked up, the share taken from the cache
+    public double getHitRate() {
+        long hits = getHits(), total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "cache: %d hits, %d misses (%.1f%% hit rate), %d stored, %d evicted\n",
+                getHits(), getMisses(), 100 * getHitRate(), getStores(), getEvictions());
+    }
+}
@@ -0,0 +1,315 @@
+package Compiler2018.Cache;
+
+import Compiler2018.AST.*;
+import Compiler2018.FrontEnd.IASTVistor;
+import Compiler2018.Symbol.BlockTable;
+import Compiler2018.Symbol.ClassTable;
+import Compiler2018.Symbol.TopTable;
+import Compiler2018.Symbol.VarSymbol;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+// Fingerprint of the checked AST of one function, everything the IR builder reads goes in.
+// Positions are left out and locals are numbered in the order they are met, so moving a function
+// or renaming its locals keeps the fingerprint. What it uses from TopTable is collected on the side.
+public class FunctionHasher implements IASTVistor {
+    private final MessageDigest digest;
+    private final Map<VarSymbol, Integer> localMap = new HashMap<>();
+    private final Set<String> callees = new LinkedHashSet<>();      // processed names, builtins too
+    private final Set<String> classes = new LinkedHashSet<>();      // base types met
+    private final Map<String, ClassType> globals = new LinkedHashMap<>();
+
+    public FunctionHasher() {
+        digest = sha256();
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // length first, so no two sequences of strings give the same bytes
+    static void put(MessageDigest digest, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private void put(Object object) {
+        put(digest, String.valueOf(object));
+    }
+
+    private void accept(AbstractASTNode node) {
+        if (node == null) {
+            put("-");
+        } else {
+            node.accept(this);
+        }
+    }
+
+    private void local(VarSymbol varSymbol) {
+        put(localMap.computeIfAbsent(varSymbol, x -> localMap.size()));
+    }
+
+    private void expr(AbstractExpr node) {
+        put(node.getClass().getSimpleName());
+        if (node.getType() != null) {
+            classes.add(node.getType().getBaseType());
+            put(node.getType().getBaseType());
+            put(node.getType().getDim());
+        }
+        put(node.getLValue());
+        put(node.isFolded());
+        put(node.getAns());
+        put(node.getFunc() == null ? null : node.getFunc().getProcessedName());
+    }
+
+    public byte[] getDigest() {
+        return digest.digest();
+    }
+
+    public Set<String> getCallees() {
+        return callees;
+    }
+
+    public Set<String> getClasses() {
+        return classes;
+    }
+
+    public Map<String, ClassType> getGlobals() {
+        return globals;
+    }
+
+    @Override
+    public void visit(Program node) {
+        throw new RuntimeException("FunctionHasher takes one function at a time");
+    }
+
+    @Override
+    public void visit(ClassDecl node) {
+        throw new RuntimeException("FunctionHasher takes one function at a time");
+    }
+
+    @Override
+    public void visit(FuncDecl node) {
+        put("FuncDecl");
+        put(node.getFuncSymbol().getProcessedName());
+        accept(node.getReturnType());
+        node.getParameters().forEach(x -> accept(x.getType()));
+        node.getFuncSymbol().getIntParameters().values().forEach(this::local);
+        accept(node.getBlock());
+    }
+
+    @Override
+    public void visit(VarDecl node) {
+        put("VarDecl");
+        accept(node.getType());
+        if (node.getVarSymbol() == null || node.getVarSymbol().getBelongTable() instanceof TopTable) {
+            put("@" + node.getName());  // a global, initialized in _main
+        } else {
+            local(node.getVarSymbol());
+        }
+        accept(node.getInit());
+    }
+
+    @Override
+    public void visit(ClassVarDecl node) {
+        node.getDecl().accept(this);
+    }
+
+    @Override
+    public void visit(ClassCstrDecl node) {
+        put("ClassCstrDecl");
+        put(node.getCstrSymbol().getProcessedName());
+        node.getParameters().forEach(x -> accept(x.getType()));
+        node.getCstrSymbol().getIntParameters().values().forEach(this::local);
+        accept(node.getBlock());
+    }
+
+    @Override
+    public void visit(ClassFuncDecl node) {
+        node.getDecl().accept(this);
+    }
+
+    @Override
+    public void visit(BlockStmt node) {
+        put("BlockStmt");
+        put(node.getStmts().size());
+        node.getStmts().forEach(this::accept);
+    }
+
+    @Override
+    public void visit(VarDeclStmt node) {
+        node.getDecl().accept(this);
+    }
+
+    @Override
+    public void visit(BranchStmt node) {
+        put("BranchStmt");
+        accept(node.getCond());
+        accept(node.getIfStmt());
+        accept(node.getElseStmt());
+    }
+
+    @Override
+    public void visit(ExprStmt node) {
+        put("ExprStmt");
+        accept(node.getExpr());
+    }
+
+    @Override
+    public void visit(EmptyStmt node) {
+        put("EmptyStmt");
+    }
+
+    @Override
+    public void visit(ReturnStmt node) {
+        put("ReturnStmt");
+        accept(node.getExpr());
+        accept(node.getClassType());
+    }
+
+    @Override
+    public void visit(BreakStmt node) {
+        put("BreakStmt");
+    }
+
+    @Override
+    public void visit(ContinueStmt node) {
+        put("ContinueStmt");
+    }
+
+    @Override
+    public void visit(ForStmt node) {
+        put("ForStmt");
+        accept(node.getInit());
+        accept(node.getCond());
+        accept(node.getStep());
+        accept(node.getStmt());
+    }
+
+    @Override
+    public void visit(WhileStmt node) {
+        put("WhileStmt");
+        accept(node.getCond());
+        accept(node.getStmt());
+    }
+
+    @Override
+    public void visit(ClassType node) {
+        classes.add(node.getBaseType());
+        put(node.getBaseType());
+        put(node.getDim());
+    }
+
+    @Override
+    public void visit(FunctionCall node) {
+        expr(node);
+        callees.add(node.getProcessedName());
+        put(node.getProcessedName());
+        accept(node.getName());
+        put(node.getParameters().size());
+        node.getParameters().forEach(this::accept);
+    }
+
+    @Override
+    public void visit(ArrayAcess node) {
+        expr(node);
+        accept(node.getArray());
+        accept(node.getSubscript());
+    }
+
+    @Override
+    public void visit(MemberAcess node) {
+        expr(node);
+        put(node.getName());
+        accept(node.getExpr());
+    }
+
+    @Override
+    public void visit(NewExpr node) {
+        expr(node);
+        accept(node.getNewObject());
+    }
+
+    @Override
+    public void visit(UnaryExpr node) {
+        ExprWalker.walk(node, this, this::operator, null);
+    }
+
+    @Override
+    public void visit(BinaryExpr node) {
+        ExprWalker.walk(node, this, this::operator, null);
+    }
+
+    // before its operands
+    private void operator(AbstractExpr node) {
+        expr(node);
+        put(node instanceof BinaryExpr ? ((BinaryExpr) node).getOp() : ((UnaryExpr) node).getOp());
+    }
+
+    @Override
+    public void visit(Identifier node) {
+        expr(node);
+        VarSymbol varSymbol = node.getVarSymbol();
+        if (varSymbol == null) {
+            put(node.getName());    // a function
+        } else if (varSymbol.getBelongTable() instanceof BlockTable) {
+            local(varSymbol);
+        } else if (varSymbol.getBelongTable() instanceof ClassTable) {
+            put("." + node.getName());
+        } else {
+            globals.put(node.getName(), varSymbol.getType());
+            put("@" + node.getName());
+        }
+    }
+
+    @Override
+    public void visit(NewArray node) {
+        put("NewArray");
+        accept(node.getType());
+        put(node.getLens().size());
+        node.getLens().forEach(this::accept);
+    }
+
+    @Override
+    public void visit(NewNonArray node) {
+        put("NewNonArray");
+        accept(node.getType());
+        callees.add("_N" + node.getType().getBaseType() + node.getType().getBaseType());  // the constructor
+        put(node.getParameters().size());
+        node.getParameters().forEach(this::accept);
+    }
+
+    @Override
+    public void visit(BoolConst node) {
+        expr(node);
+        put(node.getValue());
+    }
+
+    @Override
+    public void visit(NumConst node) {
+        expr(node);
+        put(node.getNum());
+    }
+
+    @Override
+    public void visit(StrConst node) {
+        expr(node);
+        put(node.getStr());
+    }
+
+    @Override
+    public void visit(NullConst node) {
+        expr(node);
+    }
+}
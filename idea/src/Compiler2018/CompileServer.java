@@ -0,0 +1,141 @@
+package Compiler2018;
+
+import Compiler2018.BackEnd.CostBudget;
+import Compiler2018.Cache.CompilationCache;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Keeps one JVM resident, so the ANTLR runtime, the ATN and the JIT stay warm between programs.
+// Both directions use length-prefixed frames:
+//   request  : <length>\n<source>
+//   response : OK <length>\n<asm>   or   ERROR <length>\n<message>
+// Programs are compiled one at a time, every one numbers its registers, blocks and labels from 0.
+// A header that is not a length up to maxLength gets an ERROR frame, and the connection is closed.
+public class CompileServer {
+    private static final int maxLength = 1 << 26;   // bytes of one source
+    private static final int maxHeader = 16;        // characters of a header line, more than maxLength needs
+
+    private final PassManager.Level level;
+    private final boolean parallel;
+    private final CompilationCache cache;   // may be null
+    private final long functionCost;        // for a CostBudget per program, its time budget starts with the program
+    private final long timeBudget;
+
+    public CompileServer(PassManager.Level level, boolean parallel, CompilationCache cache,
+                         long functionCost, long timeBudget) {
+        this.level = level;
+        this.parallel = parallel;
+        this.cache = cache;
+        this.functionCost = functionCost;
+        this.timeBudget = timeBudget;
+    }
+
+    private String readLine(InputStream in) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1) {
+                if (builder.length() == 0) {
+                    return null;
+                }
+                throw new EOFException("truncated frame header");
+            }
+            builder.append((char) c);
+            if (builder.length() > maxHeader) {
+                break;  // rejected by length()
+            }
+        }
+        return builder.toString();
+    }
+
+    private byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(bytes, read, length - read);
+            if (n == -1) {
+                throw new EOFException("truncated frame");
+            }
+            read += n;
+        }
+        return bytes;
+    }
+
+    // the length a header announces, -1 for anything else
+    private static int length(String header) {
+        String digits = header.trim();
+        if (digits.isEmpty() || digits.length() > 9 || !digits.chars().allMatch(x -> x >= '0' && x <= '9')) {
+            return -1;
+        }
+        int length = Integer.parseInt(digits);
+        return length > maxLength ? -1 : length;
+    }
+
+    private void writeFrame(OutputStream out, String status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.write((status + " " + bytes.length + "\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+
+    private void handle(String source, OutputStream out) throws IOException {
+        String asm;
+        try {
+            StringWriter writer = new StringWriter();
+            WantonWind.compile(source, level, parallel, null, null, cache, new CostBudget(functionCost, timeBudget), writer);
+            asm = writer + "\n";  // as println in WantonWind.run
+        } catch (Exception | StackOverflowError e) {
+            StringWriter trace = new StringWriter();
+            e.printStackTrace(new PrintWriter(trace));
+            writeFrame(out, "ERROR", trace.toString());
+            return;
+        }
+        writeFrame(out, "OK", asm);
+    }
+
+    // serves frames until the input is closed or a header is bad
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        String header;
+        while ((header = readLine(in)) != null) {
+            int length = length(header);
+            if (length < 0) {
+                writeFrame(out, "ERROR", "bad frame header, expected a length of at most " + maxLength + "\n");
+                return;     // the rest of the input cannot be split into frames
+            }
+            handle(WantonWind.normalize(new String(readFully(in, length), StandardCharsets.UTF_8)), out);
+        }
+    }
+
+    // serves connections on a unix domain socket, gives up after idleMillis without a client (0 for never)
+    public void serve(Path socket, long idleMillis) throws IOException {
+        Files.deleteIfExists(socket);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+             Selector selector = Selector.open()) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            while (selector.select(idleMillis) > 0) {
+                selector.selectedKeys().clear();
+                SocketChannel client = server.accept();
+                if (client == null) {
+                    continue;
+                }
+                try (SocketChannel channel = client) {
+                    channel.configureBlocking(true);
+                    serve(new BufferedInputStream(Channels.newInputStream(channel)),
+                            new BufferedOutputStream(Channels.newOutputStream(channel)));
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace(System.err);  // one broken client should not stop the server
+                }
+            }
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package Compiler2018;
+
+import Compiler2018.Stats.FunctionStats;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// What happened while compiling one program, printed to stderr with --stats
+// or written as JSON with counts for every function with --stats=json.
+public class CompileStats {
+    public enum ParseStage {
+        PRATT,  // PrattParser took it
+        SLL,    // PrattParser left it to ANTLR, the fast pass with BailErrorStrategy was enough
+        LL      // SLL gave up, the program was parsed again with full LL
+    }
+
+    private ParseStage parseStage = null;
+    private final Path json;    // where the JSON report goes, null for the text on stderr
+    private final Map<String, FunctionStats> functionMap = new LinkedHashMap<>();  // processed name
+
+    public CompileStats() {
+        this(null);
+    }
+
+    public CompileStats(Path json) {
+        this.json = json;
+    }
+
+    public ParseStage getParseStage() {
+        return parseStage;
+    }
+
+    public void setParseStage(ParseStage parseStage) {
+        this.parseStage = parseStage;
+    }
+
+    public Path getJson() {
+        return json;
+    }
+
+    // only called from the thread running the passes, a function is filled in by one thread at a time
+    public FunctionStats function(String name) {
+        return functionMap.computeIfAbsent(name, FunctionStats::new);
+    }
+
+    public String toJson() {
+        StringJoiner functions = new StringJoiner(",\n    ", "[\n    ", "\n  ]");
+        functions.setEmptyValue("[]");
+        functionMap.values().forEach(x -> functions.add(x.toJson()));
+        return "{\n  \"parseStage\": " + (parseStage == null ? "null" : FunctionStats.quote(parseStage.name()))
+                + ",\n  \"functions\": " + functions + "\n}\n";
+    }
+
+    public void writeJson() throws IOException {
+        Files.write(json, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return "parse stage: " + parseStage + "\n";
+    }
+}
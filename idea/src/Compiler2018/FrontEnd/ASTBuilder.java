@@ -10,6 +10,7 @@ import org.antlr.v4.runtime.tree.TerminalNode;
 
 public class ASTBuilder implements MListener {
     private ParseTreeProperty<Object> map = new ParseTreeProperty<>();
+    private final TypeTable typeTable = new TypeTable();
     private Program program = null;
 
     public Program getProgram() {
@@ -22,7 +23,7 @@ public class ASTBuilder implements MListener {
 
     @Override
     public void exitProgram(MParser.ProgramContext ctx) {
-        Program.Builder builder = new Program.Builder();
+        Program.Builder builder = new Program.Builder(typeTable);
         ctx.programSection().stream().map(map::get).map(AbstractDecl.class::cast).forEachOrdered(builder::addSection);
         map.put(ctx, builder.build());
         if (program == null) {
@@ -82,8 +83,8 @@ public class ASTBuilder implements MListener {
             ctx.functionParameters().variableDeclaration().stream().map(map::get).map(VarDecl.class::cast).forEachOrdered(builder::addParameter);
         }
         builder.setBlock((BlockStmt) map.get(ctx.blockStatement()));
-        builder.setPosName(new SourcePosition(ctx.Identifier()));
-        builder.setPosType(new SourcePosition(ctx.classType()));
+        builder.setPosName(SourcePosition.of(ctx.Identifier()));
+        builder.setPosType(SourcePosition.of(ctx.classType()));
         map.put(ctx, builder.build());
     }
 
@@ -97,9 +98,9 @@ public class ASTBuilder implements MListener {
         String name = ctx.Identifier().getText();
         AbstractExpr init = (AbstractExpr) map.get(ctx.expression());
         map.put(ctx, new VarDecl(type, name, init,
-                        new SourcePosition(ctx.classType()),
-                        new SourcePosition(ctx.Identifier()),
-                        init == null ? null : new SourcePosition(ctx.expression())));
+                        SourcePosition.of(ctx.classType()),
+                        SourcePosition.of(ctx.Identifier()),
+                        init == null ? SourcePosition.none : SourcePosition.of(ctx.expression())));
     }
 
     @Override
@@ -211,7 +212,7 @@ public class ASTBuilder implements MListener {
 
     @Override
     public void exitExprStmt(MParser.ExprStmtContext ctx) {
-        map.put(ctx, new ExprStmt((AbstractExpr) map.get(ctx.expression()), new SourcePosition(ctx.expression())));
+        map.put(ctx, new ExprStmt((AbstractExpr) map.get(ctx.expression()), SourcePosition.of(ctx.expression())));
     }
 
     @Override
@@ -243,7 +244,7 @@ public class ASTBuilder implements MListener {
         AbstractExpr cond = (AbstractExpr) map.get(ctx.expression());
         AbstractStmt ifStmt = (AbstractStmt) map.get(ctx.statement(0));
         AbstractStmt elseStmt = (AbstractStmt) map.get(ctx.statement(1));
-        map.put(ctx, new BranchStmt(cond, ifStmt, elseStmt, new SourcePosition(ctx.start)));
+        map.put(ctx, new BranchStmt(cond, ifStmt, elseStmt, SourcePosition.of(ctx.start)));
     }
 
     @Override
@@ -257,9 +258,9 @@ public class ASTBuilder implements MListener {
         AbstractExpr step = (AbstractExpr) map.get(ctx.step);
         AbstractStmt stmt = (AbstractStmt) map.get(ctx.statement());
         map.put(ctx, new ForStmt(init, cond, step, stmt,
-                        init == null ? null : new SourcePosition(ctx.init),
-                        cond == null ? null : new SourcePosition(ctx.cond),
-                        step == null ? null : new SourcePosition(ctx.step)));
+                        init == null ? SourcePosition.none : SourcePosition.of(ctx.init),
+                        cond == null ? SourcePosition.none : SourcePosition.of(ctx.cond),
+                        step == null ? SourcePosition.none : SourcePosition.of(ctx.step)));
     }
 
     @Override
@@ -271,7 +272,7 @@ public class ASTBuilder implements MListener {
         map.put(ctx, new WhileStmt(
                         (AbstractExpr) map.get(ctx.expression()),
                         (AbstractStmt) map.get(ctx.statement()),
-                        new SourcePosition(ctx.expression())));
+                        SourcePosition.of(ctx.expression())));
     }
 
     @Override
@@ -280,7 +281,7 @@ public class ASTBuilder implements MListener {
 
     @Override
     public void exitReturnStmt(MParser.ReturnStmtContext ctx) {
-        map.put(ctx, new ReturnStmt((AbstractExpr) map.get(ctx.expression()), new SourcePosition(ctx.start)));
+        map.put(ctx, new ReturnStmt((AbstractExpr) map.get(ctx.expression()), SourcePosition.of(ctx.start)));
     }
 
     @Override
@@ -289,7 +290,7 @@ public class ASTBuilder implements MListener {
 
     @Override
     public void exitBreakStmt(MParser.BreakStmtContext ctx) {
-        map.put(ctx, new BreakStmt(new SourcePosition(ctx.start)));
+        map.put(ctx, new BreakStmt(SourcePosition.of(ctx.start)));
     }
 
     @Override
@@ -298,7 +299,7 @@ public class ASTBuilder implements MListener {
 
     @Override
     public void exitContinueStmt(MParser.ContinueStmtContext ctx) {
-        map.put(ctx, new ContinueStmt(new SourcePosition(ctx.start)));
+        map.put(ctx, new ContinueStmt(SourcePosition.of(ctx.start)));
     }
 
     @Override
@@ -339,9 +340,8 @@ public class ASTBuilder implements MListener {
 
     @Override
     public void exitArrayClass(MParser.ArrayClassContext ctx) {
-        String baseType = ((ClassType) map.get(ctx.nonArrayClass())).getBaseType();
-        Integer dim = ctx.brackets().size();
-        map.put(ctx, new ClassType(baseType, dim));
+        ClassType type = (ClassType) map.get(ctx.nonArrayClass());
+        map.put(ctx, type.withDim(ctx.brackets().size()));
     }
 
     //    nonArrayClass
@@ -358,7 +358,7 @@ public class ASTBuilder implements MListener {
     @Override
     public void exitNonArrayClass(MParser.NonArrayClassContext ctx) {
         String baseType = ctx.type.getText();
-        map.put(ctx, new ClassType(baseType, 0));
+        map.put(ctx, typeTable.get(baseType, 0));
     }
 
     //    expression
@@ -407,8 +407,8 @@ public class ASTBuilder implements MListener {
         map.put(ctx, new MemberAcess(
                         (AbstractExpr) map.get(ctx.expression()),
                         ctx.Identifier().getText(),
-                        new SourcePosition(ctx.expression()),
-                        new SourcePosition(ctx.Identifier())));
+                        SourcePosition.of(ctx.expression()),
+                        SourcePosition.of(ctx.Identifier())));
     }
 
     @Override
@@ -420,8 +420,8 @@ public class ASTBuilder implements MListener {
         map.put(ctx, new ArrayAcess(
                         (AbstractExpr) map.get(ctx.expression(0)),
                         (AbstractExpr) map.get(ctx.expression(1)),
-                        new SourcePosition(ctx.expression(0)),
-                        new SourcePosition(ctx.expression(1))));
+                        SourcePosition.of(ctx.expression(0)),
+                        SourcePosition.of(ctx.expression(1))));
     }
 
     @Override
@@ -514,9 +514,9 @@ public class ASTBuilder implements MListener {
                         op,
                         (AbstractExpr) map.get(ctx.expression(0)),
                         (AbstractExpr) map.get(ctx.expression(1)),
-                        new SourcePosition(ctx.op),
-                        new SourcePosition(ctx.expression(0)),
-                        new SourcePosition(ctx.expression(1))));
+                        SourcePosition.of(ctx.op),
+                        SourcePosition.of(ctx.expression(0)),
+                        SourcePosition.of(ctx.expression(1))));
     }
 
     @Override
@@ -526,7 +526,7 @@ public class ASTBuilder implements MListener {
     @Override
     public void exitNewExpr(MParser.NewExprContext ctx) {
         map.put(ctx, new NewExpr(
-                        (AbstractNewObject) map.get(ctx.newObject()), new SourcePosition(ctx.newObject())));
+                        (AbstractNewObject) map.get(ctx.newObject()), SourcePosition.of(ctx.newObject())));
     }
 
     @Override
@@ -537,10 +537,10 @@ public class ASTBuilder implements MListener {
     public void exitFunctionCall(MParser.FunctionCallContext ctx) {
         FunctionCall.Builder builder = new FunctionCall.Builder();
         builder.setName((AbstractExpr) map.get(ctx.expression()));
-        builder.setPosName(new SourcePosition(ctx.expression()));
+        builder.setPosName(SourcePosition.of(ctx.expression()));
         if (ctx.callParameter() != null) {
             ctx.callParameter().expression().stream().map(map::get).map(AbstractExpr.class::cast).forEachOrdered(builder::addParameter);
-            ctx.callParameter().expression().forEach(x -> builder.addPosParameter(new SourcePosition(x)));
+            ctx.callParameter().expression().forEach(x -> builder.addPosParameter(SourcePosition.of(x)));
         }
         map.put(ctx, builder.build());
     }
@@ -565,7 +565,7 @@ public class ASTBuilder implements MListener {
         map.put(
                 ctx,
                 new UnaryExpr(
-                        op, (AbstractExpr) map.get(ctx.expression()), new SourcePosition(ctx.expression())));
+                        op, (AbstractExpr) map.get(ctx.expression()), SourcePosition.of(ctx.expression())));
     }
 
     @Override
@@ -600,7 +600,7 @@ public class ASTBuilder implements MListener {
         map.put(
                 ctx,
                 new UnaryExpr(
-                        op, (AbstractExpr) map.get(ctx.expression()), new SourcePosition(ctx.expression())));
+                        op, (AbstractExpr) map.get(ctx.expression()), SourcePosition.of(ctx.expression())));
     }
 
     @Override
@@ -633,8 +633,7 @@ public class ASTBuilder implements MListener {
     public void exitNewArray(MParser.NewArrayContext ctx) {
         NewArray.Builder builder = new NewArray.Builder();
         ClassType type = (ClassType) map.get(ctx.nonArrayClass());
-        ClassType newType =
-                new ClassType(type.getBaseType(), ctx.brackets().size() + ctx.expression().size());
+        ClassType newType = type.withDim(ctx.brackets().size() + ctx.expression().size());
         builder.setType(newType);
         ctx.expression().stream().map(map::get).map(AbstractExpr.class::cast).forEachOrdered(builder::addLens);
         map.put(ctx, builder.build());
@@ -10,6 +10,7 @@ import Compiler2018.IR.IRStructure.IRProgram;
 public class IRClassBuilder implements IASTVistor {
     private final IRProgram irProgram;
     private IRClass irClass = null;
+    private TypeTable typeTable;
 
     public IRClassBuilder(IRProgram irProgram) {
         this.irProgram = irProgram;
@@ -17,6 +18,7 @@ public class IRClassBuilder implements IASTVistor {
 
     @Override
     public void visit(Program node) {
+        typeTable = node.getTypeTable();
         node.getSections().stream().filter(x -> x instanceof ClassDecl).forEach(x -> x.accept(this));
     }
 
@@ -25,6 +27,7 @@ public class IRClassBuilder implements IASTVistor {
         irClass = new IRClass();
         node.getItems().forEach(x -> x.accept(this));
         irProgram.putIRClass(node.getName(), irClass);
+        typeTable.get(node.getName(), 0).getClassSymbol().setIRClass(irClass);
         irClass = null;
     }
 
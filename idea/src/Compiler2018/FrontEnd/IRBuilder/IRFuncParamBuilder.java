@@ -30,13 +30,13 @@ public class IRFuncParamBuilder implements IASTVistor {
     @Override
     public void visit(FuncDecl node) {
         FuncSymbol funcSymbol = node.getFuncSymbol();
-        IRFunction irFunction = new IRFunction(funcSymbol.getProcessedName(), className);
+        IRFunction irFunction = new IRFunction(irProgram, funcSymbol.getProcessedName(), className);
         if (className != null) {
             irFunction.addStackOffset(irFunction.getThisRegister());
             irFunction.addParameter(irFunction.getThisRegister());
         }
         // parameter register already added
-        node.getFuncSymbol().getParameterRegisterList().forEach(irFunction::addParameter);
+        node.getFuncSymbol().getParameterRegisterList(irProgram).forEach(irFunction::addParameter);
         irProgram.putIRFunction(funcSymbol.getProcessedName(), irFunction);
     }
 
@@ -55,7 +55,7 @@ public class IRFuncParamBuilder implements IASTVistor {
         irProgram.getIRClass(className).setCstr(true);
 
         CstrSymbol cstrSymbol = node.getCstrSymbol();
-        IRFunction irFunction = new IRFunction(cstrSymbol.getProcessedName(), className);
+        IRFunction irFunction = new IRFunction(irProgram, cstrSymbol.getProcessedName(), className);
         irFunction.addStackOffset(irFunction.getThisRegister());
         irFunction.addParameter(irFunction.getThisRegister());
         // ignoring all parameters FIXME
@@ -1,6 +1,7 @@
 package Compiler2018.FrontEnd.IRBuilder;
 
 import Compiler2018.AST.*;
+import Compiler2018.Cache.CachedFunction;
 import Compiler2018.FrontEnd.IASTVistor;
 import Compiler2018.IR.IRInstruction.*;
 import Compiler2018.IR.IRStructure.*;
@@ -10,8 +11,10 @@ import Compiler2018.IR.IRValue.Register;
 import Compiler2018.Symbol.ClassTable;
 import Compiler2018.Symbol.TopTable;
 
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
 
 public class IRInstructionBuilder implements IASTVistor {
@@ -21,24 +24,101 @@ public class IRInstructionBuilder implements IASTVistor {
     private IRFunction currentFunction;
     private BasicBlock currentBB;
     private Register thisRegister;  // for in class call
+    private ClassType stringType;
+    private ClassType voidType;
     private Stack<BasicBlock> loopStepBBStack = new Stack<>();
     private Stack<BasicBlock> loopAfterBBStack = new Stack<>();
+    private final Map<AbstractASTNode, ExprInfo> exprInfo = new IdentityHashMap<>();   // of the function being built
+
+    // what lowering an expression or new object leaves for the one using it, kept here rather than in the AST
+    private static class ExprInfo {
+        private Register register = null;
+        private boolean dataInMem = false;  // where the real data in
+        private BasicBlock ifTrue = null;   // short-cut
+        private BasicBlock ifFalse = null;
+    }
 
     public IRInstructionBuilder(IRProgram irProgram) {
         this.irProgram = irProgram;
     }
 
+    private static final ExprInfo noInfo = new ExprInfo();    // of an expression not lowered yet
+
+    private ExprInfo info(AbstractASTNode expr) {
+        return exprInfo.getOrDefault(expr, noInfo);
+    }
+
+    private ExprInfo newInfo(AbstractASTNode expr) {
+        return exprInfo.computeIfAbsent(expr, x -> new ExprInfo());
+    }
+
+    private Register getRegister(AbstractASTNode expr) {
+        return info(expr).register;
+    }
+
+    private void setRegister(AbstractASTNode expr, Register register) {
+        newInfo(expr).register = register;
+    }
+
+    private boolean isDataInMem(AbstractExpr expr) {
+        return info(expr).dataInMem;
+    }
+
+    private void setDataInMem(AbstractExpr expr, boolean dataInMem) {
+        newInfo(expr).dataInMem = dataInMem;
+    }
+
+    private BasicBlock getIfTrue(AbstractExpr expr) {
+        return info(expr).ifTrue;
+    }
+
+    private void setIfTrue(AbstractExpr expr, BasicBlock ifTrue) {
+        newInfo(expr).ifTrue = ifTrue;
+    }
+
+    private BasicBlock getIfFalse(AbstractExpr expr) {
+        return info(expr).ifFalse;
+    }
+
+    private void setIfFalse(AbstractExpr expr, BasicBlock ifFalse) {
+        newInfo(expr).ifFalse = ifFalse;
+    }
+
     @Override
     public void visit(Program node) {
+        stringType = node.getTypeTable().get("string", 0);
+        voidType = node.getTypeTable().get("void", 0);
         // Global Variable Init
         currentFunction = irProgram.getIRFunction("_main");
         currentBB = currentFunction.getStartBlock();
         currentFunction.putBasicBlock(currentBB);
+        int first = irProgram.getBasicBlockCount();
         node.getSections().stream().filter(x -> x instanceof VarDecl).forEach(x -> x.accept(this));
+        currentFunction.addBlockIdRange(first, irProgram.getBasicBlockCount() - first);
         globalInitAfter = currentBB;
+        exprInfo.clear();
         currentBB = null;
         // Function implementation
         node.getSections().stream().filter(x -> !(x instanceof VarDecl)).forEach(x -> x.accept(this));
+        // functions from the cache are only emitted, unless a function that is compiled may inline them
+        irProgram.getIrFunctionMap().values().removeIf(x -> x.getCached() != null && !irProgram.isInlinedCached(x.getProcessedName()));
+    }
+
+    // the body is in the cache: take the ids and string constants building it would have taken.
+    // One a compiled function may inline is still built, with the same ids, only its assembly comes from the cache.
+    private boolean reuseCached() {
+        CachedFunction cached = irProgram.getCachedFunction(currentFunction.getProcessedName());
+        if (cached == null) {
+            return false;
+        }
+        currentFunction.setCached(cached);
+        if (irProgram.isInlinedCached(currentFunction.getProcessedName())) {
+            return false;
+        }
+        currentFunction.addBlockIdRange(irProgram.reserveBasicBlockIds(cached.getBodyBlockCount()), cached.getBodyBlockCount());
+        cached.getStaticStrings().forEach(this::getStaticString);
+        currentFunction = null;
+        return true;
     }
 
     @Override
@@ -51,6 +131,10 @@ public class IRInstructionBuilder implements IASTVistor {
     @Override
     public void visit(FuncDecl node) {
         currentFunction = irProgram.getIRFunction(node.getFuncSymbol().getProcessedName());
+        if (reuseCached()) {
+            return;
+        }
+        int first = irProgram.getBasicBlockCount();
         if (currentClass != null) {
             thisRegister = currentFunction.getThisRegister();
         }
@@ -62,14 +146,16 @@ public class IRInstructionBuilder implements IASTVistor {
         currentFunction.putBasicBlock(currentBB);
         node.getBlock().accept(this);
         // default ret may be redundant
-        Register ret = new Register();
+        Register ret = new Register(irProgram);
         currentBB.addTail(new MoveU(currentBB, ret, new Immediate(0)));
         currentBB.endWith(new Ret(currentBB, ret));
 
         currentFunction.setEndBlock(currentBB);
+        currentFunction.addBlockIdRange(first, irProgram.getBasicBlockCount() - first);
         currentBB = null;
         thisRegister = null;
         currentFunction = null;
+        exprInfo.clear();
     }
 
     @Override
@@ -79,17 +165,19 @@ public class IRInstructionBuilder implements IASTVistor {
         if (node.getInit() != null && isLogicalExpr(node.getInit())) {
             currentFunction.putBasicBlock(trueBlock);
             currentFunction.putBasicBlock(falseBlock);
-            node.getInit().setIfTrue(trueBlock);
-            node.getInit().setIfFalse(falseBlock);
+            setIfTrue(node.getInit(), trueBlock);
+            setIfFalse(node.getInit(), falseBlock);
         }   // shortcut
 
         if (node.getVarSymbol().getBelongTable() instanceof TopTable) { // Global Init
-            Label label = new Label(node.getName());
-            irProgram.putGlobalVar(node.getName(), new StaticData(label, null));
+            Label label = new Label(irProgram, node.getName());
+            StaticData globalVar = new StaticData(label, null);
+            irProgram.putGlobalVar(node.getName(), globalVar);
+            node.getVarSymbol().setStaticData(globalVar);
 
             if (node.getInit() != null) {
                 node.getInit().accept(this);
-                Register init = new Register();
+                Register init = new Register(irProgram);
                 currentBB.addTail(new MoveU(currentBB, init, label));
                 if (isLogicalExpr(node.getInit())) {
                     BasicBlock mergeBlock = new BasicBlock(currentFunction, "Init_merge");
@@ -97,14 +185,14 @@ public class IRInstructionBuilder implements IASTVistor {
                     falseBlock.endWith(new Jump(falseBlock, mergeBlock));
                     currentFunction.putBasicBlock(mergeBlock);
                     currentBB = mergeBlock;
-                    currentBB.addTail(new Move(currentBB, init, true, node.getInit().getRegister(), false)); // FIXME
+                    currentBB.addTail(new Move(currentBB, init, true, getRegister(node.getInit()), false)); // FIXME
                 } else {
                     Register rhs;
-                    if (node.getInit().isDataInMem()) {
-                        rhs = new Register();
-                        currentBB.addTail(new Move(currentBB, rhs, false, node.getInit().getRegister(), node.getInit().isDataInMem()));
+                    if (isDataInMem(node.getInit())) {
+                        rhs = new Register(irProgram);
+                        currentBB.addTail(new Move(currentBB, rhs, false, getRegister(node.getInit()), isDataInMem(node.getInit())));
                     } else {
-                        rhs = node.getInit().getRegister();
+                        rhs = getRegister(node.getInit());
                     }
                     currentBB.addTail(new Move(currentBB, init, true, rhs, false));
                 }
@@ -119,9 +207,9 @@ public class IRInstructionBuilder implements IASTVistor {
                     falseBlock.endWith(new Jump(falseBlock, mergeBlock));
                     currentFunction.putBasicBlock(mergeBlock);
                     currentBB = mergeBlock;
-                    currentBB.addTail(new Move(currentBB, node.getVarSymbol().getRegister(), false, node.getInit().getRegister(), false)); // FIXME
+                    currentBB.addTail(new Move(currentBB, node.getVarSymbol().getRegister(irProgram), false, getRegister(node.getInit()), false)); // FIXME
                 } else {
-                    currentBB.addTail(new Move(currentBB, node.getVarSymbol().getRegister(), false, node.getInit().getRegister(), node.getInit().isDataInMem()));
+                    currentBB.addTail(new Move(currentBB, node.getVarSymbol().getRegister(irProgram), false, getRegister(node.getInit()), isDataInMem(node.getInit())));
                 }
             }
         }
@@ -136,14 +224,20 @@ public class IRInstructionBuilder implements IASTVistor {
     public void visit(ClassCstrDecl node) {
         // parameters already processed
         currentFunction = irProgram.getIRFunction(node.getCstrSymbol().getProcessedName());
+        if (reuseCached()) {
+            return;
+        }
+        int first = irProgram.getBasicBlockCount();
         currentBB = currentFunction.getStartBlock();
         currentFunction.putBasicBlock(currentBB);
         node.getBlock().accept(this);
         // default ret may be redundant
         currentBB.endWith(new Ret(currentBB, null));
         currentFunction.setEndBlock(currentBB);
+        currentFunction.addBlockIdRange(first, irProgram.getBasicBlockCount() - first);
         currentBB = null;
         currentFunction = null;
+        exprInfo.clear();
     }
 
     @Override
@@ -167,16 +261,16 @@ public class IRInstructionBuilder implements IASTVistor {
         BasicBlock BBFalse = node.getElseStmt() != null ? new BasicBlock(currentFunction, "if_false") : null;
         BasicBlock BBMerge = new BasicBlock(currentFunction, "if_merge");
 
-        node.getCond().setIfTrue(BBTrue);
-        node.getCond().setIfFalse(BBFalse != null ? BBFalse : BBMerge);
+        setIfTrue(node.getCond(), BBTrue);
+        setIfFalse(node.getCond(), BBFalse != null ? BBFalse : BBMerge);
 
         node.getCond().accept(this);
 
-        Register trueReg = new Register();
+        Register trueReg = new Register(irProgram);
         currentBB.addTail(new MoveU(currentBB, trueReg, new Immediate(1)));
-        Compare compare = new Compare(currentBB, Compare.CompareOp.EQ, trueReg, false, node.getCond().getRegister(), node.getCond().isDataInMem());
+        Compare compare = new Compare(currentBB, Compare.CompareOp.EQ, trueReg, false, getRegister(node.getCond()), isDataInMem(node.getCond()));
         currentBB.addTail(compare);
-        currentBB.endWith(new Branch(currentBB, compare, node.getCond().getIfTrue(), node.getCond().getIfFalse()));
+        currentBB.endWith(new Branch(currentBB, compare, getIfTrue(node.getCond()), getIfFalse(node.getCond())));
 
         currentBB = BBTrue;
 
@@ -207,7 +301,7 @@ public class IRInstructionBuilder implements IASTVistor {
 
     @Override
     public void visit(ReturnStmt node) {
-        Register ret = new Register();
+        Register ret = new Register(irProgram);
         if (node.getExpr() != null) {
             BasicBlock trueBlock = new BasicBlock(currentFunction, "Ret_true");
             BasicBlock falseBlock = new BasicBlock(currentFunction, "Ret_false");
@@ -215,8 +309,8 @@ public class IRInstructionBuilder implements IASTVistor {
             if (isLogicalExpr(node.getExpr())) {
                 currentFunction.putBasicBlock(trueBlock);
                 currentFunction.putBasicBlock(falseBlock);
-                node.getExpr().setIfTrue(trueBlock);
-                node.getExpr().setIfFalse(falseBlock);
+                setIfTrue(node.getExpr(), trueBlock);
+                setIfFalse(node.getExpr(), falseBlock);
             }
             node.getExpr().accept(this);
             if (isLogicalExpr(node.getExpr())) {
@@ -225,10 +319,10 @@ public class IRInstructionBuilder implements IASTVistor {
                 falseBlock.endWith(new Jump(falseBlock, mergeBlock));
                 currentFunction.putBasicBlock(mergeBlock);
                 currentBB = mergeBlock;
-                currentBB.addTail(new Move(currentBB, ret, false, node.getExpr().getRegister(), false)); // FIXME
+                currentBB.addTail(new Move(currentBB, ret, false, getRegister(node.getExpr()), false)); // FIXME
                 currentBB.endWith(new Ret(currentBB, ret));
             } else {
-                currentBB.addTail(new Move(currentBB, ret, false, node.getExpr().getRegister(), node.getExpr().isDataInMem()));
+                currentBB.addTail(new Move(currentBB, ret, false, getRegister(node.getExpr()), isDataInMem(node.getExpr())));
                 currentBB.endWith(new Ret(currentBB, ret));
             }
         } else {
@@ -268,15 +362,15 @@ public class IRInstructionBuilder implements IASTVistor {
         if (node.getCond() != null) {
             currentBB = BBCond;
             currentFunction.putBasicBlock(currentBB);
-            node.getCond().setIfTrue(BBLoop);
-            node.getCond().setIfFalse(BBAfter);
+            setIfTrue(node.getCond(), BBLoop);
+            setIfFalse(node.getCond(), BBAfter);
             node.getCond().accept(this);
 
-            Register trueReg = new Register();
+            Register trueReg = new Register(irProgram);
             currentBB.addTail(new MoveU(currentBB, trueReg, new Immediate(1)));
-            Compare compare = new Compare(currentBB, Compare.CompareOp.EQ, trueReg, false, node.getCond().getRegister(), node.getCond().isDataInMem());
+            Compare compare = new Compare(currentBB, Compare.CompareOp.EQ, trueReg, false, getRegister(node.getCond()), isDataInMem(node.getCond()));
             currentBB.addTail(compare);
-            currentBB.endWith(new Branch(currentBB, compare, node.getCond().getIfTrue(), node.getCond().getIfFalse()));
+            currentBB.endWith(new Branch(currentBB, compare, getIfTrue(node.getCond()), getIfFalse(node.getCond())));
         }
 
         currentBB = BBLoop;
@@ -310,15 +404,15 @@ public class IRInstructionBuilder implements IASTVistor {
         currentBB.endWith(new Jump(currentBB, BBCond));
         currentBB = BBCond;
         currentFunction.putBasicBlock(currentBB);
-        node.getCond().setIfTrue(BBLoop);
-        node.getCond().setIfFalse(BBAfter);
+        setIfTrue(node.getCond(), BBLoop);
+        setIfFalse(node.getCond(), BBAfter);
         node.getCond().accept(this);
 
-        Register trueReg = new Register();
+        Register trueReg = new Register(irProgram);
         currentBB.addTail(new MoveU(currentBB, trueReg, new Immediate(1)));
-        Compare compare = new Compare(currentBB, Compare.CompareOp.EQ, trueReg, false, node.getCond().getRegister(), node.getCond().isDataInMem());
+        Compare compare = new Compare(currentBB, Compare.CompareOp.EQ, trueReg, false, getRegister(node.getCond()), isDataInMem(node.getCond()));
         currentBB.addTail(compare);
-        currentBB.endWith(new Branch(currentBB, compare, node.getCond().getIfTrue(), node.getCond().getIfFalse()));
+        currentBB.endWith(new Branch(currentBB, compare, getIfTrue(node.getCond()), getIfFalse(node.getCond())));
 
         currentBB = BBLoop;
         currentFunction.putBasicBlock(currentBB);
@@ -342,30 +436,30 @@ public class IRInstructionBuilder implements IASTVistor {
         node.getParameters().forEach(x -> x.accept(this));
         List<Register> parameterList = new LinkedList<>();
         if (node.getName() instanceof MemberAcess && node.getName().getFunc() != null) {
-            parameterList.add(node.getName().getRegister());
+            parameterList.add(getRegister(node.getName()));
         } else if (node.getName().getFunc() != null && node.getName().getFunc().getBelongTable() instanceof ClassTable && thisRegister != null) {
             parameterList.add(thisRegister);    // in class function call
         }
         node.getParameters().forEach(x -> {
-            if (x.isDataInMem()) {
-                Register param = new Register();
-                currentBB.addTail(new Move(currentBB, param, false, x.getRegister(), true));
+            if (isDataInMem(x)) {
+                Register param = new Register(irProgram);
+                currentBB.addTail(new Move(currentBB, param, false, getRegister(x), true));
                 parameterList.add(param);
             } else {
-                parameterList.add(x.getRegister());
+                parameterList.add(getRegister(x));
             }
         });
 
         if (node.getProcessedName().equals("_size")) {
-            node.setRegister(node.getName().getRegister());
+            setRegister(node, getRegister(node.getName()));
             return;
         }
 
         Register ret;
-        if (node.getType().getBaseType().equals("void")) {
+        if (node.getType().getBase() == voidType) {
             ret = null;
         } else {
-            ret = new Register();
+            ret = new Register(irProgram);
         }
         Call.Builder builder = new Call.Builder();
         builder.setBasicBlock(currentBB);
@@ -409,7 +503,7 @@ public class IRInstructionBuilder implements IASTVistor {
         parameterList.forEach(builder::addArgs);
 
         currentBB.addTail(builder.build());
-        node.setRegister(ret);
+        setRegister(node, ret);
     }
 
     @Override
@@ -418,25 +512,25 @@ public class IRInstructionBuilder implements IASTVistor {
         node.getSubscript().accept(this);
 
         Register array;
-        if (node.getArray().isDataInMem()) {
-            array = new Register();
-            currentBB.addTail(new Move(currentBB, array, false, node.getArray().getRegister(), true));
+        if (isDataInMem(node.getArray())) {
+            array = new Register(irProgram);
+            currentBB.addTail(new Move(currentBB, array, false, getRegister(node.getArray()), true));
         } else {
-            array = node.getArray().getRegister();
+            array = getRegister(node.getArray());
         }
 
         Register subscript;
-        if (node.getSubscript().isDataInMem()) {
-            subscript = new Register();
-            currentBB.addTail(new Move(currentBB, subscript, false, node.getSubscript().getRegister(), true));
+        if (isDataInMem(node.getSubscript())) {
+            subscript = new Register(irProgram);
+            currentBB.addTail(new Move(currentBB, subscript, false, getRegister(node.getSubscript()), true));
         } else {
-            subscript = node.getSubscript().getRegister();
+            subscript = getRegister(node.getSubscript());
         }
-        Register dest = new Register();
+        Register dest = new Register(irProgram);
         currentBB.addTail(new Lea(currentBB, dest, array, subscript, 8));
 
-        node.setRegister(dest);
-        node.setDataInMem(true);
+        setRegister(node, dest);
+        setDataInMem(node, true);
     }
 
     @Override
@@ -444,141 +538,157 @@ public class IRInstructionBuilder implements IASTVistor {
         node.getExpr().accept(this);
 
         Register base;
-        if (node.getExpr().isDataInMem()) {
-            base = new Register();
-            currentBB.addTail(new Move(currentBB, base, false, node.getExpr().getRegister(), true));
+        if (isDataInMem(node.getExpr())) {
+            base = new Register(irProgram);
+            currentBB.addTail(new Move(currentBB, base, false, getRegister(node.getExpr()), true));
         } else {
-            base = node.getExpr().getRegister();
+            base = getRegister(node.getExpr());
         }
 
         if (node.getName().equals("size")) {
             Call.Builder builder = new Call.Builder();
-            Register ret = new Register();
+            Register ret = new Register(irProgram);
             builder.setRet(ret);
             builder.setProcessedName("size");
             builder.addArgs(base);
             builder.setBasicBlock(currentBB);
             currentBB.addTail(builder.build());
-            node.setRegister(ret);
+            setRegister(node, ret);
             return;
         }
 
         if (node.getFunc() == null) {
-            Integer heapOffset = irProgram.getIRClass(node.getExpr().getType().getBaseType()).getHeapOffset(node.getName());
-            Register dest = new Register();
+            Integer heapOffset = node.getExpr().getType().getClassSymbol().getIRClass().getHeapOffset(node.getName());
+            Register dest = new Register(irProgram);
             currentBB.addTail(new Lea(currentBB, dest, base, null, heapOffset));
-            node.setRegister(dest);
-            node.setDataInMem(true);
+            setRegister(node, dest);
+            setDataInMem(node, true);
         } else { // func
-            node.setRegister(base);
+            setRegister(node, base);
         }
     }
 
     @Override
     public void visit(NewExpr node) {
         node.getNewObject().accept(this);
-        node.setRegister(node.getNewObject().getRegister());
+        setRegister(node, getRegister(node.getNewObject()));
     }
 
-    private void processLogicalNot(UnaryExpr node) {
-        node.setRegister(new Register());
+    private void enterLogicalNot(UnaryExpr node) {
+        setRegister(node, new Register(irProgram));
 
 
 //        BasicBlock mergeBLock = new BasicBlock(currentFunction, "merge");
 //        currentFunction.putBasicBlock(mergeBLock);
         // preserve short cut
-        node.getExpr().setIfTrue(node.getIfFalse());
-        node.getExpr().setIfFalse(node.getIfTrue());
-        node.getExpr().accept(this);
+        setIfTrue(node.getExpr(), getIfFalse(node));
+        setIfFalse(node.getExpr(), getIfTrue(node));
+    }
 
-//        node.getExpr().getIfTrue().endWith(new Jump(node.getExpr().getIfTrue(), mergeBLock));
-//        node.getExpr().getIfFalse().endWith(new Jump(node.getExpr().getIfFalse(), mergeBLock));
+    private void processLogicalNot(UnaryExpr node) {
+//        getIfTrue(node.getExpr()).endWith(new Jump(getIfTrue(node.getExpr()), mergeBLock));
+//        getIfFalse(node.getExpr()).endWith(new Jump(getIfFalse(node.getExpr()), mergeBLock));
 
 //        currentBB = mergeBLock;
 //        currentFunction.putBasicBlock(mergeBLock);
-        Register trueReg = new Register();
+        Register trueReg = new Register(irProgram);
         currentBB.addTail(new MoveU(currentBB, trueReg, new Immediate(1)));
 
 
         // Pre
-        currentBB.addTail(new BinaryCalc(currentBB, BinaryCalc.BinaryOp.XOR, node.getRegister(), node.getExpr().getRegister(), node.getExpr().isDataInMem(), trueReg, false));
+        currentBB.addTail(new BinaryCalc(currentBB, BinaryCalc.BinaryOp.XOR, getRegister(node), getRegister(node.getExpr()), isDataInMem(node.getExpr()), trueReg, false));
 
 
-//        Compare cmp = new Compare(currentBB, Compare.CompareOp.EQ, node.getExpr().getRegister(), node.getExpr().isDataInMem(), trueReg, false);
+//        Compare cmp = new Compare(currentBB, Compare.CompareOp.EQ, getRegister(node.getExpr()), isDataInMem(node.getExpr()), trueReg, false);
 //        currentBB.addTail(cmp);
-//        currentBB.endWith(new Branch(currentBB, cmp, node.getIfTrue(), node.getIfFalse()));
+//        currentBB.endWith(new Branch(currentBB, cmp, getIfTrue(node), getIfFalse(node)));
 //
-////        currentBB.addTail(new CSet(currentBB, node.getRegister(), ));
+////        currentBB.addTail(new CSet(currentBB, getRegister(node), ));
 
 
         // Post
-        node.getIfTrue().addTail(new MoveU(node.getIfTrue(), trueReg, new Immediate(1)));
-        node.getIfTrue().addTail(new BinaryCalc(node.getIfTrue(), BinaryCalc.BinaryOp.XOR, node.getRegister(), node.getExpr().getRegister(), node.getExpr().isDataInMem(), trueReg, false));
-        node.getIfFalse().addTail(new MoveU(node.getIfFalse(), trueReg, new Immediate(1)));
-        node.getIfFalse().addTail(new BinaryCalc(node.getIfFalse(), BinaryCalc.BinaryOp.XOR, node.getRegister(), node.getExpr().getRegister(), node.getExpr().isDataInMem(), trueReg, false));
+        getIfTrue(node).addTail(new MoveU(getIfTrue(node), trueReg, new Immediate(1)));
+        getIfTrue(node).addTail(new BinaryCalc(getIfTrue(node), BinaryCalc.BinaryOp.XOR, getRegister(node), getRegister(node.getExpr()), isDataInMem(node.getExpr()), trueReg, false));
+        getIfFalse(node).addTail(new MoveU(getIfFalse(node), trueReg, new Immediate(1)));
+        getIfFalse(node).addTail(new BinaryCalc(getIfFalse(node), BinaryCalc.BinaryOp.XOR, getRegister(node), getRegister(node.getExpr()), isDataInMem(node.getExpr()), trueReg, false));
 
-//        node.getIfFalse().endWith(new Jump(currentBB, mergeBLock));
-//        node.getIfFalse().endWith(new Jump(currentBB, mergeBLock));
+//        getIfFalse(node).endWith(new Jump(currentBB, mergeBLock));
+//        getIfFalse(node).endWith(new Jump(currentBB, mergeBLock));
         //        BasicBlock block = new BasicBlock(currentFunction, "not_end");
 //        currentFunction.putBasicBlock(block);
-//        node.getIfTrue().endWith(new Jump(node.getIfTrue(), block));
-//        node.getIfFalse().endWith(new Jump(node.getIfFalse(), block));
+//        getIfTrue(node).endWith(new Jump(getIfTrue(node), block));
+//        getIfFalse(node).endWith(new Jump(getIfFalse(node), block));
 //        currentBB = block;
 
     }
 
     private void processPos(UnaryExpr node) {
-        node.getExpr().accept(this);
-        node.setRegister(node.getExpr().getRegister());
-        node.setDataInMem(node.getExpr().isDataInMem());    // Lvalue
+        setRegister(node, getRegister(node.getExpr()));
+        setDataInMem(node, isDataInMem(node.getExpr()));    // Lvalue
     }
 
     private void processIntUnary(UnaryExpr node) {
-        node.getExpr().accept(this);
-
         UnaryCalc.UnaryOp op;
         if (node.getOp() == UnaryExpr.UnaryOp.NEG) { // NEG
             op = UnaryCalc.UnaryOp.NEG;
         } else { // BITWISE NOT
             op = UnaryCalc.UnaryOp.BITWISE_NOT;
         }
-        Register dest = new Register();
+        Register dest = new Register(irProgram);
 
-        currentBB.addTail(new UnaryCalc(currentBB, op, dest, node.getExpr().getRegister(), node.getExpr().isDataInMem()));
+        currentBB.addTail(new UnaryCalc(currentBB, op, dest, getRegister(node.getExpr()), isDataInMem(node.getExpr())));
 
-        node.setRegister(dest);
+        setRegister(node, dest);
     }
 
     private void processPrefix(UnaryExpr node) {
-        node.getExpr().accept(this);
-
         if (node.getOp() == UnaryExpr.UnaryOp.PREFIX_INC) {
-            currentBB.addTail(new SelfInc(currentBB, node.getExpr().getRegister(), node.getExpr().isDataInMem(), 1));
+            currentBB.addTail(new SelfInc(currentBB, getRegister(node.getExpr()), isDataInMem(node.getExpr()), 1));
         } else {
-            currentBB.addTail(new SelfInc(currentBB, node.getExpr().getRegister(), node.getExpr().isDataInMem(), -1));
+            currentBB.addTail(new SelfInc(currentBB, getRegister(node.getExpr()), isDataInMem(node.getExpr()), -1));
         }
 
-        node.setRegister(node.getExpr().getRegister());
-        node.setDataInMem(node.getExpr().isDataInMem());
+        setRegister(node, getRegister(node.getExpr()));
+        setDataInMem(node, isDataInMem(node.getExpr()));
     }
 
     private void processPosfix(UnaryExpr node) {
-        node.getExpr().accept(this);
-
-        Register save = new Register();
+        Register save = new Register(irProgram);
 
-        currentBB.addTail(new Move(currentBB, save, false, node.getExpr().getRegister(), node.getExpr().isDataInMem()));
+        currentBB.addTail(new Move(currentBB, save, false, getRegister(node.getExpr()), isDataInMem(node.getExpr())));
         if (node.getOp() == UnaryExpr.UnaryOp.POSTFIX_INC) {
-            currentBB.addTail(new SelfInc(currentBB, node.getExpr().getRegister(), node.getExpr().isDataInMem(), 1));
+            currentBB.addTail(new SelfInc(currentBB, getRegister(node.getExpr()), isDataInMem(node.getExpr()), 1));
         } else {
-            currentBB.addTail(new SelfInc(currentBB, node.getExpr().getRegister(), node.getExpr().isDataInMem(), -1));
+            currentBB.addTail(new SelfInc(currentBB, getRegister(node.getExpr()), isDataInMem(node.getExpr()), -1));
         }
 
-        node.setRegister(save);
+        setRegister(node, save);
     }
 
     @Override
     public void visit(UnaryExpr node) {
+        ExprWalker.walk(node, this, this::lower);
+    }
+
+    // an operator is lowered a step at a time by ExprWalker, what comes before an operand of it
+    // is left in the side table for the operand
+    private AbstractExpr lower(AbstractExpr node, AbstractExpr last) {
+        if (node instanceof BinaryExpr) {
+            return lower((BinaryExpr) node, last);
+        }
+        UnaryExpr unaryExpr = (UnaryExpr) node;
+        if (last == null) {
+            if (unaryExpr.getOp() == UnaryExpr.UnaryOp.LOGICAL_NOT) {
+                enterLogicalNot(unaryExpr);
+            }
+            return unaryExpr.getExpr();
+        }
+        processUnary(unaryExpr);
+        return null;
+    }
+
+    // the operand is lowered
+    private void processUnary(UnaryExpr node) {
         switch (node.getOp()) {
             case LOGICAL_NOT:
                 processLogicalNot(node);
@@ -601,46 +711,45 @@ public class IRInstructionBuilder implements IASTVistor {
         }
     }
 
-    private void processAssign(BinaryExpr node) { // =
+    private void enterAssign(BinaryExpr node) { // =
         BasicBlock trueBlock = new BasicBlock(currentFunction, "Assign_true");
         BasicBlock falseBlock = new BasicBlock(currentFunction, "Assign_false");
 
         if (isLogicalExpr(node.getRhs())) {
             currentFunction.putBasicBlock(trueBlock);
             currentFunction.putBasicBlock(falseBlock);
-            node.getRhs().setIfTrue(trueBlock);
-            node.getRhs().setIfFalse(falseBlock);
+            setIfTrue(node.getRhs(), trueBlock);
+            setIfFalse(node.getRhs(), falseBlock);
         }   // shortcut
+    }
 
-        node.getRhs().accept(this);
-        node.getLhs().accept(this);
-
+    // rhs, then lhs, are lowered
+    private void processAssign(BinaryExpr node) {
         if (isLogicalExpr(node.getRhs())) {
+            BasicBlock trueBlock = getIfTrue(node.getRhs());
+            BasicBlock falseBlock = getIfFalse(node.getRhs());
             BasicBlock mergeBlock = new BasicBlock(currentFunction, "Ret_merge");
             trueBlock.endWith(new Jump(trueBlock, mergeBlock));
             falseBlock.endWith(new Jump(falseBlock, mergeBlock));
             currentFunction.putBasicBlock(mergeBlock);
             currentBB = mergeBlock;
-            currentBB.addTail(new Move(currentBB, node.getLhs().getRegister(), node.getLhs().isDataInMem(), node.getRhs().getRegister(), false)); // FIXME
+            currentBB.addTail(new Move(currentBB, getRegister(node.getLhs()), isDataInMem(node.getLhs()), getRegister(node.getRhs()), false)); // FIXME
         } else {
             Register rhs;
-            if (node.getRhs().isDataInMem()) {
-                rhs = new Register();
-                currentBB.addTail(new Move(currentBB, rhs, false, node.getRhs().getRegister(), node.getRhs().isDataInMem()));
+            if (isDataInMem(node.getRhs())) {
+                rhs = new Register(irProgram);
+                currentBB.addTail(new Move(currentBB, rhs, false, getRegister(node.getRhs()), isDataInMem(node.getRhs())));
             } else {
-                rhs = node.getRhs().getRegister();
+                rhs = getRegister(node.getRhs());
             }
-            currentBB.addTail(new Move(currentBB, node.getLhs().getRegister(), node.getLhs().isDataInMem(), rhs, false));
+            currentBB.addTail(new Move(currentBB, getRegister(node.getLhs()), isDataInMem(node.getLhs()), rhs, false));
         }
 
-        node.setRegister(node.getLhs().getRegister());
-        node.setDataInMem(node.getLhs().isDataInMem());
+        setRegister(node, getRegister(node.getLhs()));
+        setDataInMem(node, isDataInMem(node.getLhs()));
     }
 
     private void processIntCompare(BinaryExpr node) {
-        node.getLhs().accept(this);
-        node.getRhs().accept(this);
-
         Compare.CompareOp cond;
         switch (node.getOp()) {
             case EQ:
@@ -667,112 +776,115 @@ public class IRInstructionBuilder implements IASTVistor {
 
         Register lhs;
         Register rhs;
-        if (node.getLhs().isDataInMem()) {
-            lhs = new Register();
-            currentBB.addTail(new Move(currentBB, lhs, false, node.getLhs().getRegister(), node.getLhs().isDataInMem()));
+        if (isDataInMem(node.getLhs())) {
+            lhs = new Register(irProgram);
+            currentBB.addTail(new Move(currentBB, lhs, false, getRegister(node.getLhs()), isDataInMem(node.getLhs())));
         } else {
-            lhs = node.getLhs().getRegister();
+            lhs = getRegister(node.getLhs());
         }
-        if (node.getRhs().isDataInMem()) {
-            rhs = new Register();
-            currentBB.addTail(new Move(currentBB, rhs, false, node.getRhs().getRegister(), node.getRhs().isDataInMem()));
+        if (isDataInMem(node.getRhs())) {
+            rhs = new Register(irProgram);
+            currentBB.addTail(new Move(currentBB, rhs, false, getRegister(node.getRhs()), isDataInMem(node.getRhs())));
         } else {
-            rhs = node.getRhs().getRegister();
+            rhs = getRegister(node.getRhs());
         }   // maybe allow in the mem
 
-        Register dest = new Register();  // assert false
+        Register dest = new Register(irProgram);  // assert false
         Compare compare = new Compare(currentBB, cond, lhs, false, rhs, false);
         currentBB.addTail(compare);
         currentBB.addTail(new CSet(currentBB, cond, dest, false));
 
-        node.setRegister(dest);
+        setRegister(node, dest);
 
     }
 
-    private void processLogicalBinary(BinaryExpr node) {
-        node.setRegister(new Register());
+    private void enterLogicalBinary(BinaryExpr node) {
+        setRegister(node, new Register(irProgram));
         // lhs
+        AbstractExpr lhs = node.getLhs();
         if (node.getOp() == BinaryExpr.BinaryOp.LOGICAL_AND) { // LOGICAL_AND
-            AbstractExpr lhs = node.getLhs();
-            lhs.setIfTrue(new BasicBlock(currentFunction, "and_lhs_true"));
-            lhs.setIfFalse(node.getIfFalse());
-            lhs.accept(this);
+            setIfTrue(lhs, new BasicBlock(currentFunction, "and_lhs_true"));
+            setIfFalse(lhs, getIfFalse(node));
+        } else { // LOGICAL_OR
+            setIfTrue(lhs, getIfTrue(node));
+            setIfFalse(lhs, new BasicBlock(currentFunction, "or_lhs_false"));
+        }
+    }
 
-            Register trueReg = new Register();
+    // lhs is lowered
+    private void betweenLogicalBinary(BinaryExpr node) {
+        if (node.getOp() == BinaryExpr.BinaryOp.LOGICAL_AND) { // LOGICAL_AND
+            AbstractExpr lhs = node.getLhs();
+            Register trueReg = new Register(irProgram);
             currentBB.addTail(new MoveU(currentBB, trueReg, new Immediate(1)));
-            Compare cmp = new Compare(currentBB, Compare.CompareOp.EQ, lhs.getRegister(), lhs.isDataInMem(), trueReg, false);
+            Compare cmp = new Compare(currentBB, Compare.CompareOp.EQ, getRegister(lhs), isDataInMem(lhs), trueReg, false);
             currentBB.addTail(cmp);
-            currentBB.endWith(new Branch(currentBB, cmp, lhs.getIfTrue(), lhs.getIfFalse()));
-            lhs.getIfFalse().addTail(new MoveU(lhs.getIfFalse(), node.getRegister(), new Immediate(0)));
+            currentBB.endWith(new Branch(currentBB, cmp, getIfTrue(lhs), getIfFalse(lhs)));
+            getIfFalse(lhs).addTail(new MoveU(getIfFalse(lhs), getRegister(node), new Immediate(0)));
 
-            currentBB = lhs.getIfTrue();
+            currentBB = getIfTrue(lhs);
             currentFunction.putBasicBlock(currentBB);
         } else { // LOGICAL_OR
             AbstractExpr lhs = node.getLhs();
-            lhs.setIfTrue(node.getIfTrue());
-            lhs.setIfFalse(new BasicBlock(currentFunction, "or_lhs_false"));
-            lhs.accept(this);
-
-            Register trueReg = new Register();
+            Register trueReg = new Register(irProgram);
             currentBB.addTail(new MoveU(currentBB, trueReg, new Immediate(1)));
-            Compare cmp = new Compare(currentBB, Compare.CompareOp.EQ, lhs.getRegister(), lhs.isDataInMem(), trueReg, false);
+            Compare cmp = new Compare(currentBB, Compare.CompareOp.EQ, getRegister(lhs), isDataInMem(lhs), trueReg, false);
             currentBB.addTail(cmp);
-            currentBB.endWith(new Branch(currentBB, cmp, lhs.getIfTrue(), lhs.getIfFalse()));
-            lhs.getIfTrue().addTail(new MoveU(lhs.getIfTrue(), node.getRegister(), new Immediate(1)));
+            currentBB.endWith(new Branch(currentBB, cmp, getIfTrue(lhs), getIfFalse(lhs)));
+            getIfTrue(lhs).addTail(new MoveU(getIfTrue(lhs), getRegister(node), new Immediate(1)));
 
-            currentBB = lhs.getIfFalse();
+            currentBB = getIfFalse(lhs);
             currentFunction.putBasicBlock(currentBB);
         }
 
         // rhs
         AbstractExpr rhs = node.getRhs();
-        rhs.setIfTrue(node.getIfTrue());
-        rhs.setIfFalse(node.getIfFalse());
-        rhs.accept(this);
-
+        setIfTrue(rhs, getIfTrue(node));
+        setIfFalse(rhs, getIfFalse(node));
+    }
 
+    // rhs is lowered
+    private void processLogicalBinary(BinaryExpr node) {
+        AbstractExpr rhs = node.getRhs();
         if (node.getOp() == BinaryExpr.BinaryOp.LOGICAL_AND) {
-            Register trueReg = new Register();
+            Register trueReg = new Register(irProgram);
             currentBB.addTail(new MoveU(currentBB, trueReg, new Immediate(1)));
-            Compare cmp = new Compare(currentBB, Compare.CompareOp.EQ, rhs.getRegister(), rhs.isDataInMem(), trueReg, false);
+            Compare cmp = new Compare(currentBB, Compare.CompareOp.EQ, getRegister(rhs), isDataInMem(rhs), trueReg, false);
             currentBB.addTail(cmp);
-            currentBB.endWith(new Branch(currentBB, cmp, rhs.getIfTrue(), rhs.getIfFalse()));
-            rhs.getIfTrue().addTail(new MoveU(rhs.getIfTrue(), node.getRegister(), new Immediate(1)));
+            currentBB.endWith(new Branch(currentBB, cmp, getIfTrue(rhs), getIfFalse(rhs)));
+            getIfTrue(rhs).addTail(new MoveU(getIfTrue(rhs), getRegister(node), new Immediate(1)));
         } else {
-            Register trueReg = new Register();
+            Register trueReg = new Register(irProgram);
             currentBB.addTail(new MoveU(currentBB, trueReg, new Immediate(1)));
-            Compare cmp = new Compare(currentBB, Compare.CompareOp.EQ, rhs.getRegister(), rhs.isDataInMem(), trueReg, false);
+            Compare cmp = new Compare(currentBB, Compare.CompareOp.EQ, getRegister(rhs), isDataInMem(rhs), trueReg, false);
             currentBB.addTail(cmp);
-            currentBB.endWith(new Branch(currentBB, cmp, rhs.getIfTrue(), rhs.getIfFalse()));
-            rhs.getIfFalse().addTail(new MoveU(rhs.getIfFalse(), node.getRegister(), new Immediate(0)));
+            currentBB.endWith(new Branch(currentBB, cmp, getIfTrue(rhs), getIfFalse(rhs)));
+            getIfFalse(rhs).addTail(new MoveU(getIfFalse(rhs), getRegister(node), new Immediate(0)));
         }
 
     }
 
 
     private void processStringBinary(BinaryExpr node) {
-        node.getLhs().accept(this);
-        node.getRhs().accept(this);
-
-        Register cmpAns = new Register();
+        Register cmpAns = new Register(irProgram);
 
         Call.Builder builder = new Call.Builder();
         builder.setBasicBlock(currentBB);
         builder.setRet(cmpAns);
 
-        if (node.getLhs().isDataInMem()) {
-            Register lhs = new Register();
-            currentBB.addTail(new Move(currentBB, lhs, false, node.getLhs().getRegister(), true));
+        if (isDataInMem(node.getLhs())) {
+            Register lhs = new Register(irProgram);
+            currentBB.addTail(new Move(currentBB, lhs, false, getRegister(node.getLhs()), true));
             builder.addArgs(lhs);
         } else {
-            builder.addArgs(node.getLhs().getRegister());
+            builder.addArgs(getRegister(node.getLhs()));
         }
-        if (node.getRhs().isDataInMem()) {
-            Register rhs = new Register();
-            currentBB.addTail(new Move(currentBB, rhs, false, node.getRhs().getRegister(), true));
+        if (isDataInMem(node.getRhs())) {
+            Register rhs = new Register(irProgram);
+            currentBB.addTail(new Move(currentBB, rhs, false, getRegister(node.getRhs()), true));
             builder.addArgs(rhs);
         } else {
-            builder.addArgs(node.getRhs().getRegister());
+            builder.addArgs(getRegister(node.getRhs()));
         }
 
         switch (node.getOp()) {
@@ -801,22 +913,16 @@ public class IRInstructionBuilder implements IASTVistor {
 
         currentBB.addTail(builder.build());
 
-        node.setRegister(cmpAns);
+        setRegister(node, cmpAns);
 
     }
 
     private void processIntBinary(BinaryExpr node) {
         if (node.isFolded()) {
-            Register dest = new Register();
+            Register dest = new Register(irProgram);
             currentBB.addTail(new MoveU(currentBB, dest, new Immediate(node.getAns())));
-            node.setRegister(dest);
-        }
-
-        if (!node.getLhs().isFolded()) {
-            node.getLhs().accept(this);
-        }
-        if (!node.getRhs().isFolded()) {
-            node.getRhs().accept(this);
+            setRegister(node, dest);
+            return;
         }
 
         BinaryCalc.BinaryOp op = null;
@@ -858,55 +964,77 @@ public class IRInstructionBuilder implements IASTVistor {
         Register lhs;
         boolean lhsStar;
         if (node.getLhs().isFolded()) {
-            lhs = new Register();
+            lhs = new Register(irProgram);
             lhsStar = false;
             currentBB.addTail(new MoveU(currentBB, lhs,  new Immediate(node.getLhs().getAns())));
         } else {
-            lhs = node.getLhs().getRegister();
-            lhsStar = node.getLhs().isDataInMem();
+            lhs = getRegister(node.getLhs());
+            lhsStar = isDataInMem(node.getLhs());
         }
 
         Register rhs;
         boolean rhsStar;
         if (node.getRhs().isFolded()) {
-            rhs = new Register();
+            rhs = new Register(irProgram);
             rhsStar = false;
             currentBB.addTail(new MoveU(currentBB, rhs,  new Immediate(node.getRhs().getAns())));
         } else {
-            rhs = node.getRhs().getRegister();
-            rhsStar = node.getRhs().isDataInMem();
+            rhs = getRegister(node.getRhs());
+            rhsStar = isDataInMem(node.getRhs());
         }
 
 
-        Register dest = new Register();
+        Register dest = new Register(irProgram);
         currentBB.addTail(new BinaryCalc(currentBB, op, dest, lhs, lhsStar, rhs, rhsStar));
-//        currentBB.addTail(new BinaryCalc(currentBB, op, dest, node.getLhs().getRegister(), node.getLhs().isDataInMem(), node.getRhs().getRegister(), node.getRhs().isDataInMem()));
-        node.setRegister(dest);
+//        currentBB.addTail(new BinaryCalc(currentBB, op, dest, getRegister(node.getLhs()), isDataInMem(node.getLhs()), getRegister(node.getRhs()), isDataInMem(node.getRhs())));
+        setRegister(node, dest);
     }
 
     @Override
     public void visit(BinaryExpr node) {
-        // not visit immediately
+        ExprWalker.walk(node, this, this::lower);
+    }
+
+    // not visit immediately
+    private AbstractExpr lower(BinaryExpr node, AbstractExpr last) {
         switch (node.getOp()) {
             case ASSIGN:
+                if (last == null) {
+                    enterAssign(node);
+                    return node.getRhs();
+                }
+                if (last == node.getRhs()) {
+                    return node.getLhs();
+                }
                 processAssign(node);
-                break;
+                return null;
             case LOGICAL_OR:
             case LOGICAL_AND:
+                if (last == null) {
+                    enterLogicalBinary(node);
+                    return node.getLhs();
+                }
+                if (last == node.getLhs()) {
+                    betweenLogicalBinary(node);
+                    return node.getRhs();
+                }
                 processLogicalBinary(node);
-                break;
+                return null;
             case EQ:
             case NE:
             case LT:
             case GT:
             case LE:
             case GE:
-                if (node.getLhs().getType().getBaseType().equals("string")) {
+                if (last == null || last == node.getLhs()) {
+                    return ExprWalker.operand(node, last);
+                }
+                if (node.getLhs().getType().getBase() == stringType) {
                     processStringBinary(node);
                 } else {
                     processIntCompare(node);
                 }
-                break;
+                return null;
             case LEFT_SHIFT:
             case RIGHT_SHIFT:
             case ADD:
@@ -917,20 +1045,31 @@ public class IRInstructionBuilder implements IASTVistor {
             case BITWISE_OR:
             case BITWISE_AND:
             case XOR:
-                if (node.getLhs().getType().getBaseType().equals("string")) {
+                if (node.getLhs().getType().getBase() == stringType) {
+                    if (last == null || last == node.getLhs()) {
+                        return ExprWalker.operand(node, last);
+                    }
                     processStringBinary(node);
-                } else {
-                    processIntBinary(node);
+                    return null;
                 }
-                break;
+                // a folded operand is not lowered, processIntBinary moves its value in
+                if (last == null && !node.isFolded() && !node.getLhs().isFolded()) {
+                    return node.getLhs();
+                }
+                if (last != node.getRhs() && !node.isFolded() && !node.getRhs().isFolded()) {
+                    return node.getRhs();
+                }
+                processIntBinary(node);
+                return null;
             default:
+                return null;
         }
     }
 
     @Override
     public void visit(Identifier node) {
         if (node.getName().equals("this")) { // this
-            node.setRegister(currentFunction.getThisRegister());
+            setRegister(node, currentFunction.getThisRegister());
             return;
         }
         if (node.getVarSymbol() == null) { // func
@@ -942,21 +1081,21 @@ public class IRInstructionBuilder implements IASTVistor {
         }
 
         if (node.getVarSymbol().getBelongTable() instanceof TopTable) {
-            Register register = new Register();
-            StaticData globalVar = irProgram.getGlobalVar(node.getName());
+            Register register = new Register(irProgram);
+            StaticData globalVar = node.getVarSymbol().getStaticData();
             currentBB.addTail(new MoveU(currentBB, register, globalVar.getLabel()));
-            node.setRegister(register);
-            node.setDataInMem(true);
+            setRegister(node, register);
+            setDataInMem(node, true);
         } else if (node.getVarSymbol().getBelongTable() instanceof ClassTable) { // in class use
-            Register dest = new Register();
+            Register dest = new Register(irProgram);
             Register base = currentFunction.getThisRegister();
-            Integer offset = currentClass.getHeapOffset(node.getName());
+            Integer offset = currentClass.getHeapOffset(node.getVarSymbol().getSlot());
             currentBB.addTail(new Lea(currentBB, dest, base, null, offset));
-            node.setRegister(dest);
-            node.setDataInMem(true);
+            setRegister(node, dest);
+            setDataInMem(node, true);
             // FIXME
         } else { // BlockTable
-            node.setRegister(node.getVarSymbol().getRegister());
+            setRegister(node, node.getVarSymbol().getRegister(irProgram));
         }
     }
 
@@ -965,9 +1104,9 @@ public class IRInstructionBuilder implements IASTVistor {
         node.getLens().forEach(x -> x.accept(this));
 
         List<Register> parameterList = new LinkedList<>();
-        node.getLens().forEach(x -> parameterList.add(x.getRegister()));    // can be in mem
+        node.getLens().forEach(x -> parameterList.add(getRegister(x)));    // can be in mem
 
-        Register preRet = new Register();
+        Register preRet = new Register(irProgram);
 
         Call.Builder preMalloc = new Call.Builder();
         preMalloc.setBasicBlock(currentBB);
@@ -975,30 +1114,30 @@ public class IRInstructionBuilder implements IASTVistor {
         preMalloc.setRet(preRet);
 
         Integer len = parameterList.size();
-        Register lenRegister = new Register();
+        Register lenRegister = new Register(irProgram);
         currentBB.addTail(new MoveU(currentBB, lenRegister, new Immediate(len)));
-        Register byteRegister = new Register();
+        Register byteRegister = new Register(irProgram);
         currentBB.addTail(new MoveU(currentBB, byteRegister, new Immediate(len)));
         preMalloc.addArgs(byteRegister);
 
         currentBB.addTail(preMalloc.build());
 
-        Register iter = new Register();
+        Register iter = new Register(irProgram);
         currentBB.addTail(new Move(currentBB, iter, false, preRet, false));
         currentBB.addTail(new Move(currentBB, iter, true, lenRegister, false));
         for (int i = 0; i < len; i++) {
             currentBB.addTail(new SelfInc(currentBB, iter, false, 8));
             Register rhs;
-            if (node.getLens().get(i).isDataInMem()) {
-                rhs = new Register();
-                currentBB.addTail(new Move(currentBB, rhs, false, parameterList.get(i), node.getLens().get(i).isDataInMem()));
+            if (isDataInMem(node.getLens().get(i))) {
+                rhs = new Register(irProgram);
+                currentBB.addTail(new Move(currentBB, rhs, false, parameterList.get(i), isDataInMem(node.getLens().get(i))));
             } else {
                 rhs = parameterList.get(i);
             }
             currentBB.addTail(new Move(currentBB, iter, true, rhs, false));
         }
 
-        Register ret = new Register();
+        Register ret = new Register(irProgram);
         Call.Builder malloc = new Call.Builder();
         malloc.setBasicBlock(currentBB);
         malloc.setProcessedName("newArray");
@@ -1006,20 +1145,20 @@ public class IRInstructionBuilder implements IASTVistor {
         malloc.setRet(ret);
         currentBB.addTail(malloc.build());
 
-        node.setRegister(ret);
+        setRegister(node, ret);
     }
 
     @Override
     public void visit(NewNonArray node) {
         // ignoring the paramters
-        Register ret = new Register();
+        Register ret = new Register(irProgram);
 
         Call.Builder builder = new Call.Builder();
         builder.setBasicBlock(currentBB);
         builder.setProcessedName("_malloc");
         builder.setRet(ret);
 
-        Register lenRegister = new Register();
+        Register lenRegister = new Register(irProgram);
         Integer len;
         switch (node.getType().getBaseType()) {
             case "int":
@@ -1030,14 +1169,14 @@ public class IRInstructionBuilder implements IASTVistor {
                 len = 8; // FIXME
                 break;
             default:
-                len = irProgram.getIRClass(node.getType().getBaseType()).getSize();
+                len = node.getType().getClassSymbol().getIRClass().getSize();
         }
         currentBB.addTail(new MoveU(currentBB, lenRegister, new Immediate(len)));
         builder.addArgs(lenRegister);
 
         currentBB.addTail(builder.build());
 
-        node.setRegister(ret);
+        setRegister(node, ret);
 
         String processedName = null;
         switch (node.getType().getBaseType()) {
@@ -1069,36 +1208,42 @@ public class IRInstructionBuilder implements IASTVistor {
 
     @Override
     public void visit(BoolConst node) {
-        Register boolVar = new Register();
+        Register boolVar = new Register(irProgram);
         currentBB.addTail(new MoveU(currentBB, boolVar,  new Immediate(node.getValue() ? 1 : 0)));
-        node.setRegister(boolVar);
+        setRegister(node, boolVar);
     }
 
     @Override
     public void visit(NumConst node) {
-        Register constVar = new Register();
+        Register constVar = new Register(irProgram);
         currentBB.addTail(new MoveU(currentBB, constVar, new Immediate(node.getNum())));
-        node.setRegister(constVar);
+        setRegister(node, constVar);
     }
 
     @Override
     public void visit(StrConst node) {
-        StaticData stringData = irProgram.getStaticString(node.getStr());
-        if (stringData == null) {
-            stringData = new StaticData(new Label(node.getStr()), node.getStr());
-            irProgram.putStaticString(node.getStr(), stringData);
-        }
-        Register constVar = new Register();
+        StaticData stringData = getStaticString(node.getStr());
+        Register constVar = new Register(irProgram);
         currentBB.addTail(new MoveU(currentBB, constVar, stringData.getLabel()));
-        node.setRegister(constVar);
-//        node.setDataInMem(true); // FIXME
+        setRegister(node, constVar);
+//        setDataInMem(node, true); // FIXME
     }
 
     @Override
     public void visit(NullConst node) {
-        Register constVar = new Register();
+        Register constVar = new Register(irProgram);
         currentBB.addTail(new MoveU(currentBB, constVar, new Immediate(0)));
-        node.setRegister(constVar);
+        setRegister(node, constVar);
+    }
+
+    private StaticData getStaticString(String str) {
+        currentFunction.addStaticString(str);
+        StaticData stringData = irProgram.getStaticString(str);
+        if (stringData == null) {
+            stringData = new StaticData(new Label(irProgram, str), str);
+            irProgram.putStaticString(str, stringData);
+        }
+        return stringData;
     }
 
     private boolean isLogicalExpr(AbstractExpr node){
@@ -0,0 +1,200 @@
+package Compiler2018.FrontEnd.Pratt;
+
+import Compiler2018.AST.ClassType;
+import Compiler2018.AST.Program;
+import Compiler2018.AST.TypeTable;
+import Compiler2018.BatchCompiler;
+import Compiler2018.FrontEnd.ASTBuilder;
+import Compiler2018.Parser.MLexer;
+import Compiler2018.Parser.MParser;
+import Compiler2018.WantonWind;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.IterativeParseTreeWalker;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Differential test of PrattLexer / PrattParser against MLexer / MParser / ASTBuilder.
+// For every program the two must agree on the tokens and on every field of the AST, positions included.
+// A program the ANTLR path reports an error for must be a PrattException, one it accepts should not be
+// (that only costs time, WantonWind then parses it again with ANTLR). Exits with 1 on any disagreement.
+//   java -cp lib/antlr-4.7.1-complete.jar:bin Compiler2018.FrontEnd.Pratt.ParserDiff idea/src/Compiler2018/Test/*
+public class ParserDiff {
+    private static class ErrorCounter extends BaseErrorListener {
+        private int count = 0;
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine,
+                                String msg, RecognitionException e) {
+            ++count;
+        }
+    }
+
+    private static String describe(List<String> tokens, int i) {
+        return i < tokens.size() ? tokens.get(i) : "nothing";
+    }
+
+    // null when the token streams agree
+    private static String compareTokens(String prog, PrattLexer prattLexer) {
+        MLexer lexer = new MLexer(CharStreams.fromString(prog));
+        lexer.removeErrorListeners();
+        List<String> antlr = new ArrayList<>();
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+            if (token.getChannel() == Token.DEFAULT_CHANNEL) {
+                antlr.add(token.getType() + " " + token.getLine() + ":" + token.getCharPositionInLine() + " " + token.getText());
+            }
+        }
+        List<String> pratt = new ArrayList<>();
+        for (int i = 0; i + 1 < prattLexer.size(); ++i) {
+            pratt.add(prattLexer.getType(i) + " " + prattLexer.getLine(i) + ":" + prattLexer.getColumn(i) + " " + prattLexer.getText(i));
+        }
+        for (int i = 0; i < Math.max(antlr.size(), pratt.size()); ++i) {
+            if (i >= antlr.size() || i >= pratt.size() || !antlr.get(i).equals(pratt.get(i))) {
+                return "token " + i + ": MLexer " + describe(antlr, i) + ", PrattLexer " + describe(pratt, i);
+            }
+        }
+        return null;
+    }
+
+    // the AST of the ANTLR path, null where it reports an error or throws
+    private static Program antlr(String prog) {
+        try {
+            return antlrOrThrow(prog);
+        } catch (RuntimeException e) {
+            return null;    // ASTBuilder on a NewError or a constant out of range, or MLexer reporting an error
+        }
+    }
+
+    private static Program antlrOrThrow(String prog) {
+        ErrorCounter errors = new ErrorCounter();
+        MLexer lexer = new MLexer(CharStreams.fromString(prog));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errors);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        MParser parser = new MParser(tokens);
+        parser.removeErrorListeners();
+        parser.addErrorListener(errors);
+
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        ParseTree tree;
+        try {
+            tree = parser.program();
+        } catch (ParseCancellationException e) {
+            tokens.seek(0);
+            parser.reset();
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            tree = parser.program();
+        }
+        if (errors.count > 0) {
+            return null;
+        }
+        ASTBuilder astBuilder = new ASTBuilder();
+        new IterativeParseTreeWalker().walk(astBuilder, tree);
+        return astBuilder.getProgram();
+    }
+
+    private static List<Field> fields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    // the path to the first difference, null when the two are the same tree
+    private static String compare(Object x, Object y, String path) throws IllegalAccessException {
+        if (x == null || y == null) {
+            return x == y ? null : path + ": " + x + " / " + y;
+        }
+        if (x.getClass() != y.getClass()) {
+            return path + ": " + x.getClass().getSimpleName() + " / " + y.getClass().getSimpleName();
+        }
+        if (x instanceof List) {
+            List<?> xs = (List<?>) x, ys = (List<?>) y;
+            if (xs.size() != ys.size()) {
+                return path + ": " + xs.size() + " / " + ys.size() + " elements";
+            }
+            for (int i = 0; i < xs.size(); ++i) {
+                String difference = compare(xs.get(i), ys.get(i), path + "[" + i + "]");
+                if (difference != null) {
+                    return difference;
+                }
+            }
+            return null;
+        }
+        if (x instanceof long[]) {  // positions
+            return Arrays.equals((long[]) x, (long[]) y) ? null : path + ": " + Arrays.toString((long[]) x) + " / "
+                    + Arrays.toString((long[]) y);
+        }
+        if (x instanceof TypeTable) {
+            return null;
+        }
+        if (x instanceof ClassType) {   // of two programs, so never the same one
+            return x.toString().equals(y.toString()) ? null : path + ": " + x + " / " + y;
+        }
+        if (x instanceof Enum || !x.getClass().getName().startsWith("Compiler2018.AST.")) {
+            return x.equals(y) ? null : path + ": " + x + " / " + y;
+        }
+        for (Field field : fields(x.getClass())) {
+            String difference = compare(field.get(x), field.get(y), path + "." + field.getName());
+            if (difference != null) {
+                return difference;
+            }
+        }
+        return null;
+    }
+
+    // null when the two front ends agree on the program
+    public static String check(String prog) throws IllegalAccessException {
+        Program expected = antlr(prog);
+        PrattLexer prattLexer;
+        Program actual;
+        try {
+            prattLexer = new PrattLexer(prog);
+            actual = PrattParser.parse(prog);
+        } catch (PrattException e) {
+            return expected == null ? null : "left to ANTLR: " + e.getMessage();
+        }
+        if (expected == null) {
+            return "accepted by PrattParser, rejected by ANTLR";
+        }
+        String difference = compareTokens(prog, prattLexer);
+        return difference != null ? difference : compare(expected, actual, "program");
+    }
+
+    public static void main(String[] args) throws IOException, IllegalAccessException {
+        int differ = 0, left = 0;
+        List<Path> inputs = BatchCompiler.collect(List.of(args));
+        for (Path input : inputs) {
+            String difference = check(WantonWind.readTestFile(input.toString()));
+            if (difference == null) {
+                continue;
+            }
+            System.out.println(input + ": " + difference);
+            if (difference.startsWith("left to ANTLR")) {
+                ++left;
+            } else {
+                ++differ;
+            }
+        }
+        System.out.println(inputs.size() + " programs, " + differ + " differ, " + left + " left to ANTLR");
+        if (differ > 0) {
+            System.exit(1);
+        }
+    }
+}
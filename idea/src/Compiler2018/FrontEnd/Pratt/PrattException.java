@@ -0,0 +1,10 @@
+package Compiler2018.FrontEnd.Pratt;
+
+// PrattLexer or PrattParser met something they leave to MLexer / MParser
+public class PrattException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public PrattException(String message) {
+        super(message);
+    }
+}
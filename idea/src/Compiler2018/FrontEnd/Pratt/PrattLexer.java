@@ -0,0 +1,246 @@
+package Compiler2018.FrontEnd.Pratt;
+
+import Compiler2018.Parser.MLexer;
+
+import java.util.Arrays;
+
+// Hand-written counterpart of MLexer, the whole program is cut into tokens up front.
+// Token types are the ones of MLexer, positions count lines and code points the same way.
+// Tokens are kept in parallel int arrays and their text is only cut out when asked for,
+// so there is no object per token. Whatever MLexer would complain about is a PrattException.
+public class PrattLexer {
+    private final String prog;
+    private int size = 0;
+    private int[] types = new int[256];
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    private int[] lines = new int[256];
+    private int[] columns = new int[256];
+
+    private int index = 0;
+    private int line = 1;
+    private int lineStart = 0;  // index of the first char of the line
+    private int lineShift = 0;  // surrogate pairs on the line so far, they are one column
+
+    public PrattLexer(String prog) {
+        this.prog = prog;
+        while (skip()) {
+            int start = index, startLine = line, startColumn = column();
+            add(next(), start, startLine, startColumn);
+        }
+        add(MLexer.EOF, index, line, column());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getType(int i) {
+        return types[i];
+    }
+
+    public int getLine(int i) {
+        return lines[i];
+    }
+
+    public int getColumn(int i) {
+        return columns[i];
+    }
+
+    public String getText(int i) {
+        return prog.substring(starts[i], ends[i]);
+    }
+
+    // of index, in code points
+    private int column() {
+        return index - lineStart - lineShift;
+    }
+
+    private void add(int type, int start, int line, int column) {
+        if (size == types.length) {
+            int length = 2 * size;
+            types = Arrays.copyOf(types, length);
+            starts = Arrays.copyOf(starts, length);
+            ends = Arrays.copyOf(ends, length);
+            lines = Arrays.copyOf(lines, length);
+            columns = Arrays.copyOf(columns, length);
+        }
+        types[size] = type;
+        starts[size] = start;
+        ends[size] = index;
+        lines[size] = line;
+        columns[size] = column;
+        ++size;
+    }
+
+    private PrattException error(String message) {
+        return new PrattException("Line " + line + " Column " + column() + ": " + message);
+    }
+
+    private char peek(int offset) {
+        return index + offset < prog.length() ? prog.charAt(index + offset) : '\0';
+    }
+
+    // one char of a string or a comment, which may be anything
+    private void consume() {
+        char c = prog.charAt(index++);
+        if (c == '\n') {
+            ++line;
+            lineStart = index;
+            lineShift = 0;
+        } else if (Character.isLowSurrogate(c) && index >= 2 && Character.isHighSurrogate(prog.charAt(index - 2))) {
+            ++lineShift;
+        }
+    }
+
+    // past white space and comments, false at the end of the program
+    private boolean skip() {
+        while (index < prog.length()) {
+            char c = prog.charAt(index);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                consume();
+            } else if (c == '/' && peek(1) == '/') {
+                while (index < prog.length() && prog.charAt(index) != '\n') {
+                    consume();
+                }
+                if (index == prog.length()) {
+                    throw error("line comment without '\\n'");
+                }
+                consume();
+            } else if (c == '/' && peek(1) == '*') {
+                int end = prog.indexOf("*/", index + 2);
+                if (end < 0) {
+                    throw error("unterminated block comment");
+                }
+                while (index < end + 2) {
+                    consume();
+                }
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private int next() {
+        char c = prog.charAt(index);
+        if (isLetter(c)) {
+            int start = index;
+            while (index < prog.length() && (isLetter(prog.charAt(index)) || isDigit(prog.charAt(index)) || prog.charAt(index) == '_')) {
+                ++index;
+            }
+            return keyword(start, index);
+        }
+        if (isDigit(c)) {
+            while (index < prog.length() && isDigit(prog.charAt(index))) {
+                ++index;
+            }
+            return MLexer.NumConst;
+        }
+        if (c == '"') {
+            return string();
+        }
+
+        ++index;
+        switch (c) {
+            case '+':
+                return twice('+', MLexer.AddAdd, MLexer.Add);
+            case '-':
+                return twice('-', MLexer.SubSub, MLexer.Sub);
+            case '*':
+                return MLexer.Mul;
+            case '/':
+                return MLexer.Div;
+            case '%':
+                return MLexer.Mod;
+            case '<':
+                return peek(0) == '=' ? skipOne(MLexer.LE) : twice('<', MLexer.LShift, MLexer.LT);
+            case '>':
+                return peek(0) == '=' ? skipOne(MLexer.GE) : twice('>', MLexer.RShift, MLexer.GT);
+            case '=':
+                return twice('=', MLexer.EQ, MLexer.Assign);
+            case '!':
+                return peek(0) == '=' ? skipOne(MLexer.NE) : MLexer.Not;
+            case '&':
+                return twice('&', MLexer.And, MLexer.BAnd);
+            case '|':
+                return twice('|', MLexer.Or, MLexer.BOr);
+            case '~':
+                return MLexer.BNot;
+            case '^':
+                return MLexer.BXor;
+            case ';':
+                return MLexer.Semi;
+            case ',':
+                return MLexer.Comma;
+            case '.':
+                return MLexer.Dot;
+            case '(':
+                return MLexer.LParen;
+            case ')':
+                return MLexer.RParen;
+            case '[':
+                return MLexer.LBracket;
+            case ']':
+                return MLexer.RBracket;
+            case '{':
+                return MLexer.LBrace;
+            case '}':
+                return MLexer.RBrace;
+            default:
+                --index;
+                throw error("token recognition error at: '" + c + "'");
+        }
+    }
+
+    private int skipOne(int type) {
+        ++index;
+        return type;
+    }
+
+    // the token of two c in a row, or the one of a single c
+    private int twice(char c, int doubled, int single) {
+        return peek(0) == c ? skipOne(doubled) : single;
+    }
+
+    // '"' ('\\'[btnr"\\] | .)*? '"', read as C reads it. MLexer takes a shorter token where an escaped quote
+    // leaves the string open up to the end, that is left to it.
+    private int string() {
+        consume();
+        while (index < prog.length()) {
+            char c = prog.charAt(index);
+            if (c == '"') {
+                consume();
+                return MLexer.StrConst;
+            }
+            if (c == '\\' && "btnr\"\\".indexOf(peek(1)) >= 0) {
+                consume();
+            }
+            consume();
+        }
+        throw error("unterminated string constant");
+    }
+
+    private static final String[] keywords = {"bool", "int", "string", "void", "if", "else", "for", "while",
+            "break", "continue", "return", "new", "class", "true", "false", "null"};
+    private static final int[] keywordTypes = {MLexer.Bool, MLexer.Int, MLexer.String, MLexer.Void, MLexer.If,
+            MLexer.Else, MLexer.For, MLexer.While, MLexer.Break, MLexer.Continue, MLexer.Return, MLexer.New,
+            MLexer.Class, MLexer.BoolConst, MLexer.BoolConst, MLexer.NullConst};
+
+    private int keyword(int start, int end) {
+        for (int i = 0; i < keywords.length; ++i) {
+            if (keywords[i].length() == end - start && prog.startsWith(keywords[i], start)) {
+                return keywordTypes[i];
+            }
+        }
+        return MLexer.Identifier;
+    }
+}
@@ -0,0 +1,616 @@
+package Compiler2018.FrontEnd.Pratt;
+
+import Compiler2018.AST.*;
+import Compiler2018.Parser.MLexer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Builds the AST straight from the tokens of PrattLexer, no parse tree in between.
+// Declarations and statements are parsed by recursive descent, expressions by precedence climbing
+// with the precedences of the generated MParser (not of M.g4, '&&' is left associative there).
+// The AST and every SourcePosition are the ones ASTBuilder makes from MParser. Whatever MParser would
+// reject, or ASTBuilder would throw on, is a PrattException, so the caller can leave it to them.
+public class PrattParser {
+    private final PrattLexer lexer;
+    private final TypeTable typeTable = new TypeTable();
+    private int index = 0;
+
+    public PrattParser(String prog) {
+        this.lexer = new PrattLexer(prog);
+    }
+
+    public static Program parse(String prog) {
+        return new PrattParser(prog).program();
+    }
+
+    // tokens
+
+    private int type() {
+        return lexer.getType(index);
+    }
+
+    private int type(int offset) {
+        return index + offset < lexer.size() ? lexer.getType(index + offset) : MLexer.EOF;
+    }
+
+    private boolean is(int type) {
+        return lexer.getType(index) == type;
+    }
+
+    private long position() {
+        return SourcePosition.of(lexer.getLine(index), lexer.getColumn(index));
+    }
+
+    private PrattException error() {
+        String text = is(MLexer.EOF) ? "<EOF>" : lexer.getText(index);
+        return new PrattException(SourcePosition.toString(position()) + ": unexpected '" + text + "'");
+    }
+
+    private void expect(int type) {
+        if (!is(type)) {
+            throw error();
+        }
+        ++index;
+    }
+
+    private String identifier() {
+        if (!is(MLexer.Identifier)) {
+            throw error();
+        }
+        return lexer.getText(index++);
+    }
+
+    // declarations
+
+    public Program program() {
+        Program.Builder builder = new Program.Builder(typeTable);
+        while (!is(MLexer.EOF)) {
+            if (is(MLexer.Class)) {
+                builder.addSection(classDeclaration());
+            } else if (isFunction()) {
+                builder.addSection(functionDeclaration());
+            } else {
+                builder.addSection(variableDeclarationStatement());
+            }
+        }
+        return builder.build();
+    }
+
+    private boolean isTypeStart(int type) {
+        return type == MLexer.Bool || type == MLexer.Int || type == MLexer.Void || type == MLexer.String
+                || type == MLexer.Identifier;
+    }
+
+    // classType Identifier '(', the brackets of the type skipped
+    private boolean isFunction() {
+        if (!isTypeStart(type())) {
+            return false;
+        }
+        int offset = 1;
+        while (type(offset) == MLexer.LBracket && type(offset + 1) == MLexer.RBracket) {
+            offset += 2;
+        }
+        return type(offset) == MLexer.Identifier && type(offset + 1) == MLexer.LParen;
+    }
+
+    private ClassDecl classDeclaration() {
+        expect(MLexer.Class);
+        ClassDecl.Builder builder = new ClassDecl.Builder();
+        builder.setName(identifier());
+        expect(MLexer.LBrace);
+        while (!is(MLexer.RBrace)) {
+            if (is(MLexer.Identifier) && type(1) == MLexer.LParen) {
+                builder.addItem(constructorDeclaration());
+            } else if (isFunction()) {
+                builder.addItem(new ClassFuncDecl(functionDeclaration()));
+            } else {
+                builder.addItem(new ClassVarDecl(variableDeclarationStatement()));
+            }
+        }
+        expect(MLexer.RBrace);
+        return builder.build();
+    }
+
+    private FuncDecl functionDeclaration() {
+        FuncDecl.Builder builder = new FuncDecl.Builder();
+        builder.setPosType(position());
+        builder.setType(classType());
+        builder.setPosName(position());
+        builder.setName(identifier());
+        expect(MLexer.LParen);
+        if (!is(MLexer.RParen)) {
+            builder.addParameter(variableDeclaration());
+            while (is(MLexer.Comma)) {
+                ++index;
+                builder.addParameter(variableDeclaration());
+            }
+        }
+        expect(MLexer.RParen);
+        builder.setBlock(blockStatement());
+        return builder.build();
+    }
+
+    private ClassCstrDecl constructorDeclaration() {
+        ClassCstrDecl.Builder builder = new ClassCstrDecl.Builder();
+        builder.setName(identifier());
+        expect(MLexer.LParen);
+        if (!is(MLexer.RParen)) {
+            builder.addParameter(variableDeclaration());
+            while (is(MLexer.Comma)) {
+                ++index;
+                builder.addParameter(variableDeclaration());
+            }
+        }
+        expect(MLexer.RParen);
+        builder.setBlock(blockStatement());
+        return builder.build();
+    }
+
+    private VarDecl variableDeclaration() {
+        long posType = position();
+        ClassType type = classType();
+        long posName = position();
+        String name = identifier();
+        AbstractExpr init = null;
+        long posInit = SourcePosition.none;
+        if (is(MLexer.Assign)) {
+            ++index;
+            posInit = position();
+            init = expression();
+        }
+        return new VarDecl(type, name, init, posType, posName, posInit);
+    }
+
+    private VarDecl variableDeclarationStatement() {
+        VarDecl decl = variableDeclaration();
+        expect(MLexer.Semi);
+        return decl;
+    }
+
+    private ClassType nonArrayClass() {
+        if (!isTypeStart(type())) {
+            throw error();
+        }
+        return typeTable.get(lexer.getText(index++), 0);
+    }
+
+    private ClassType classType() {
+        ClassType type = nonArrayClass();
+        int dim = 0;
+        while (is(MLexer.LBracket)) {
+            expect(MLexer.LBracket);
+            expect(MLexer.RBracket);
+            ++dim;
+        }
+        return type.withDim(dim);
+    }
+
+    // statements
+
+    private BlockStmt blockStatement() {
+        expect(MLexer.LBrace);
+        BlockStmt.Builder builder = new BlockStmt.Builder();
+        while (!is(MLexer.RBrace)) {
+            builder.addStmt(statement());
+        }
+        expect(MLexer.RBrace);
+        return builder.build();
+    }
+
+    // a type is a keyword, or an Identifier followed by another one or by '[' ']', no expression goes on like that
+    private boolean isVariableDeclaration() {
+        switch (type()) {
+            case MLexer.Bool:
+            case MLexer.Int:
+            case MLexer.Void:
+            case MLexer.String:
+                return true;
+            case MLexer.Identifier:
+                return type(1) == MLexer.Identifier || (type(1) == MLexer.LBracket && type(2) == MLexer.RBracket);
+            default:
+                return false;
+        }
+    }
+
+    private AbstractStmt statement() {
+        long position = position();
+        switch (type()) {
+            case MLexer.LBrace:
+                return blockStatement();
+            case MLexer.If: {
+                ++index;
+                expect(MLexer.LParen);
+                AbstractExpr cond = expression();
+                expect(MLexer.RParen);
+                AbstractStmt ifStmt = statement();
+                AbstractStmt elseStmt = null;
+                if (is(MLexer.Else)) {  // the nearest if takes it
+                    ++index;
+                    elseStmt = statement();
+                }
+                return new BranchStmt(cond, ifStmt, elseStmt, position);
+            }
+            case MLexer.For: {
+                ++index;
+                expect(MLexer.LParen);
+                long posInit = is(MLexer.Semi) ? SourcePosition.none : position();
+                AbstractExpr init = posInit == SourcePosition.none ? null : expression();
+                expect(MLexer.Semi);
+                long posCond = is(MLexer.Semi) ? SourcePosition.none : position();
+                AbstractExpr cond = posCond == SourcePosition.none ? null : expression();
+                expect(MLexer.Semi);
+                long posStep = is(MLexer.RParen) ? SourcePosition.none : position();
+                AbstractExpr step = posStep == SourcePosition.none ? null : expression();
+                expect(MLexer.RParen);
+                return new ForStmt(init, cond, step, statement(), posInit, posCond, posStep);
+            }
+            case MLexer.While: {
+                ++index;
+                expect(MLexer.LParen);
+                long posCond = position();
+                AbstractExpr cond = expression();
+                expect(MLexer.RParen);
+                return new WhileStmt(cond, statement(), posCond);
+            }
+            case MLexer.Return: {
+                ++index;
+                AbstractExpr expr = is(MLexer.Semi) ? null : expression();
+                expect(MLexer.Semi);
+                return new ReturnStmt(expr, position);
+            }
+            case MLexer.Break:
+                ++index;
+                expect(MLexer.Semi);
+                return new BreakStmt(position);
+            case MLexer.Continue:
+                ++index;
+                expect(MLexer.Semi);
+                return new ContinueStmt(position);
+            case MLexer.Semi:
+                ++index;
+                return new EmptyStmt();
+            default:
+                if (isVariableDeclaration()) {
+                    return new VarDeclStmt(variableDeclarationStatement());
+                }
+                AbstractExpr expr = expression();
+                expect(MLexer.Semi);
+                return new ExprStmt(expr, position);
+        }
+    }
+
+    // expressions
+
+    // precedence of a binary operator in MParser, 0 for a token that is none
+    private static int precedence(int type) {
+        switch (type) {
+            case MLexer.Mul:
+            case MLexer.Div:
+            case MLexer.Mod:
+                return 14;
+            case MLexer.Add:
+            case MLexer.Sub:
+                return 13;
+            case MLexer.LShift:
+            case MLexer.RShift:
+                return 12;
+            case MLexer.LT:
+            case MLexer.LE:
+            case MLexer.GT:
+            case MLexer.GE:
+                return 11;
+            case MLexer.EQ:
+            case MLexer.NE:
+                return 10;
+            case MLexer.BAnd:
+                return 9;
+            case MLexer.BXor:
+                return 8;
+            case MLexer.BOr:
+                return 7;
+            case MLexer.And:
+                return 6;
+            case MLexer.Or:
+                return 5;
+            case MLexer.Assign:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    private static BinaryExpr.BinaryOp binaryOp(int type) {
+        switch (type) {
+            case MLexer.Mul:
+                return BinaryExpr.BinaryOp.MUL;
+            case MLexer.Div:
+                return BinaryExpr.BinaryOp.DIV;
+            case MLexer.Mod:
+                return BinaryExpr.BinaryOp.MOD;
+            case MLexer.Add:
+                return BinaryExpr.BinaryOp.ADD;
+            case MLexer.Sub:
+                return BinaryExpr.BinaryOp.SUB;
+            case MLexer.LShift:
+                return BinaryExpr.BinaryOp.LEFT_SHIFT;
+            case MLexer.RShift:
+                return BinaryExpr.BinaryOp.RIGHT_SHIFT;
+            case MLexer.EQ:
+                return BinaryExpr.BinaryOp.EQ;
+            case MLexer.NE:
+                return BinaryExpr.BinaryOp.NE;
+            case MLexer.LT:
+                return BinaryExpr.BinaryOp.LT;
+            case MLexer.GT:
+                return BinaryExpr.BinaryOp.GT;
+            case MLexer.LE:
+                return BinaryExpr.BinaryOp.LE;
+            case MLexer.GE:
+                return BinaryExpr.BinaryOp.GE;
+            case MLexer.BOr:
+                return BinaryExpr.BinaryOp.BITWISE_OR;
+            case MLexer.BAnd:
+                return BinaryExpr.BinaryOp.BITWISE_AND;
+            case MLexer.BXor:
+                return BinaryExpr.BinaryOp.XOR;
+            case MLexer.Or:
+                return BinaryExpr.BinaryOp.LOGICAL_OR;
+            case MLexer.And:
+                return BinaryExpr.BinaryOp.LOGICAL_AND;
+            case MLexer.Assign:
+                return BinaryExpr.BinaryOp.ASSIGN;
+            default:
+                throw new RuntimeException("Unknown Operation");
+        }
+    }
+
+    // an operand and its operator, waiting for the right operand
+    private static class Pending {
+        private final AbstractExpr lhs;
+        private final long posLhs;
+        private final BinaryExpr.BinaryOp op;
+        private final int precedence;
+        private final long posOp;
+
+        private Pending(AbstractExpr lhs, long posLhs, BinaryExpr.BinaryOp op, int precedence, long posOp) {
+            this.lhs = lhs;
+            this.posLhs = posLhs;
+            this.op = op;
+            this.precedence = precedence;
+            this.posOp = posOp;
+        }
+    }
+
+    // a '(' whose expression is being read, with the prefix operators in front of it
+    private static class Paren {
+        private final int pendingSize;  // of the operators before it, they wait for its ')'
+        private final List<UnaryExpr.UnaryOp> ops;
+        private final List<Long> posExprs;
+        private final long posOperand;  // of its first prefix operator, or of itself
+        private final long posParen;
+
+        private Paren(int pendingSize, List<UnaryExpr.UnaryOp> ops, List<Long> posExprs, long posOperand, long posParen) {
+            this.pendingSize = pendingSize;
+            this.ops = ops;
+            this.posExprs = posExprs;
+            this.posOperand = posOperand;
+            this.posParen = posParen;
+        }
+    }
+
+    // precedence climbing as MParser's expression(_p), on stacks of its own rather than the JVM's:
+    // a machine-made a = a = ... = 1, or as many nested parentheses, would need a frame per operator.
+    // Every binary operator but '=' is left associative, an operator is applied once the one after it
+    // binds no tighter, '=' only once the one after it binds looser.
+    private AbstractExpr expression() {
+        Deque<Pending> pending = new ArrayDeque<>();
+        Deque<Paren> parens = new ArrayDeque<>();
+        while (true) {
+            // an operand, prefix operators in front of a '(' wait for its ')'
+            long posOperand = position();
+            List<UnaryExpr.UnaryOp> ops = new ArrayList<>();
+            List<Long> posExprs = new ArrayList<>();
+            prefixOps(ops, posExprs);
+            if (is(MLexer.LParen)) {
+                parens.push(new Paren(pending.size(), ops, posExprs, posOperand, position()));
+                ++index;
+                continue;
+            }
+            long posExpr = position();
+            AbstractExpr expr = unary(ops, posExprs, postfix(primary(), posExpr));
+
+            // the operators after it, and the ')' that close parentheses
+            while (true) {
+                int precedence = precedence(type());
+                int base = parens.isEmpty() ? 0 : parens.peek().pendingSize;
+                while (pending.size() > base && (pending.peek().precedence > precedence
+                        || pending.peek().precedence == precedence && !is(MLexer.Assign))) {
+                    Pending top = pending.pop();
+                    expr = new BinaryExpr(top.op, top.lhs, expr, top.posOp, top.posLhs, posOperand);
+                    posOperand = top.posLhs;
+                }
+                if (precedence > 0) {
+                    pending.push(new Pending(expr, posOperand, binaryOp(type()), precedence, position()));
+                    ++index;
+                    break;
+                }
+                if (parens.isEmpty()) {
+                    return expr;
+                }
+                expect(MLexer.RParen);
+                Paren paren = parens.pop();
+                expr = unary(paren.ops, paren.posExprs, postfix(expr, paren.posParen));
+                posOperand = paren.posOperand;
+            }
+        }
+    }
+
+    // a run of prefix operators, they bind tighter than every binary operator
+    private void prefixOps(List<UnaryExpr.UnaryOp> ops, List<Long> posExprs) {
+        while (true) {
+            UnaryExpr.UnaryOp op = prefixOp(type());
+            if (op == null) {
+                return;
+            }
+            ++index;
+            ops.add(op);
+            posExprs.add(position());
+        }
+    }
+
+    // prefix operators take a postfix expression, they are applied from the innermost out
+    private static AbstractExpr unary(List<UnaryExpr.UnaryOp> ops, List<Long> posExprs, AbstractExpr expr) {
+        for (int i = ops.size() - 1; i >= 0; --i) {
+            expr = new UnaryExpr(ops.get(i), expr, posExprs.get(i));
+        }
+        return expr;
+    }
+
+    private static UnaryExpr.UnaryOp prefixOp(int type) {
+        switch (type) {
+            case MLexer.AddAdd:
+                return UnaryExpr.UnaryOp.PREFIX_INC;
+            case MLexer.SubSub:
+                return UnaryExpr.UnaryOp.PREFIX_DEC;
+            case MLexer.Add:
+                return UnaryExpr.UnaryOp.POS;
+            case MLexer.Sub:
+                return UnaryExpr.UnaryOp.NEG;
+            case MLexer.Not:
+                return UnaryExpr.UnaryOp.LOGICAL_NOT;
+            case MLexer.BNot:
+                return UnaryExpr.UnaryOp.BITWISE_NOT;
+            default:
+                return null;
+        }
+    }
+
+    // the postfix operators after expr, posExpr is where it starts
+    private AbstractExpr postfix(AbstractExpr expr, long posExpr) {
+        while (true) {
+            switch (type()) {
+                case MLexer.AddAdd:
+                    ++index;
+                    expr = new UnaryExpr(UnaryExpr.UnaryOp.POSTFIX_INC, expr, posExpr);
+                    break;
+                case MLexer.SubSub:
+                    ++index;
+                    expr = new UnaryExpr(UnaryExpr.UnaryOp.POSTFIX_DEC, expr, posExpr);
+                    break;
+                case MLexer.LParen: {
+                    ++index;
+                    FunctionCall.Builder builder = new FunctionCall.Builder();
+                    builder.setName(expr);
+                    builder.setPosName(posExpr);
+                    if (!is(MLexer.RParen)) {
+                        callParameter(builder);
+                        while (is(MLexer.Comma)) {
+                            ++index;
+                            callParameter(builder);
+                        }
+                    }
+                    expect(MLexer.RParen);
+                    expr = builder.build();
+                    break;
+                }
+                case MLexer.LBracket: {
+                    ++index;
+                    long posSubscript = position();
+                    AbstractExpr subscript = expression();
+                    expect(MLexer.RBracket);
+                    expr = new ArrayAcess(expr, subscript, posExpr, posSubscript);
+                    break;
+                }
+                case MLexer.Dot: {
+                    ++index;
+                    long posName = position();
+                    expr = new MemberAcess(expr, identifier(), posExpr, posName);
+                    break;
+                }
+                default:
+                    return expr;
+            }
+        }
+    }
+
+    private void callParameter(FunctionCall.Builder builder) {
+        builder.addPosParameter(position());
+        builder.addParameter(expression());
+    }
+
+    private AbstractExpr primary() {
+        switch (type()) {
+            case MLexer.Identifier:
+                return new Identifier(lexer.getText(index++));
+            case MLexer.NumConst: {
+                Integer num;
+                try {
+                    num = Integer.valueOf(lexer.getText(index));
+                } catch (NumberFormatException e) {
+                    throw new PrattException(SourcePosition.toString(position()) + ": integer constant out of range");
+                }
+                ++index;
+                return new NumConst(num);
+            }
+            case MLexer.StrConst: {
+                String text = lexer.getText(index++);
+                return new StrConst(text.substring(1, text.length() - 1));
+            }
+            case MLexer.BoolConst:
+                return new BoolConst(lexer.getText(index++).equals("true"));
+            case MLexer.NullConst:
+                ++index;
+                return new NullConst();
+            case MLexer.New: {
+                ++index;
+                long posNewObject = position();
+                return new NewExpr(newObject(), posNewObject);
+            }
+            default:
+                throw error();
+        }
+    }
+
+    // '[' expression ']' as long as there are any, then '[' ']', then nothing that could index the array.
+    // MParser takes '[' expression ']' after the brackets as a NewError, ASTBuilder throws on it.
+    private AbstractNewObject newObject() {
+        ClassType type = nonArrayClass();
+        if (is(MLexer.LBracket) && type(1) != MLexer.RBracket) {
+            NewArray.Builder builder = new NewArray.Builder();
+            int dim = 0;
+            while (is(MLexer.LBracket) && type(1) != MLexer.RBracket) {
+                ++index;
+                builder.addLens(expression());
+                expect(MLexer.RBracket);
+                ++dim;
+            }
+            while (is(MLexer.LBracket) && type(1) == MLexer.RBracket) {
+                index += 2;
+                ++dim;
+            }
+            if (is(MLexer.LBracket)) {
+                throw new PrattException(SourcePosition.toString(position()) + ": New Expr Error");
+            }
+            builder.setType(type.withDim(dim));
+            return builder.build();
+        }
+
+        NewNonArray.Builder builder = new NewNonArray.Builder();
+        builder.setType(type);
+        if (is(MLexer.LParen)) {
+            ++index;
+            if (!is(MLexer.RParen)) {
+                builder.addParameter(expression());
+                while (is(MLexer.Comma)) {
+                    ++index;
+                    builder.addParameter(expression());
+                }
+            }
+            expect(MLexer.RParen);
+        }
+        return builder.build();
+    }
+}
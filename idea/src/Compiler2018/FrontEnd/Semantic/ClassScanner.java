@@ -8,6 +8,7 @@ import Compiler2018.Symbol.TopTable;
 
 public class ClassScanner implements IASTVistor {
     private TopTable topTable;
+    private TypeTable typeTable;
 
     public ClassScanner(TopTable topTable) {
         this.topTable = topTable;
@@ -15,11 +16,12 @@ public class ClassScanner implements IASTVistor {
 
     @Override
     public void visit(Program node) {
+        typeTable = node.getTypeTable();
         // add primitive type
-        topTable.addMyClass("int", new ClassSymbol(topTable,"int", new ClassTable(topTable, "int")));
-        topTable.addMyClass("bool", new ClassSymbol(topTable,"bool", new ClassTable(topTable, "bool")));
-        topTable.addMyClass("void", new ClassSymbol(topTable,"void", new ClassTable(topTable, "void")));
-        topTable.addMyClass("string", new ClassSymbol(topTable,"string", new ClassTable(topTable, "string")));
+        addMyClass("int");
+        addMyClass("bool");
+        addMyClass("void");
+        addMyClass("string");
 
         node.getSections().forEach(x -> x.accept(this));
     }
@@ -32,7 +34,13 @@ public class ClassScanner implements IASTVistor {
         if (topTable.getMyClass(node.getName()) != null) {
             throw new RuntimeException("IRClass is previously declared.");
         }
-        topTable.addMyClass(node.getName(), new ClassSymbol(topTable, node.getName(), new ClassTable(topTable, node.getName())));
+        addMyClass(node.getName());
+    }
+
+    private void addMyClass(String name) {
+        ClassSymbol classSymbol = new ClassSymbol(topTable, name, new ClassTable(topTable, name));
+        topTable.addMyClass(name, classSymbol);
+        typeTable.declare(classSymbol);
     }
 
     @Override
@@ -9,6 +9,7 @@ import java.util.Stack;
 public class ClassVarScanner implements IASTVistor {
     private final TopTable topTable;
     private final Stack<AbstractSymbolTable> currentTable = new Stack<>();
+    private ClassType voidType;
 
     public ClassVarScanner(TopTable topTable) {
         this.topTable = topTable;
@@ -16,6 +17,7 @@ public class ClassVarScanner implements IASTVistor {
 
     @Override
     public void visit(Program node) {
+        voidType = node.getTypeTable().get("void", 0);
         currentTable.push(topTable);
         node.getSections().stream().filter(x -> x instanceof ClassDecl).forEach(x -> x.accept(this));
         currentTable.pop();
@@ -34,10 +36,10 @@ public class ClassVarScanner implements IASTVistor {
 
     @Override
     public void visit(VarDecl node) { // type
-        if (node.getType().getBaseType().equals("void")) {
+        if (node.getType().getBase() == voidType) {
             throw new RuntimeException("Void type should not be declared.");
         }
-        if (topTable.getMyClass(node.getType().getBaseType()) == null) {
+        if (node.getType().getClassSymbol() == null) {
             throw new RuntimeException("Undeclared class occurred.");
         }
         // name
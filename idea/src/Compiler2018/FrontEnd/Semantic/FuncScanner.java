@@ -10,6 +10,9 @@ public class FuncScanner implements IASTVistor {
     private final TopTable topTable;
     private final Stack<AbstractSymbolTable> currentTable = new Stack<>();
     private ClassSymbol classSymbol = null;
+    private ClassType intType;
+    private ClassType stringType;
+    private ClassType voidType;
 
     public FuncScanner(TopTable topTable) {
         this.topTable = topTable;
@@ -20,10 +23,10 @@ public class FuncScanner implements IASTVistor {
     private void addFuncPrint() {
         FuncSymbol.Builder builder = new FuncSymbol.Builder();
         builder.setBelongTable(topTable);
-        builder.setReturnType(new ClassType("void", 0));
+        builder.setReturnType(voidType);
         builder.setName("print");
         BlockTable table = new BlockTable(topTable, "");
-        builder.addParameter("str", new VarSymbol(table, new ClassType("string", 0), "str")); // setIRInfo ? FIXME
+        builder.addParameter("str", new VarSymbol(table, stringType, "str")); // setIRInfo ? FIXME
         builder.setBlockTable(table);
         topTable.addFunc("print", builder.build());
     }
@@ -31,10 +34,10 @@ public class FuncScanner implements IASTVistor {
     private void addFuncPrintln() {
         FuncSymbol.Builder builder = new FuncSymbol.Builder();
         builder.setBelongTable(topTable);
-        builder.setReturnType(new ClassType("void", 0));
+        builder.setReturnType(voidType);
         builder.setName("println");
         BlockTable table = new BlockTable(topTable, "");
-        builder.addParameter("str", new VarSymbol(table, new ClassType("string", 0), "str")); // setIRInfo ? FIXME
+        builder.addParameter("str", new VarSymbol(table, stringType, "str")); // setIRInfo ? FIXME
         builder.setBlockTable(table);
         topTable.addFunc("println", builder.build());
     }
@@ -42,7 +45,7 @@ public class FuncScanner implements IASTVistor {
     private void addFuncGetString() {
         FuncSymbol.Builder builder = new FuncSymbol.Builder();
         builder.setBelongTable(topTable);
-        builder.setReturnType(new ClassType("string", 0));
+        builder.setReturnType(stringType);
         builder.setName("getString");
         builder.setBlockTable(new BlockTable(topTable, ""));
         topTable.addFunc("getString", builder.build());
@@ -51,7 +54,7 @@ public class FuncScanner implements IASTVistor {
     private void addFuncGetInt() {
         FuncSymbol.Builder builder = new FuncSymbol.Builder();
         builder.setBelongTable(topTable);
-        builder.setReturnType(new ClassType("int", 0));
+        builder.setReturnType(intType);
         builder.setName("getInt");
         builder.setBlockTable(new BlockTable(topTable, ""));
         topTable.addFunc("getInt", builder.build());
@@ -60,10 +63,10 @@ public class FuncScanner implements IASTVistor {
     private void addFuncToString() {
         FuncSymbol.Builder builder = new FuncSymbol.Builder();
         builder.setBelongTable(topTable);
-        builder.setReturnType(new ClassType("string", 0));
+        builder.setReturnType(stringType);
         builder.setName("toString");
         BlockTable table = new BlockTable(topTable, "");
-        builder.addParameter("i", new VarSymbol(table, new ClassType("int", 0), "i")); // setIRInfo ? FIXME
+        builder.addParameter("i", new VarSymbol(table, intType, "i")); // setIRInfo ? FIXME
         builder.setBlockTable(table);
         topTable.addFunc("toString", builder.build());
     }
@@ -72,7 +75,7 @@ public class FuncScanner implements IASTVistor {
     private void addFuncLength(AbstractSymbolTable stringInClassTable) {
         FuncSymbol.Builder builder = new FuncSymbol.Builder();
         builder.setBelongTable(stringInClassTable);
-        builder.setReturnType(new ClassType("int", 0));
+        builder.setReturnType(intType);
         builder.setName("length");
         BlockTable table = new BlockTable(stringInClassTable, "");
 //        builder.addParameter("this", new VarSymbol(table, new ClassType("string", 0), "this"));
@@ -83,12 +86,12 @@ public class FuncScanner implements IASTVistor {
     private void addFuncSubstring(AbstractSymbolTable stringInClassTable) {
         FuncSymbol.Builder builder = new FuncSymbol.Builder();
         builder.setBelongTable(stringInClassTable);
-        builder.setReturnType(new ClassType("string", 0));
+        builder.setReturnType(stringType);
         builder.setName("substring");
         BlockTable table = new BlockTable(stringInClassTable, "");
 //        builder.addParameter("this", new VarSymbol(table, new ClassType("string", 0), "this"));
-        builder.addParameter("left", new VarSymbol(table, new ClassType("int", 0), "left")); // setIRInfo ? FIXME
-        builder.addParameter("right", new VarSymbol(table, new ClassType("int", 0), "right")); // setIRInfo ? FIXME
+        builder.addParameter("left", new VarSymbol(table, intType, "left")); // setIRInfo ? FIXME
+        builder.addParameter("right", new VarSymbol(table, intType, "right")); // setIRInfo ? FIXME
         builder.setBlockTable(table);
         stringInClassTable.addFunc("substring", builder.build());
     }
@@ -96,7 +99,7 @@ public class FuncScanner implements IASTVistor {
     private void addFuncParseInt(AbstractSymbolTable stringInClassTable) {
         FuncSymbol.Builder builder = new FuncSymbol.Builder();
         builder.setBelongTable(stringInClassTable);
-        builder.setReturnType(new ClassType("int", 0));
+        builder.setReturnType(intType);
         builder.setName("parseInt");
         builder.setBlockTable(new BlockTable(stringInClassTable, ""));
         stringInClassTable.addFunc("parseInt", builder.build());
@@ -105,16 +108,19 @@ public class FuncScanner implements IASTVistor {
     private void addFuncOrd(AbstractSymbolTable stringInClassTable) {
         FuncSymbol.Builder builder = new FuncSymbol.Builder();
         builder.setBelongTable(stringInClassTable);
-        builder.setReturnType(new ClassType("int", 0));
+        builder.setReturnType(intType);
         builder.setName("ord");
         BlockTable table = new BlockTable(stringInClassTable, "");
-        builder.addParameter("pos", new VarSymbol(table, new ClassType("int", 0), "pos")); // setIRInfo ? FIXME
+        builder.addParameter("pos", new VarSymbol(table, intType, "pos")); // setIRInfo ? FIXME
         builder.setBlockTable(table);
         stringInClassTable.addFunc("ord", builder.build());
     }
 
     @Override
     public void visit(Program node) {
+        intType = node.getTypeTable().get("int", 0);
+        stringType = node.getTypeTable().get("string", 0);
+        voidType = node.getTypeTable().get("void", 0);
         // built-in function
         addFuncPrint();
         addFuncPrintln();
@@ -136,7 +142,7 @@ public class FuncScanner implements IASTVistor {
         if (topTable.getFunc("main") == null) {
             throw new RuntimeException("main() required.");
         }
-        if (!topTable.getFunc("main").getReturnType().equals(new ClassType("int", 0))) {
+        if (topTable.getFunc("main").getReturnType() != intType) {
             throw new RuntimeException("main() should return int.");
         }
         if (topTable.getFunc("main").getIntParameters().size() != 0) {
@@ -170,12 +176,12 @@ public class FuncScanner implements IASTVistor {
         node.getParameters()
                 .forEach(
                         x -> {
-                            if (topTable.getMyClass(x.getType().getBaseType()) == null) {
+                            if (x.getType().getClassSymbol() == null) {
                                 throw new RuntimeException("Undeclared class occurred.");
                             }
                         });
         // returnType
-        if (topTable.getMyClass(node.getReturnType().getBaseType()) == null) {
+        if (node.getReturnType().getClassSymbol() == null) {
             throw new RuntimeException("Undeclared class occurred.");
         }
 
@@ -209,7 +215,7 @@ public class FuncScanner implements IASTVistor {
         node.getParameters()
                 .forEach(
                         x -> {
-                            if (topTable.getMyClass(x.getType().getBaseType()) == null) {
+                            if (x.getType().getClassSymbol() == null) {
                                 throw new RuntimeException("Undeclared class occurred.");
                             }
                         });
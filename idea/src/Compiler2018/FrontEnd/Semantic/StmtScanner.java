@@ -4,67 +4,192 @@ import Compiler2018.AST.*;
 import Compiler2018.FrontEnd.IASTVistor;
 import Compiler2018.Symbol.*;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Stack;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class StmtScanner implements IASTVistor {
     private final TopTable topTable;
+    private final ForkJoinPool pool;    // checks the function bodies in parallel when set
+    private final Map<VarSymbol, Integer> globalSections;   // section of every global, null when checking in order
+    private final int section;          // being checked, a global of a later one is not declared yet
     private final Stack<AbstractSymbolTable> currentTable = new Stack<>();
+    private final ScopedTable scopedTable = new ScopedTable();  // what an Identifier resolves to
     private Integer loopScopeCount = 0;
     private CstrSymbol cstrSymbol = null;
     private FuncSymbol funcSymbol = null;
     private ClassSymbol classSymbol = null;
     private boolean blockScopePushed = false;
-    private List<String> primitiveType = new LinkedList<>();
-
-    private void addPrimitiveType() {
-        primitiveType.add("int");
-        primitiveType.add("string");
-        primitiveType.add("bool");
-        primitiveType.add("void");
+    private TypeTable typeTable;
+    private ClassType intType;
+    private ClassType boolType;
+    private ClassType stringType;
+    private ClassType voidType;
+    private ClassType nullType;
+    private List<ClassType> primitiveType = new ArrayList<>();
+
+    private void setTypes(TypeTable typeTable) {
+        this.typeTable = typeTable;
+        intType = typeTable.get("int", 0);
+        boolType = typeTable.get("bool", 0);
+        stringType = typeTable.get("string", 0);
+        voidType = typeTable.get("void", 0);
+        nullType = typeTable.get("null", 0);
+        primitiveType.add(intType);
+        primitiveType.add(stringType);
+        primitiveType.add(boolType);
+        primitiveType.add(voidType);
     }
 
     public StmtScanner(TopTable topTable) {
+        this(topTable, null);
+    }
+
+    public StmtScanner(TopTable topTable, ForkJoinPool pool) {
+        this(topTable, pool, null, 0);
+    }
+
+    private StmtScanner(TopTable topTable, ForkJoinPool pool, Map<VarSymbol, Integer> globalSections, int section) {
         this.topTable = topTable;
+        this.pool = pool;
+        this.globalSections = globalSections;
+        this.section = section;
     }
 
     @Override
     public void visit(Program node) {
-        addPrimitiveType();
+        setTypes(node.getTypeTable());
+
+        pushTable(topTable, false);
+        if (pool == null) {
+            node.getSections().forEach(x -> x.accept(this));
+        } else {
+            checkInParallel(node.getSections());
+        }
+        popTable();
+    }
+
+    // Opens the scope of table with what it holds already: the parameters of a function, the members of a class,
+    // and for a body checked on its own the globals before it. A function is bound last, so it wins over
+    // a variable of its name as it did looking the tables up. The scanner declaring the variables places them.
+    private void pushTable(AbstractSymbolTable table, boolean place) {
+        currentTable.push(table);
+        scopedTable.openScope();
+        table.getVarMap().forEach((x, y) -> {
+            if (globalSections == null || globalSections.getOrDefault(y, -1) < section) {
+                int slot = scopedTable.declare(x, y);
+                if (place) {
+                    y.setCoordinate(scopedTable.getDepth(), slot);
+                }
+            }
+        });
+        table.getFuncMap().forEach(scopedTable::declare);
+    }
 
-        currentTable.push(topTable);
-        node.getSections().forEach(x -> x.accept(this));
+    private void popTable() {
+        scopedTable.closeScope();
         currentTable.pop();
     }
 
+    // Globals are checked in order, as they fill TopTable. Then every function body is checked on its own
+    // StmtScanner, they only read the global tables and write their own BlockTables. Of the errors found the
+    // one of the first body in the source is thrown, the one checking in order would have stopped at.
+    private void checkInParallel(List<AbstractDecl> sections) {
+        Map<VarSymbol, Integer> globalSections = new HashMap<>();
+        RuntimeException globalError = null;
+        int end = sections.size();  // bodies after a global in error are not checked
+        for (int i = 0; i < sections.size() && globalError == null; ++i) {
+            if (sections.get(i) instanceof VarDecl) {
+                VarDecl decl = (VarDecl) sections.get(i);
+                try {
+                    decl.accept(this);
+                    globalSections.put(decl.getVarSymbol(), i);
+                } catch (RuntimeException e) {
+                    globalError = e;
+                    end = i;
+                }
+            }
+        }
+
+        for (AbstractDecl decl : sections) {    // the members are shared by the bodies, placed here once
+            if (decl instanceof ClassDecl) {
+                pushTable(topTable.getMyClass(((ClassDecl) decl).getName()).getInClassTable(), true);
+                popTable();
+            }
+        }
+
+        List<ForkJoinTask<RuntimeException>> tasks = new ArrayList<>();  // in source order
+        for (int i = 0; i < end; ++i) {
+            AbstractDecl decl = sections.get(i);
+            if (decl instanceof FuncDecl) {
+                tasks.add(pool.submit(check(globalSections, i, null, decl)));
+            } else if (decl instanceof ClassDecl) {
+                ClassSymbol classSymbol = topTable.getMyClass(((ClassDecl) decl).getName());
+                for (AbstractClassItem item : ((ClassDecl) decl).getItems()) {
+                    if (!(item instanceof ClassVarDecl)) {
+                        tasks.add(pool.submit(check(globalSections, i, classSymbol, item)));
+                    }
+                }
+            }
+        }
+        for (ForkJoinTask<RuntimeException> task : tasks) {
+            RuntimeException error = task.join();
+            if (error != null) {
+                throw error;
+            }
+        }
+        if (globalError != null) {
+            throw globalError;
+        }
+    }
+
+    // the error checking node throws, null if there is none
+    private Callable<RuntimeException> check(Map<VarSymbol, Integer> globalSections, int section,
+                                             ClassSymbol classSymbol, AbstractASTNode node) {
+        return () -> {
+            StmtScanner scanner = new StmtScanner(topTable, null, globalSections, section);
+            scanner.setTypes(typeTable);
+            scanner.pushTable(topTable, false);
+            if (classSymbol != null) {
+                scanner.classSymbol = classSymbol;
+                scanner.pushTable(classSymbol.getInClassTable(), false);
+            }
+            try {
+                node.accept(scanner);
+                return null;
+            } catch (RuntimeException e) {
+                return e;
+            }
+        };
+    }
+
     @Override
     public void visit(ClassDecl node) {
         classSymbol = topTable.getMyClass(node.getName());
-        currentTable.push(topTable.getMyClass(node.getName()).getInClassTable());
+        pushTable(topTable.getMyClass(node.getName()).getInClassTable(), true);
         node.getItems().forEach(x -> x.accept(this));
-        currentTable.pop();
+        popTable();
         classSymbol = null;
     }
 
     @Override
     public void visit(FuncDecl node) {
         funcSymbol = currentTable.peek().getFunc(node.getName());
-        currentTable.push(currentTable.peek().getFunc(node.getName()).getBlockTable());
+        pushTable(currentTable.peek().getFunc(node.getName()).getBlockTable(), true);
         blockScopePushed = true;
         node.getBlock().accept(this);
-        currentTable.pop();
+        popTable();
         funcSymbol = null;
     }
 
     @Override
     public void visit(VarDecl node) {
         // type
-        if (node.getType().getBaseType().equals("void")) {
+        if (node.getType().getBase() == voidType) {
             throw new RuntimeException("Void type should not be declared.");
         }
-        if (topTable.getMyClass(node.getType().getBaseType()) == null) {
+        if (node.getType().getClassSymbol() == null) {
             throw new RuntimeException("Undeclared class occurred.");
         }
         // name
@@ -83,17 +208,18 @@ public class StmtScanner implements IASTVistor {
         // init
         if (node.getInit() != null) {
             node.getInit().accept(this);
-            if (node.getInit().getType().getBaseType().equals("null")) {
-                if (node.getType().getDim() == 0 && primitiveType.contains(node.getType().getBaseType())) {
+            if (node.getInit().getType() == nullType) {
+                if (primitiveType.contains(node.getType())) {
                     throw new RuntimeException("null assignment error.");
                 }
-            } else if (!node.getType().equals(node.getInit().getType())) {
+            } else if (node.getType() != node.getInit().getType()) {
                 throw new RuntimeException("Init Type mismatch.");
             }
         }
         VarSymbol varSymbol = new VarSymbol(currentTable.peek(), node);
         node.setVarSymbol(varSymbol);
         currentTable.peek().addVar(node.getName(), varSymbol);
+        varSymbol.setCoordinate(scopedTable.getDepth(), scopedTable.declare(node.getName(), varSymbol));
     }
 
     @Override
@@ -105,12 +231,12 @@ public class StmtScanner implements IASTVistor {
         if (!classSymbol.getName().equals(node.getName())) {
             throw new RuntimeException("constructor name error.");
         }
-        currentTable.push(currentTable.peek().getCstr(node.getName()).getBlockTable());
+        pushTable(currentTable.peek().getCstr(node.getName()).getBlockTable(), true);
         cstrSymbol = classSymbol.getInClassTable().getCstr(node.getName());
         blockScopePushed = true;
         node.getBlock().accept(this);
         cstrSymbol = null;
-        currentTable.pop();
+        popTable();
     }
 
     @Override
@@ -122,13 +248,13 @@ public class StmtScanner implements IASTVistor {
     public void visit(BlockStmt node) {
         boolean selfBlock = false;
         if (!blockScopePushed) {
-            currentTable.push(new BlockTable(currentTable.peek(), "")); // FIXME
+            pushTable(new BlockTable(currentTable.peek(), ""), true); // FIXME
             selfBlock = true;
         }
         blockScopePushed = false;
         node.getStmts().forEach(x -> x.accept(this));
         if (selfBlock) {
-            currentTable.pop();
+            popTable();
         }
     }
 
@@ -140,20 +266,20 @@ public class StmtScanner implements IASTVistor {
     @Override
     public void visit(BranchStmt node) {
         node.getCond().accept(this);
-        currentTable.push(new BlockTable(currentTable.peek(), "")); // FIXME
+        pushTable(new BlockTable(currentTable.peek(), ""), true); // FIXME
         blockScopePushed = true;
         node.getIfStmt().accept(this);
         blockScopePushed = false; // if does not always enter a blockStmt, may be other stmt.
-        if (!node.getCond().getType().equals(new ClassType("bool", 0))) {
+        if (node.getCond().getType() != boolType) {
             throw new RuntimeException("bool required in IfStmt.");
         }
-        currentTable.pop();
+        popTable();
         if (node.getElseStmt() != null) {
-            currentTable.push(new BlockTable(currentTable.peek(), "")); // FIXME
+            pushTable(new BlockTable(currentTable.peek(), ""), true); // FIXME
             blockScopePushed = true;
             node.getElseStmt().accept(this);
             blockScopePushed = false; // else does not always enter a blockStmt, may be other stmt.
-            currentTable.pop();
+            popTable();
         }
     }
 
@@ -186,16 +312,15 @@ public class StmtScanner implements IASTVistor {
         // with returnExpr
         if (node.getExpr() != null) {
             node.getExpr().accept(this);
-            if (node.getExpr().getType().getBaseType().equals("null")) {
-                if (funcSymbol.getReturnType().getDim() == 0
-                        && primitiveType.contains(funcSymbol.getReturnType().getBaseType())) {
+            if (node.getExpr().getType() == nullType) {
+                if (primitiveType.contains(funcSymbol.getReturnType())) {
                     throw new RuntimeException("Return Type couldn't accept null");
                 }
-            } else if (!funcSymbol.getReturnType().equals(node.getExpr().getType())) {
+            } else if (funcSymbol.getReturnType() != node.getExpr().getType()) {
                 throw new RuntimeException("Return Type mismatch.");
             }
         } else {
-            if (!funcSymbol.getReturnType().getBaseType().equals("void")) {
+            if (funcSymbol.getReturnType().getBase() != voidType) {
                 throw new RuntimeException("returnExpr is required.");
             }
         }
@@ -229,7 +354,7 @@ public class StmtScanner implements IASTVistor {
         }
         if (node.getCond() != null) {
             node.getCond().accept(this);
-            if (!node.getCond().getType().equals(new ClassType("bool", 0))) {
+            if (node.getCond().getType() != boolType) {
                 throw new RuntimeException("bool required in ForStmt.");
             }
         }
@@ -237,26 +362,26 @@ public class StmtScanner implements IASTVistor {
             node.getStep().accept(this);
         }
         loopScopeCount += 1;
-        currentTable.push(new BlockTable(currentTable.peek(), "")); // FIXME
+        pushTable(new BlockTable(currentTable.peek(), ""), true); // FIXME
         blockScopePushed = true;
         node.getStmt().accept(this);
         blockScopePushed = false; // for does not always enter a blockStmt, may be other stmt.
-        currentTable.pop();
+        popTable();
         loopScopeCount -= 1;
     }
 
     @Override
     public void visit(WhileStmt node) {
         node.getCond().accept(this);
-        if (!node.getCond().getType().equals(new ClassType("bool", 0))) {
+        if (node.getCond().getType() != boolType) {
             throw new RuntimeException("bool required in WhileStmt");
         }
         loopScopeCount += 1;
-        currentTable.push(new BlockTable(currentTable.peek(), "")); // FIXME
+        pushTable(new BlockTable(currentTable.peek(), ""), true); // FIXME
         blockScopePushed = true;
         node.getStmt().accept(this);
         blockScopePushed = false; // while does not always enter a blockStmt, may be other stmt.
-        currentTable.pop();
+        popTable();
         loopScopeCount -= 1;
     }
 
@@ -283,12 +408,11 @@ public class StmtScanner implements IASTVistor {
             throw new RuntimeException("Parameter num mismatch.");
         }
         for (int i = 0; i < intParameters.size(); i++) {
-            if (parameters.get(i).getType().getBaseType().equals("null")) {
-                if (intParameters.get(i).getType().getDim() == 0
-                        && primitiveType.contains(intParameters.get(i).getType().getBaseType())) {
+            if (parameters.get(i).getType() == nullType) {
+                if (primitiveType.contains(intParameters.get(i).getType())) {
                     throw new RuntimeException("Parameter " + i + " couldn't accept null.");
                 }
-            } else if (!intParameters.get(i).getType().equals(parameters.get(i).getType())) {
+            } else if (intParameters.get(i).getType() != parameters.get(i).getType()) {
                 throw new RuntimeException("Parameter " + i + " type mismatch.");
             }
         }
@@ -306,13 +430,13 @@ public class StmtScanner implements IASTVistor {
         node.getSubscript().accept(this);
         ClassType lType = node.getArray().getType();
         ClassType rType = node.getSubscript().getType();
-        if (!rType.equals(new ClassType("int", 0))) {
+        if (rType != intType) {
             throw new RuntimeException("Subscript should be int.");
         }
         if (lType.getDim() == 0) {
             throw new RuntimeException("ArrayType is required in ArrayAcess.");
         }
-        node.setType(new ClassType(lType.getBaseType(), lType.getDim() - 1));
+        node.setType(lType.withDim(lType.getDim() - 1));
     }
 
     @Override
@@ -331,13 +455,13 @@ public class StmtScanner implements IASTVistor {
                 FuncSymbol.Builder builder = new FuncSymbol.Builder();
                 builder.setBelongTable(topTable); // FIXME size belong to what ?
                 builder.setName("size");
-                builder.setReturnType(new ClassType("int", 0));
+                builder.setReturnType(intType);
                 node.setFunc(builder.build());
                 return;
             }
             throw new RuntimeException("Array is not acceptable in MemberAcess.");
         }
-        ClassSymbol symbol = topTable.getMyClass(node.getExpr().getType().getBaseType()); // assert symbol cannot be null
+        ClassSymbol symbol = node.getExpr().getType().getClassSymbol(); // assert symbol cannot be null
         if (symbol == null) {
             throw new RuntimeException("IRClass is not declared.");
         }
@@ -360,7 +484,24 @@ public class StmtScanner implements IASTVistor {
 
     @Override
     public void visit(UnaryExpr node) {
-        node.getExpr().accept(this);
+        ExprWalker.walk(node, this, null, this::check);
+    }
+
+    @Override
+    public void visit(BinaryExpr node) {
+        ExprWalker.walk(node, this, null, this::check);
+    }
+
+    // of an operator whose operands are checked
+    private void check(AbstractExpr node) {
+        if (node instanceof BinaryExpr) {
+            check((BinaryExpr) node);
+        } else {
+            check((UnaryExpr) node);
+        }
+    }
+
+    private void check(UnaryExpr node) {
         switch (node.getOp()) {
             case POSTFIX_INC:
             case POSTFIX_DEC:
@@ -373,12 +514,12 @@ public class StmtScanner implements IASTVistor {
             case POS:
             case NEG:
             case BITWISE_NOT:
-                if (!node.getExpr().getType().equals(new ClassType("int", 0))) {
+                if (node.getExpr().getType() != intType) {
                     throw new RuntimeException("int required.");
                 }
                 break;
             case LOGICAL_NOT:
-                if (!node.getExpr().getType().equals(new ClassType("bool", 0))) {
+                if (node.getExpr().getType() != boolType) {
                     throw new RuntimeException("bool required");
                 }
                 break;
@@ -397,15 +538,11 @@ public class StmtScanner implements IASTVistor {
         node.setType(node.getExpr().getType());
     }
 
-    @Override
-    public void visit(BinaryExpr node) {
-        node.getLhs().accept(this);
-        node.getRhs().accept(this);
+    private void check(BinaryExpr node) {
         switch (node.getOp()) {
             case LOGICAL_OR:
             case LOGICAL_AND:
-                ClassType boolType = new ClassType("bool", 0);
-                if (node.getLhs().getType().equals(boolType) && node.getRhs().getType().equals(boolType)) {
+                if (node.getLhs().getType() == boolType && node.getRhs().getType() == boolType) {
                     break;
                 } else {
                     throw new RuntimeException("bool required.");
@@ -415,8 +552,7 @@ public class StmtScanner implements IASTVistor {
             case BITWISE_AND:
             case LEFT_SHIFT:
             case RIGHT_SHIFT:
-                ClassType intType = new ClassType("int", 0);
-                if (node.getLhs().getType().equals(intType) && node.getRhs().getType().equals(intType)) {
+                if (node.getLhs().getType() == intType && node.getRhs().getType() == intType) {
                     break;
                 } else {
                     throw new RuntimeException("int required");
@@ -427,39 +563,24 @@ public class StmtScanner implements IASTVistor {
             case GT:
             case LE:
             case LT:
-                if (node.getRhs().getType().getBaseType().equals("null")) {
-                    if (node.getLhs().getType().getDim() != 0) break;
-                    switch (node.getLhs().getType().getBaseType()) {
-                        case "int":
-                        case "string":
-                        case "bool":
-                        case "void":
-                        case "null": // may be redundant
-                            throw new RuntimeException("primitive type can not compare with null");
-                        default:
-                            break;
+                if (node.getRhs().getType() == nullType) {
+                    if (primitiveType.contains(node.getLhs().getType()) || node.getLhs().getType() == nullType) {
+                        throw new RuntimeException("primitive type can not compare with null");
                     }
-                } else if (node.getLhs().getType().equals(node.getRhs().getType())) {
+                } else if (node.getLhs().getType() == node.getRhs().getType()) {
                     if (node.getLhs().getType().getDim() != 0) {
                         throw new RuntimeException("array does not suppot this operation.");
                     }
-                    switch (node.getLhs().getType().getBaseType()) {
-                        case "int":
-                        case "string":
-                            break;
-                        case "bool":
-                            switch (node.getOp()) {
-                                case EQ:
-                                case NE:
-                                    break;
-                                default:
-                                    throw new RuntimeException("bool does not support this operation.");
-                            }
-                            break;
-                        case "null":
-                        case "void":
-                        default:
-                            throw new RuntimeException("type does not support comparison.");
+                    if (node.getLhs().getType() == boolType) {
+                        switch (node.getOp()) {
+                            case EQ:
+                            case NE:
+                                break;
+                            default:
+                                throw new RuntimeException("bool does not support this operation.");
+                        }
+                    } else if (node.getLhs().getType() != intType && node.getLhs().getType() != stringType) {
+                        throw new RuntimeException("type does not support comparison.");
                     }
                 } else {
                     throw new RuntimeException("same type required.");
@@ -470,35 +591,26 @@ public class StmtScanner implements IASTVistor {
             case MUL:
             case DIV:
             case MOD:
-                if (node.getLhs().getType().equals(node.getRhs().getType())) {
+                if (node.getLhs().getType() == node.getRhs().getType()) {
                     if (node.getLhs().getType().getDim() != 0) {
                         throw new RuntimeException("array does not suppot this operation.");
                     }
-                    switch (node.getLhs().getType().getBaseType()) {
-                        case "int":
-                            break;
-                        case "string":
-                            if (node.getOp().equals(BinaryExpr.BinaryOp.ADD)) {
-                                break;
-                            } else {
-                                throw new RuntimeException("string does not support this operation.");
-                            }
-                        case "null":
-                        case "bool":
-                        case "void":
-                        default:
-                            throw new RuntimeException("type does not support basic arithmetic.");
+                    if (node.getLhs().getType() == stringType) {
+                        if (!node.getOp().equals(BinaryExpr.BinaryOp.ADD)) {
+                            throw new RuntimeException("string does not support this operation.");
+                        }
+                    } else if (node.getLhs().getType() != intType) {
+                        throw new RuntimeException("type does not support basic arithmetic.");
                     }
                 }
                 break;
             case ASSIGN:
                 if (node.getLhs().getLValue()) {
-                    if (node.getRhs().getType().getBaseType().equals("null")) {
-                        if (node.getLhs().getType().getDim() == 0
-                                && primitiveType.contains(node.getLhs().getType().getBaseType())) {
+                    if (node.getRhs().getType() == nullType) {
+                        if (primitiveType.contains(node.getLhs().getType())) {
                             throw new RuntimeException("null assignment error");
                         }
-                    } else if (!node.getLhs().getType().equals(node.getRhs().getType())) {
+                    } else if (node.getLhs().getType() != node.getRhs().getType()) {
                         throw new RuntimeException("same type required.");
                     }
                 } else {
@@ -526,7 +638,7 @@ public class StmtScanner implements IASTVistor {
             case GT:
             case LE:
             case LT:
-                node.setType(new ClassType("bool", 0));
+                node.setType(boolType);
                 break;
             case ASSIGN:
                 node.setType(node.getLhs().getType());
@@ -543,12 +655,12 @@ public class StmtScanner implements IASTVistor {
             if (classSymbol == null) {
                 throw new RuntimeException("this should be in IRClass");
             } else {
-                node.setType(new ClassType(classSymbol.getName(), 0));
+                node.setType(classSymbol.getType());
             }
             return;
         }
 
-        AbstractSymbol symbol = currentTable.peek().findIdentifier(node.getName());
+        AbstractSymbol symbol = scopedTable.resolve(node.getName());
         if (symbol instanceof FuncSymbol) {
             node.setFunc(((FuncSymbol) symbol));
         } else if (symbol instanceof VarSymbol) {
@@ -564,17 +676,17 @@ public class StmtScanner implements IASTVistor {
     @Override
     public void visit(NewArray node) {
         node.getLens().forEach(x -> x.accept(this));
-        ClassSymbol myClass = topTable.getMyClass(node.getType().getBaseType());
+        ClassSymbol myClass = node.getType().getClassSymbol();
         if (myClass == null) {
             throw new RuntimeException("IRClass is not declared.");
         }
-        if (myClass.getName().equals("void")) {
+        if (myClass.getType() == voidType) {
             throw new RuntimeException("Void should not be declared.");
         }
         node.getLens()
                 .forEach(
                         x -> {
-                            if (!x.getType().getBaseType().equals("int") || x.getType().getDim() != 0) {
+                            if (x.getType() != intType) {
                                 throw new RuntimeException("New Array Dim should be int.");
                             }
                         });
@@ -583,12 +695,12 @@ public class StmtScanner implements IASTVistor {
     @Override
     public void visit(NewNonArray node) {
         node.getParameters().forEach(x -> x.accept(this));
-        ClassSymbol myClass = topTable.getMyClass(node.getType().getBaseType());
+        ClassSymbol myClass = node.getType().getClassSymbol();
         if (myClass == null) {
             throw new RuntimeException("IRClass is not declared.");
         }
         // TODO void
-        if (myClass.getName().equals("void")) {
+        if (myClass.getType() == voidType) {
             throw new RuntimeException("Void should not be declared.");
         }
         CstrSymbol cstr = myClass.getInClassTable().getCstr(myClass.getName());
@@ -598,13 +710,9 @@ public class StmtScanner implements IASTVistor {
                 throw new RuntimeException("Parameter num mismatch.");
             }
             for (int i = 0; i < cstr.getIntParameters().size(); i++) {
-                if (cstr.getIntParameters().get(i).getType().getDim() == 0
-                        && primitiveType.contains(cstr.getIntParameters().get(i).getType().getBaseType())) {
+                if (primitiveType.contains(cstr.getIntParameters().get(i).getType())) {
                     throw new RuntimeException("Parameter " + i + " couldn't accept null");
-                } else if (!cstr.getIntParameters()
-                        .get(i)
-                        .getType()
-                        .equals(node.getParameters().get(i).getType())) {
+                } else if (cstr.getIntParameters().get(i).getType() != node.getParameters().get(i).getType()) {
                     throw new RuntimeException("Parameter " + i + " type mismatch.");
                 }
             }
@@ -613,25 +721,25 @@ public class StmtScanner implements IASTVistor {
 
     @Override
     public void visit(BoolConst node) {
-        node.setType(new ClassType("bool", 0));
+        node.setType(boolType);
         node.setLValue(false);
     }
 
     @Override
     public void visit(NumConst node) {
-        node.setType(new ClassType("int", 0));
+        node.setType(intType);
         node.setLValue(false);
     }
 
     @Override
     public void visit(StrConst node) {
-        node.setType(new ClassType("string", 0));
+        node.setType(stringType);
         node.setLValue(false);
     }
 
     @Override
     public void visit(NullConst node) {
-        node.setType(new ClassType("null", 0));
+        node.setType(nullType);
         node.setLValue(false);
     }
 
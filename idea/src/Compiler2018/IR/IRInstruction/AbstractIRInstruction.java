@@ -2,6 +2,7 @@ package Compiler2018.IR.IRInstruction;
 
 import Compiler2018.BackEnd.IIRVistor;
 import Compiler2018.IR.IRStructure.BasicBlock;
+import Compiler2018.IR.IRStructure.InterferenceGraph;
 import Compiler2018.IR.IRValue.Register;
 
 import java.util.List;
@@ -84,8 +85,12 @@ public abstract class AbstractIRInstruction {
     // liveness analysis
     private Set<Register> liveInSet = null;
     private Set<Register> liveOutSet = null;
+    private Runnable liveSweep = null;  // fills the sets of the whole block on first request
 
     public Set<Register> getLiveInSet() {
+        if (liveInSet == null && liveSweep != null) {
+            liveSweep.run();
+        }
         return liveInSet;
     }
 
@@ -94,6 +99,9 @@ public abstract class AbstractIRInstruction {
     }
 
     public Set<Register> getLiveOutSet() {
+        if (liveOutSet == null && liveSweep != null) {
+            liveSweep.run();
+        }
         return liveOutSet;
     }
 
@@ -101,19 +109,23 @@ public abstract class AbstractIRInstruction {
         this.liveOutSet = liveOutSet;
     }
 
+    public void setLiveSweep(Runnable liveSweep) {
+        this.liveSweep = liveSweep;
+    }
+
     // conflict graph
     public abstract Register getDefinedRegister();
 
     public abstract List<Register> getUsedRegisterList();
 
 
-    public void buildGraph(){
+    public void buildGraph(InterferenceGraph graph){
         Register defined = getDefinedRegister();
+        Set<Register> liveOutSet = getLiveOutSet();
         if (defined != null && liveOutSet != null) {
             liveOutSet.forEach(x -> {
                 if (x != null && !x.equals(defined)) {
-                    x.getConflictRegisterSet().add(defined);
-                    defined.getConflictRegisterSet().add(x);
+                    graph.addEdge(x, defined);
                 }
             });
 //            liveInSet.forEach(x -> {
@@ -4,7 +4,7 @@ import Compiler2018.BackEnd.IIRVistor;
 import Compiler2018.IR.IRStructure.BasicBlock;
 import Compiler2018.IR.IRValue.Register;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -24,7 +24,7 @@ public class Call extends AbstractIRInstruction {
         private BasicBlock basicBlock;
         private String processedName;
         private Register ret;
-        private List<Register> args = new LinkedList<>();
+        private List<Register> args = new ArrayList<>();
 
         public void setBasicBlock(BasicBlock basicBlock) {
             this.basicBlock = basicBlock;
@@ -103,7 +103,7 @@ public class Call extends AbstractIRInstruction {
 
     @Override
     public Object clone() throws CloneNotSupportedException {
-        List<Register> newArgs = new LinkedList<>();
+        List<Register> newArgs = new ArrayList<>();
         for (Register register : args) {
             newArgs.add(((Register) register.clone()));
         }
@@ -112,7 +112,7 @@ public class Call extends AbstractIRInstruction {
 
     @Override
     public AbstractIRInstruction partClone(Map<Register, Register> renameMap) {
-        List<Register> newArgs = new LinkedList<>();
+        List<Register> newArgs = new ArrayList<>();
         for (Register register : args) {
             newArgs.add(rename(renameMap, register));
         }
@@ -29,7 +29,6 @@ public class Compare extends AbstractIRInstruction {
         this.rightStar = rightStar;
 
         if (leftStar && rightStar) {
-            intermediate = new Register();
             throw new RuntimeException();
         } else {
             intermediate = null;
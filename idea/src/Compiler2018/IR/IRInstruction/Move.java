@@ -23,7 +23,6 @@ public class Move extends AbstractIRInstruction {
         this.rhsStar = rhsStar;
 
         if (lhsStar && rhsStar) {
-            intermediate = new Register();
             throw new RuntimeException();
         } else {
             intermediate = null;
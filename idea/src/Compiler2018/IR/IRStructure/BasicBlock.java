@@ -11,7 +11,6 @@ import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class BasicBlock {
-    private static Integer Id = 0;
     private final Integer vId;
 
     // basic Info
@@ -19,8 +18,14 @@ public class BasicBlock {
     private final String name;
 
     public BasicBlock(IRFunction IRFunction, String name) {
-        vId = Id;
-        Id += 1;
+        vId = IRFunction == null ? -1 : IRFunction.getIrProgram().nextBasicBlockId();  // SimpleInliner's scratch blocks have none
+        this.IRFunction = IRFunction;
+        this.name = name;
+    }
+
+    // DenseBody makes a block again with the id it had
+    BasicBlock(IRFunction IRFunction, String name, int vId) {
+        this.vId = vId;
         this.IRFunction = IRFunction;
         this.name = name;
     }
@@ -33,6 +38,10 @@ public class BasicBlock {
         return IRFunction;
     }
 
+    String getName() {
+        return name;
+    }
+
     public String getProcessedName() {
         return name + "." + vId.toString();
     }
@@ -127,6 +136,10 @@ public class BasicBlock {
         return endWithJump;
     }
 
+    void setEndWithJump(boolean endWithJump) {
+        this.endWithJump = endWithJump;
+    }
+
     public void endWith(AbstractIRInstruction jump) {
         addTail(jump);
         endWithJump = true;
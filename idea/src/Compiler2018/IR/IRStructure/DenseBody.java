@@ -0,0 +1,434 @@
+package Compiler2018.IR.IRStructure;
+
+import Compiler2018.BackEnd.IIRVistor;
+import Compiler2018.IR.IRInstruction.*;
+import Compiler2018.IR.IRValue.AbstractValue;
+import Compiler2018.IR.IRValue.Immediate;
+import Compiler2018.IR.IRValue.Register;
+
+import java.util.*;
+
+// The body of an IRFunction in int arrays, for while it waits for the function-local passes.
+// Every instruction is one code word, its kind, operator and star flags, and a run of int operands:
+// registers are indices into a table of the function, so a Register keeps its identity, blocks are
+// indices into the block table, the operand of a Branch is the index of its Compare. Names, labels and
+// a Compare from outside the body go in the object pool. Blocks keep their ids, names and pred and
+// succ in order, expand builds the same blocks and instructions again.
+// Only what is there before liveness is kept, the live sets and the conflict graph are not.
+public class DenseBody {
+    // kinds, in the low bits of a code word
+    private static final int binaryCalc = 0;
+    private static final int branch = 1;
+    private static final int cSet = 2;
+    private static final int call = 3;
+    private static final int compare = 4;
+    private static final int jump = 5;
+    private static final int lea = 6;
+    private static final int move = 7;
+    private static final int moveU = 8;
+    private static final int ret = 9;
+    private static final int selfInc = 10;
+    private static final int unaryCalc = 11;
+    private static final int kindMask = 0xf;
+    private static final int opShift = 4;       // ordinal of the operator
+    private static final int opMask = 0xf;
+    private static final int firstStar = 1 << 8;
+    private static final int secondStar = 1 << 9;
+    private static final int other = 1 << 10;  // offset or inc is null, the rhs of a MoveU is pooled
+
+    // block flags
+    private static final int inSet = 1;         // in the basic block set of the function, not only referred to
+    private static final int endsWithJump = 2;
+
+    private final int[] code;
+    private final int[] operandStart;   // of every instruction, and the end
+    private final int[] operands;
+    private final Register[] registers;
+    private final Object[] pool;
+
+    private final int[] blockIds;
+    private final String[] blockNames;
+    private final int[] blockFlags;
+    private final int[] blockStart;     // first instruction of every block, and the end
+    private final int[] succStart;
+    private final int[] succ;
+    private final int[] predStart;
+    private final int[] pred;
+    private final int startBlock;       // -1 for none
+    private final int endBlock;
+
+    private DenseBody(Encoder encoder) {
+        code = encoder.code.toArray();
+        operandStart = encoder.operandStart.toArray();
+        operands = encoder.operands.toArray();
+        registers = encoder.registers.toArray(new Register[0]);
+        pool = encoder.pool.keySet().toArray();
+        int blocks = encoder.blocks.size();
+        blockIds = new int[blocks];
+        blockNames = new String[blocks];
+        blockFlags = encoder.blockFlags.toArray();
+        blockStart = encoder.blockStart.toArray();
+        for (int i = 0; i < blocks; ++i) {
+            BasicBlock basicBlock = encoder.blockList.get(i);
+            blockIds[i] = basicBlock.getvId();
+            blockNames[i] = basicBlock.getName();
+        }
+        succStart = encoder.succStart.toArray();
+        succ = encoder.succ.toArray();
+        predStart = encoder.predStart.toArray();
+        pred = encoder.pred.toArray();
+        startBlock = encoder.startBlock;
+        endBlock = encoder.endBlock;
+    }
+
+    // growable int array
+    private static class Ints {
+        private int[] data = new int[16];
+        private int size = 0;
+
+        private void add(int x) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = x;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    private static class Encoder implements IIRVistor {
+        private final Ints code = new Ints();
+        private final Ints operandStart = new Ints();
+        private final Ints operands = new Ints();
+        private final List<Register> registers = new ArrayList<>();
+        private final Map<Object, Integer> pool = new LinkedHashMap<>();
+        private final Map<BasicBlock, Integer> blocks = new IdentityHashMap<>();
+        private final List<BasicBlock> blockList = new ArrayList<>();
+        private final Ints blockFlags = new Ints();
+        private final Ints blockStart = new Ints();
+        private final Ints succStart = new Ints();
+        private final Ints succ = new Ints();
+        private final Ints predStart = new Ints();
+        private final Ints pred = new Ints();
+        private final Map<Compare, Integer> compares = new IdentityHashMap<>();
+        private final Map<Integer, Compare> forward = new LinkedHashMap<>();    // operand of a Branch before its Compare
+        private int startBlock;
+        private int endBlock;
+
+        private int register(Register register) {
+            if (register == null) {
+                return -1;
+            }
+            int index = register.getIndex();    // numbered as LivenessAnalysis does, before it runs
+            if (index < 0 || index >= registers.size() || registers.get(index) != register) {
+                index = registers.size();
+                register.setIndex(index);
+                registers.add(register);
+            }
+            return index;
+        }
+
+        private int pooled(Object object) {
+            return pool.computeIfAbsent(object, x -> pool.size());
+        }
+
+        private int block(BasicBlock basicBlock) {
+            if (basicBlock == null) {
+                return -1;
+            }
+            Integer index = blocks.get(basicBlock);
+            if (index == null) {
+                index = blocks.size();
+                blocks.put(basicBlock, index);
+                blockList.add(basicBlock);
+                blockFlags.add(0);
+            }
+            return index;
+        }
+
+        private void start(int kind, int op, boolean first, boolean second) {
+            code.add(kind | op << opShift | (first ? firstStar : 0) | (second ? secondStar : 0));
+            operandStart.add(operands.size());
+        }
+
+        private void encode(IRFunction irFunction) {
+            for (BasicBlock basicBlock : irFunction.getBasicBlockSet()) {
+                block(basicBlock);
+            }
+            for (int i = 0; i < blockList.size(); ++i) {
+                blockFlags.data[i] |= inSet;
+            }
+            startBlock = block(irFunction.getStartBlock());
+            endBlock = block(irFunction.getEndBlock());
+            // blocks only referred to are put at the end, their instructions too
+            for (int i = 0; i < blockList.size(); ++i) {
+                BasicBlock basicBlock = blockList.get(i);
+                blockStart.add(code.size());
+                BasicBlock.Iter iter = new BasicBlock.Iter(basicBlock);
+                while (iter.hasNext()) {
+                    iter.next().accept(this);
+                }
+                if (basicBlock.isEndWithJump()) {
+                    blockFlags.data[i] |= endsWithJump;
+                }
+                succStart.add(succ.size());
+                basicBlock.getSucc().forEach(x -> succ.add(block(x)));
+                predStart.add(pred.size());
+                basicBlock.getPred().forEach(x -> pred.add(block(x)));
+            }
+            blockStart.add(code.size());
+            operandStart.add(operands.size());
+            succStart.add(succ.size());
+            predStart.add(pred.size());
+            forward.forEach((x, y) -> {
+                Integer cond = compares.get(y);
+                operands.data[x] = cond != null ? cond : -1 - pooled(y);
+            });
+        }
+
+        @Override
+        public void visit(IRProgram irProgram) {
+            throw new RuntimeException();
+        }
+
+        @Override
+        public void visit(IRFunction irFunction) {
+            throw new RuntimeException();
+        }
+
+        @Override
+        public void visit(IRClass irClass) {
+            throw new RuntimeException();
+        }
+
+        @Override
+        public void visit(StaticData irStaticData) {
+            throw new RuntimeException();
+        }
+
+        @Override
+        public void visit(BasicBlock basicBlock) {
+            throw new RuntimeException();
+        }
+
+        @Override
+        public void visit(BinaryCalc ir) {
+            start(binaryCalc, ir.getOprator().ordinal(), ir.isLeftStar(), ir.isRightStar());
+            operands.add(register(ir.getDestination()));
+            operands.add(register(ir.getLeftOperand()));
+            operands.add(register(ir.getRightOperand()));
+        }
+
+        @Override
+        public void visit(Branch ir) {
+            start(branch, 0, false, false);
+            Integer cond = compares.get(ir.getCond());
+            if (cond == null) {
+                forward.put(operands.size(), ir.getCond());
+            }
+            operands.add(cond != null ? cond : 0);
+            operands.add(block(ir.getIfTrue()));
+            operands.add(block(ir.getIfFalse()));
+        }
+
+        @Override
+        public void visit(Call ir) {
+            start(call, 0, false, false);
+            operands.add(pooled(ir.getProcessedName()));
+            operands.add(register(ir.getRet()));
+            ir.getArgs().forEach(x -> operands.add(register(x)));
+        }
+
+        @Override
+        public void visit(Compare ir) {
+            compares.put(ir, code.size());
+            start(compare, ir.getOprator().ordinal(), ir.isLeftStar(), ir.isRightStar());
+            operands.add(register(ir.getLeftOperand()));
+            operands.add(register(ir.getRightOperand()));
+        }
+
+        @Override
+        public void visit(Jump ir) {
+            start(jump, 0, false, false);
+            operands.add(block(ir.getJumpBlock()));
+        }
+
+        @Override
+        public void visit(Lea ir) {
+            start(lea, 0, false, false);
+            if (ir.getOffset() == null) {
+                code.data[code.size() - 1] |= other;
+            }
+            operands.add(register(ir.getDestination()));
+            operands.add(register(ir.getBase()));
+            operands.add(register(ir.getPos()));
+            operands.add(ir.getOffset() == null ? 0 : ir.getOffset());
+        }
+
+        @Override
+        public void visit(Move ir) {
+            start(move, 0, ir.isLhsStar(), ir.isRhsStar());
+            operands.add(register(ir.getLhs()));
+            operands.add(register(ir.getRhs()));
+        }
+
+        @Override
+        public void visit(MoveU ir) {
+            start(moveU, 0, false, false);
+            operands.add(register(ir.getLhs()));
+            if (ir.getRhs() instanceof Immediate) {
+                operands.add(((Immediate) ir.getRhs()).getVal());
+            } else {
+                code.data[code.size() - 1] |= other;
+                operands.add(pooled(ir.getRhs()));
+            }
+        }
+
+        @Override
+        public void visit(Ret ir) {
+            start(ret, 0, false, false);
+            operands.add(register(ir.getRet()));
+        }
+
+        @Override
+        public void visit(SelfInc ir) {
+            start(selfInc, 0, ir.isStar(), false);
+            if (ir.getInc() == null) {
+                code.data[code.size() - 1] |= other;
+            }
+            operands.add(register(ir.getDest()));
+            operands.add(ir.getInc() == null ? 0 : ir.getInc());
+        }
+
+        @Override
+        public void visit(UnaryCalc ir) {
+            start(unaryCalc, ir.getOprator().ordinal(), ir.isStar(), false);
+            operands.add(register(ir.getDestination()));
+            operands.add(register(ir.getOperand()));
+        }
+
+        @Override
+        public void visit(CSet ir) {
+            start(cSet, ir.getOp().ordinal(), ir.isStar(), false);
+            operands.add(register(ir.getDest()));
+        }
+    }
+
+    public static DenseBody encode(IRFunction irFunction) {
+        Encoder encoder = new Encoder();
+        encoder.encode(irFunction);
+        return new DenseBody(encoder);
+    }
+
+    private Register register(int index) {
+        return index < 0 ? null : registers[index];
+    }
+
+    // instructions are made when first asked for, a Compare may be asked for by a Branch before its turn
+    private AbstractIRInstruction instruction(int i, AbstractIRInstruction[] made, BasicBlock[] blocks, int[] blockOf) {
+        if (made[i] != null) {
+            return made[i];
+        }
+        int word = code[i];
+        int op = word >>> opShift & opMask;
+        boolean first = (word & firstStar) != 0;
+        boolean second = (word & secondStar) != 0;
+        int at = operandStart[i];
+        BasicBlock basicBlock = blocks[blockOf[i]];
+        AbstractIRInstruction inst;
+        switch (word & kindMask) {
+            case binaryCalc:
+                inst = new BinaryCalc(basicBlock, BinaryCalc.BinaryOp.values()[op], register(operands[at]),
+                        register(operands[at + 1]), first, register(operands[at + 2]), second);
+                break;
+            case branch:
+                int cond = operands[at];
+                inst = new Branch(basicBlock,
+                        (Compare) (cond >= 0 ? instruction(cond, made, blocks, blockOf) : pool[-1 - cond]),
+                        block(operands[at + 1], blocks), block(operands[at + 2], blocks));
+                break;
+            case cSet:
+                inst = new CSet(basicBlock, Compare.CompareOp.values()[op], register(operands[at]), first);
+                break;
+            case call:
+                List<Register> args = new ArrayList<>(operandStart[i + 1] - at - 2);
+                for (int j = at + 2; j < operandStart[i + 1]; ++j) {
+                    args.add(register(operands[j]));
+                }
+                inst = new Call(basicBlock, (String) pool[operands[at]], register(operands[at + 1]), args);
+                break;
+            case compare:
+                inst = new Compare(basicBlock, Compare.CompareOp.values()[op], register(operands[at]), first,
+                        register(operands[at + 1]), second);
+                break;
+            case jump:
+                inst = new Jump(basicBlock, block(operands[at], blocks));
+                break;
+            case lea:
+                inst = new Lea(basicBlock, register(operands[at]), register(operands[at + 1]),
+                        register(operands[at + 2]), (word & other) != 0 ? null : operands[at + 3]);
+                break;
+            case move:
+                inst = new Move(basicBlock, register(operands[at]), first, register(operands[at + 1]), second);
+                break;
+            case moveU:
+                inst = new MoveU(basicBlock, register(operands[at]),
+                        (word & other) != 0 ? (AbstractValue) pool[operands[at + 1]] : new Immediate(operands[at + 1]));
+                break;
+            case ret:
+                inst = new Ret(basicBlock, register(operands[at]));
+                break;
+            case selfInc:
+                inst = new SelfInc(basicBlock, register(operands[at]), first,
+                        (word & other) != 0 ? null : operands[at + 1]);
+                break;
+            case unaryCalc:
+                inst = new UnaryCalc(basicBlock, UnaryCalc.UnaryOp.values()[op], register(operands[at]),
+                        register(operands[at + 1]), first);
+                break;
+            default:
+                throw new RuntimeException("bad code word " + word);
+        }
+        made[i] = inst;
+        return inst;
+    }
+
+    private static BasicBlock block(int index, BasicBlock[] blocks) {
+        return index < 0 ? null : blocks[index];
+    }
+
+    // builds the blocks and instructions into irFunction, whose body was dropped
+    public void decode(IRFunction irFunction) {
+        BasicBlock[] blocks = new BasicBlock[blockIds.length];
+        int[] blockOf = new int[code.length];
+        for (int b = 0; b < blocks.length; ++b) {
+            blocks[b] = new BasicBlock(irFunction, blockNames[b], blockIds[b]);
+            Arrays.fill(blockOf, blockStart[b], blockStart[b + 1], b);
+        }
+        AbstractIRInstruction[] made = new AbstractIRInstruction[code.length];
+        for (int b = 0; b < blocks.length; ++b) {
+            BasicBlock basicBlock = blocks[b];
+            for (int i = blockStart[b]; i < blockStart[b + 1]; ++i) {
+                basicBlock.addTail(instruction(i, made, blocks, blockOf));
+            }
+            basicBlock.setEndWithJump((blockFlags[b] & endsWithJump) != 0);
+            for (int j = succStart[b]; j < succStart[b + 1]; ++j) {
+                basicBlock.getSucc().add(blocks[succ[j]]);
+            }
+            for (int j = predStart[b]; j < predStart[b + 1]; ++j) {
+                basicBlock.getPred().add(blocks[pred[j]]);
+            }
+            if ((blockFlags[b] & inSet) != 0) {
+                irFunction.putBasicBlock(basicBlock);
+            }
+        }
+        irFunction.setStartBlock(block(startBlock, blocks));
+        irFunction.setEndBlock(block(endBlock, blocks));
+    }
+}
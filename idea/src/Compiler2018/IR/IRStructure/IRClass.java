@@ -2,19 +2,27 @@ package Compiler2018.IR.IRStructure;
 
 import Compiler2018.BackEnd.IIRVistor;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class IRClass {
     private Integer totalOffset = 0;
     private Map<String, Integer> heapOffsetMap = new LinkedHashMap<>();
+    private List<Integer> heapOffsetList = new ArrayList<>();   // by slot of the member, as StmtScanner placed it
 
     public Integer getHeapOffset(String name){
         return heapOffsetMap.get(name);
     }
 
+    public Integer getHeapOffset(int slot){
+        return heapOffsetList.get(slot);
+    }
+
     public void addHeapOffset(String name){
         heapOffsetMap.put(name, totalOffset);
+        heapOffsetList.add(totalOffset);
         totalOffset += 8;   // all 8 bytes long
     }
 
@@ -1,33 +1,42 @@
 package Compiler2018.IR.IRStructure;
 
 import Compiler2018.BackEnd.IIRVistor;
+import Compiler2018.Cache.CachedFunction;
+import Compiler2018.IR.IRInstruction.AbstractIRInstruction;
 import Compiler2018.IR.IRValue.Register;
 
 import java.util.*;
 
 public class IRFunction {
+    private final IRProgram irProgram;
     private final String processedName;  // processed processedName
     private final String className; // used to find the IRClass
     private BasicBlock startBlock;
     private BasicBlock endBlock;
     // register used in function
-    private final List<Register> parameterList = new LinkedList<>();
+    private final List<Register> parameterList = new ArrayList<>();
     private final Register thisRegister;
     private Integer totalOffset = 0;
     private final Map<Register, Integer> stackOffsetMap = new LinkedHashMap<>(); // Register "equals" is not overrided.
 
-    public IRFunction(String processedName, String className) {
+    public IRFunction(IRProgram irProgram, String processedName, String className) {
+        this.irProgram = irProgram;
         this.processedName = processedName;
         this.className = className;
         startBlock = new BasicBlock(this, processedName + ".entry");
+        addBlockIdRange(startBlock.getvId(), 1);
 
         if (className != null) {
-            thisRegister = new Register();
+            thisRegister = new Register(irProgram);
         } else {
             thisRegister = null;
         }
     }
 
+    public IRProgram getIrProgram() {
+        return irProgram;
+    }
+
     public String getProcessedName() {
         return processedName;
     }
@@ -123,10 +132,131 @@ public class IRFunction {
         return reversePreOrder;
     }
 
+    // recomputed on every call, the CFG may have changed
+    public List<BasicBlock> getPostOrder() {
+        List<BasicBlock> postOrder = new ArrayList<>();
+        Set<BasicBlock> visited = new HashSet<>();
+        Deque<BasicBlock> blockStack = new ArrayDeque<>();
+        Deque<Iterator<BasicBlock>> succStack = new ArrayDeque<>();
+        visited.add(startBlock);
+        blockStack.push(startBlock);
+        succStack.push(startBlock.getSucc().iterator());
+        while (!blockStack.isEmpty()) {
+            Iterator<BasicBlock> iter = succStack.peek();
+            if (iter.hasNext()) {
+                BasicBlock succ = iter.next();
+                if (visited.add(succ)) {
+                    blockStack.push(succ);
+                    succStack.push(succ.getSucc().iterator());
+                }
+            } else {
+                postOrder.add(blockStack.pop());
+                succStack.pop();
+            }
+        }
+        return postOrder;
+    }
+
     // callee
     private final Set<Register.PysicalRegister> calleeUsed = new LinkedHashSet<>();
 
     public Set<Register.PysicalRegister> getCalleeUsed() {
         return calleeUsed;
     }
+
+    // graph
+    private InterferenceGraph interferenceGraph = null;
+
+    public InterferenceGraph getInterferenceGraph() {
+        return interferenceGraph;
+    }
+
+    public void setInterferenceGraph(InterferenceGraph interferenceGraph) {
+        this.interferenceGraph = interferenceGraph;
+    }
+
+    // the live sets and the conflict graph are only needed until registers are allocated
+    public void clearLiveness() {
+        interferenceGraph = null;
+        basicBlockSet.forEach(x -> {
+            BasicBlock.Iter iter = new BasicBlock.Iter(x);
+            while (iter.hasNext()) {
+                AbstractIRInstruction irInstruction = iter.next();
+                irInstruction.setLiveInSet(null);
+                irInstruction.setLiveOutSet(null);
+                irInstruction.setLiveSweep(null);
+            }
+        });
+    }
+
+    // drops the body once it is emitted, callers only ever refer to the processed name
+    public void release() {
+        clearLiveness();
+        startBlock = null;
+        endBlock = null;
+        basicBlockSet = new LinkedHashSet<>();
+        reversePreOrder = null;
+        visited = new LinkedHashSet<>();
+        stackOffsetMap.clear();
+    }
+
+    // dense storage
+    private DenseBody denseBody = null;     // the body while it is compact, there are no blocks then
+
+    public boolean isCompact() {
+        return denseBody != null;
+    }
+
+    // puts the body in a DenseBody and drops its blocks and instructions, only before liveness
+    public void compact() {
+        if (denseBody != null || startBlock == null) {
+            return;
+        }
+        denseBody = DenseBody.encode(this);
+        startBlock = null;
+        endBlock = null;
+        basicBlockSet = new LinkedHashSet<>();
+        reversePreOrder = null;
+        visited = new LinkedHashSet<>();
+    }
+
+    // makes the blocks and instructions again, for the passes that work on them
+    public void expand() {
+        if (denseBody == null) {
+            return;
+        }
+        DenseBody body = denseBody;
+        denseBody = null;
+        body.decode(this);
+    }
+
+    // cache
+    private final List<Integer> blockIdRanges = new ArrayList<>();  // first id and count of every run of block ids handed out for it
+    private final Set<String> staticStrings = new LinkedHashSet<>(); // string constants, in the order they were asked for
+    private CachedFunction cached = null;   // the assembly came from the CompilationCache, there is no IR
+
+    public List<Integer> getBlockIdRanges() {
+        return blockIdRanges;
+    }
+
+    public void addBlockIdRange(int first, int count) {
+        blockIdRanges.add(first);
+        blockIdRanges.add(count);
+    }
+
+    public Set<String> getStaticStrings() {
+        return staticStrings;
+    }
+
+    public void addStaticString(String staticString) {
+        staticStrings.add(staticString);
+    }
+
+    public CachedFunction getCached() {
+        return cached;
+    }
+
+    public void setCached(CachedFunction cached) {
+        this.cached = cached;
+    }
 }
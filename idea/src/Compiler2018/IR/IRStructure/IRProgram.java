@@ -2,15 +2,73 @@ package Compiler2018.IR.IRStructure;
 
 import Compiler2018.BackEnd.IIRVistor;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import Compiler2018.Cache.CachedFunction;
+
+import java.util.*;
 
 public class IRProgram {
     private final Map<String, IRClass> irClassMap = new LinkedHashMap<>();
-    private final Map<String, IRFunction> irFunctionMap = new LinkedHashMap<>();    // processed String
+    private final Map<String, IRFunction> irFunctionMap = new LinkedHashMap<>();    // processed String, what the back end compiles
+    private final List<IRFunction> functionList = new ArrayList<>();    // with those taken from the cache, in emission order
     private final Map<String, StaticData> globalVarMap = new LinkedHashMap<>();
     private final Map<String, StaticData> staticStringMap = new LinkedHashMap<>();
 
+    // ids, numbered from 0 in every program
+    private int registerCount = 0;
+    private int basicBlockCount = 0;
+    private int labelCount = 0;
+
+    public int nextRegisterId() {
+        return registerCount++;
+    }
+
+    public int nextBasicBlockId() {
+        return basicBlockCount++;
+    }
+
+    public int nextLabelId() {
+        return labelCount++;
+    }
+
+    public int getBasicBlockCount() {
+        return basicBlockCount;
+    }
+
+    // skips the ids a function from the cache would have used, returns the first one
+    public int reserveBasicBlockIds(int count) {
+        basicBlockCount += count;
+        return basicBlockCount - count;
+    }
+
+    // CompilationCache, filled by CacheLookup before the IRFunctions exist
+    private final Map<String, CachedFunction> cachedFunctionMap = new LinkedHashMap<>();  // hits, ir-build only reserves their ids
+    private final Map<String, String> cacheKeyMap = new LinkedHashMap<>();  // misses, stored by NasmColor once emitted
+    private final Set<String> inlinedCachedSet = new HashSet<>();   // hits a miss can reach, built for SimpleInliner all the same
+
+    public CachedFunction getCachedFunction(String processedFunctionName) {
+        return cachedFunctionMap.get(processedFunctionName);
+    }
+
+    public void putCachedFunction(String processedFunctionName, CachedFunction cachedFunction) {
+        cachedFunctionMap.put(processedFunctionName, cachedFunction);
+    }
+
+    public boolean isInlinedCached(String processedFunctionName) {
+        return inlinedCachedSet.contains(processedFunctionName);
+    }
+
+    public void putInlinedCached(String processedFunctionName) {
+        inlinedCachedSet.add(processedFunctionName);
+    }
+
+    public String getCacheKey(String processedFunctionName) {
+        return cacheKeyMap.get(processedFunctionName);
+    }
+
+    public void putCacheKey(String processedFunctionName, String key) {
+        cacheKeyMap.put(processedFunctionName, key);
+    }
+
     public IRClass getIRClass(String className){
         return irClassMap.get(className);
     }
@@ -25,6 +83,7 @@ public class IRProgram {
 
     public void putIRFunction(String processedFunctionName, IRFunction irFunction) {
         irFunctionMap.put(processedFunctionName, irFunction);
+        functionList.add(irFunction);
     }
 
     public void putGlobalVar(String name, StaticData globalVar) {
@@ -51,6 +110,10 @@ public class IRProgram {
         return irFunctionMap;
     }
 
+    public List<IRFunction> getFunctionList() {
+        return functionList;
+    }
+
     public Map<String, StaticData> getGlobalVarMap() {
         return globalVarMap;
     }
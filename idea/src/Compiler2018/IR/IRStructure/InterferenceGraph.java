@@ -0,0 +1,128 @@
+package Compiler2018.IR.IRStructure;
+
+import Compiler2018.IR.IRValue.Register;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+// Interference graph of one function over a fixed set of registers.
+// Edges live in a lower triangular bit matrix, so a query is one bit test and a dense graph
+// costs n^2 / 2 bits instead of two hash entries per edge. Degrees are kept as edges are added,
+// neighbour lists are packed into two int arrays on the first walk over them.
+public class InterferenceGraph {
+    private final Register[] registers;
+    private final long[] bits;      // edge (i, j) with i > j is bit i * (i - 1) / 2 + j
+    private final int[] degree;
+    private int edgeCount = 0;
+
+    private int[] start = null;     // neighbours of i are adjacent[start[i] .. start[i + 1]), null until walked
+    private int[] adjacent = null;
+
+    public InterferenceGraph(Collection<Register> registerCollection) {
+        registers = registerCollection.toArray(new Register[0]);
+        for (int i = 0; i < registers.length; ++i) {
+            registers[i].setGraphIndex(i);
+        }
+        long n = registers.length;
+        bits = new long[(int) ((n * (n - 1) / 2 + 63) >>> 6)];
+        degree = new int[registers.length];
+    }
+
+    private int indexOf(Register register) {
+        int index = register.getGraphIndex();
+        if (index < 0 || index >= registers.length || registers[index] != register) {
+            return -1;  // not a node, or numbered by another graph
+        }
+        return index;
+    }
+
+    private static long bit(int i, int j) {
+        return i > j ? (long) i * (i - 1) / 2 + j : (long) j * (j - 1) / 2 + i;
+    }
+
+    // adds lhs - rhs, returns false if it is already there; self loops are dropped
+    public boolean addEdge(Register lhs, Register rhs) {
+        int i = indexOf(lhs), j = indexOf(rhs);
+        if (i < 0 || j < 0) {
+            throw new RuntimeException("register is not in the interference graph");
+        }
+        if (i == j) {
+            return false;
+        }
+        long bit = bit(i, j);
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        if ((bits[word] & mask) != 0) {
+            return false;
+        }
+        bits[word] |= mask;
+        ++degree[i];
+        ++degree[j];
+        ++edgeCount;
+        start = null;
+        adjacent = null;
+        return true;
+    }
+
+    public boolean interferes(Register lhs, Register rhs) {
+        int i = indexOf(lhs), j = indexOf(rhs);
+        if (i < 0 || j < 0 || i == j) {
+            return false;
+        }
+        long bit = bit(i, j);
+        return (bits[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    public int getDegree(Register register) {
+        int index = indexOf(register);
+        return index < 0 ? 0 : degree[index];
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public int size() {
+        return registers.length;
+    }
+
+    private void pack() {
+        int n = registers.length;
+        start = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            start[i + 1] = start[i] + degree[i];
+        }
+        adjacent = new int[start[n]];
+        int[] fill = Arrays.copyOf(start, n);
+        long bit = 0;
+        for (int i = 1; i < n; ++i) {   // row i holds j < i
+            for (int j = 0; j < i; ++j, ++bit) {
+                long word = bits[(int) (bit >>> 6)];
+                if (word == 0) {    // skip the rest of an empty word
+                    int skip = (int) Math.min(63 - (bit & 63), i - 1 - j);
+                    j += skip;
+                    bit += skip;
+                    continue;
+                }
+                if ((word & (1L << bit)) != 0) {
+                    adjacent[fill[i]++] = j;
+                    adjacent[fill[j]++] = i;
+                }
+            }
+        }
+    }
+
+    public void forEachNeighbor(Register register, Consumer<Register> action) {
+        int index = indexOf(register);
+        if (index < 0) {
+            return;
+        }
+        if (adjacent == null) {
+            pack();
+        }
+        for (int k = start[index]; k < start[index + 1]; ++k) {
+            action.accept(registers[adjacent[k]]);
+        }
+    }
+}
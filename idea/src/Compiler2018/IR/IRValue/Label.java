@@ -1,14 +1,14 @@
 package Compiler2018.IR.IRValue;
 
+import Compiler2018.IR.IRStructure.IRProgram;
+
 public class Label extends AbstractValue {
-    static Integer vid = 0;
     private final Integer id;
     private final String name;
 
 
-    public Label(String name) {
-        id = vid;
-        vid += 1;
+    public Label(IRProgram irProgram, String name) {
+        id = irProgram.nextLabelId();
         this.name = name;
     }
 
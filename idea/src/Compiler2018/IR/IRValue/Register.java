@@ -1,15 +1,14 @@
 package Compiler2018.IR.IRValue;
 
-import java.util.LinkedHashSet;
-import java.util.Set;
+import Compiler2018.IR.IRStructure.IRProgram;
 
 public class Register extends AbstractValue {
-    private static Integer Id = 0;
+    private final IRProgram irProgram;  // where the id comes from, clones are numbered there too
     private final Integer vId;
 
-    public Register() {
-        this.vId = Id;
-        Id += 1;
+    public Register(IRProgram irProgram) {
+        this.irProgram = irProgram;
+        this.vId = irProgram.nextRegisterId();
     }
 
     public Integer getvId() {
@@ -73,16 +72,32 @@ public class Register extends AbstractValue {
         this.tryed = tryed;
     }
 
-    // graph
-    final Set<Register> conflictRegisterSet = new LinkedHashSet<>();
+    // liveness, numbered densely per function. Only a hint: the register is shared, any later numbering
+    // overwrites it, so a reader checks it against its own universe
+    private int index = -1;
 
-    public Set<Register> getConflictRegisterSet() {
-        return conflictRegisterSet;
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    // graph, position in the InterferenceGraph of the function
+    private int graphIndex = -1;
+
+    public int getGraphIndex() {
+        return graphIndex;
+    }
+
+    public void setGraphIndex(int graphIndex) {
+        this.graphIndex = graphIndex;
     }
 
     @Override
     public Object clone() throws CloneNotSupportedException {
-        return new Register();
+        return new Register(irProgram);
     }
 
 //    static public rename(Map<Register, Register> registerMap, Register oldReg) {
@@ -0,0 +1,84 @@
+package Compiler2018.IR.IRValue;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// read-only view over a slice of a long[] bitset, bit i stands for universe[i]
+public class RegisterBitSet extends AbstractSet<Register> {
+    private final Register[] universe;
+    private final Map<Register, Integer> numbering;     // index of every register of universe
+    private final long[] bits;
+    private final int offset;
+    private final int words;
+
+    public RegisterBitSet(Register[] universe, Map<Register, Integer> numbering, long[] bits, int offset, int words) {
+        this.universe = universe;
+        this.numbering = numbering;
+        this.bits = bits;
+        this.offset = offset;
+        this.words = words;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Register)) {
+            return false;
+        }
+        int index = ((Register) o).getIndex();
+        if (index < 0 || index >= universe.length || universe[index] != o) {
+            Integer numbered = numbering.get(o);    // numbered again since, by another function or pass
+            if (numbered == null) {
+                return false;
+            }
+            index = numbered;
+        }
+        return (bits[offset + (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < words; ++i) {
+            size += Long.bitCount(bits[offset + i]);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (int i = 0; i < words; ++i) {
+            if (bits[offset + i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Iterator<Register> iterator() {
+        return new Iterator<Register>() {
+            private int word = 0;
+            private long current = words > 0 ? bits[offset] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (current == 0 && word + 1 < words) {
+                    current = bits[offset + ++word];
+                }
+                return current != 0;
+            }
+
+            @Override
+            public Register next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bit = Long.numberOfTrailingZeros(current);
+                current &= current - 1;
+                return universe[(word << 6) + bit];
+            }
+        };
+    }
+}
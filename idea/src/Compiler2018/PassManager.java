@@ -0,0 +1,252 @@
+package Compiler2018;
+
+import Compiler2018.AST.Program;
+import Compiler2018.BackEnd.*;
+import Compiler2018.Cache.CacheLookup;
+import Compiler2018.Cache.CompilationCache;
+import Compiler2018.FrontEnd.IASTVistor;
+import Compiler2018.FrontEnd.IRBuilder.IRClassBuilder;
+import Compiler2018.FrontEnd.IRBuilder.IRFuncParamBuilder;
+import Compiler2018.FrontEnd.IRBuilder.IRInstructionBuilder;
+import Compiler2018.FrontEnd.Semantic.ClassScanner;
+import Compiler2018.FrontEnd.Semantic.ClassVarScanner;
+import Compiler2018.FrontEnd.Semantic.FuncScanner;
+import Compiler2018.FrontEnd.Semantic.StmtScanner;
+import Compiler2018.IR.IRStructure.IRProgram;
+import Compiler2018.Stats.ASTCounter;
+import Compiler2018.Stats.Profiler;
+import Compiler2018.Symbol.TopTable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Runs the passes after the parser, as listed by an optimization level.
+// A pass names the passes it requires and the results it invalidates. A required pass that
+// has not run yet, or whose result was invalidated since, is scheduled right before it.
+public class PassManager {
+    public enum Level {
+        O0,     // no inlining, no register allocation, every value lives on the stack
+        O1,     // inlining and greedy allocation
+        O2      // O1 with constant folding on the AST
+    }
+
+    private static class Pass {
+        private final String name;
+        private final Function<PassManager, IASTVistor> astPass;    // exactly one of the two is set
+        private final Function<PassManager, IIRVistor> irPass;
+        private final boolean functionLocal;    // touches one IRFunction at a time, may run in ParallelBackEnd
+        private final List<String> requires;
+        private final List<String> invalidates;
+
+        private Pass(String name, Function<PassManager, IASTVistor> astPass, Function<PassManager, IIRVistor> irPass,
+                     boolean functionLocal, List<String> requires, List<String> invalidates) {
+            this.name = name;
+            this.astPass = astPass;
+            this.irPass = irPass;
+            this.functionLocal = functionLocal;
+            this.requires = requires;
+            this.invalidates = invalidates;
+        }
+    }
+
+    private static final Map<String, Pass> passes = new LinkedHashMap<>();
+    private static final Map<Level, List<String>> pipelines = new EnumMap<>(Level.class);
+
+    private static void ast(String name, Function<PassManager, IASTVistor> pass, String... requires) {
+        passes.put(name, new Pass(name, pass, null, false, List.of(requires), List.of()));
+    }
+
+    private static void ir(String name, Function<PassManager, IIRVistor> pass, boolean functionLocal,
+                           List<String> requires, List<String> invalidates) {
+        passes.put(name, new Pass(name, null, pass, functionLocal, requires, invalidates));
+    }
+
+    static {
+        // Semantic
+        ast("class-scan", x -> new ClassScanner(x.topTable));
+        ast("func-scan", x -> new FuncScanner(x.topTable), "class-scan");
+        ast("class-var-scan", x -> new ClassVarScanner(x.topTable), "func-scan");
+        ast("stmt-scan", x -> new StmtScanner(x.topTable, x.pool), "class-var-scan");
+        ast("fold", x -> new ConstantFolder(), "stmt-scan");
+        ast("cache-lookup", x -> new CacheLookup(x.cache, x.irProgram, x.pipeline), "stmt-scan");
+        ast("ast-stats", x -> new ASTCounter(x.stats), "stmt-scan");
+
+        // IR Generation
+        ast("ir-class", x -> new IRClassBuilder(x.irProgram), "stmt-scan");
+        ast("ir-param", x -> new IRFuncParamBuilder(x.irProgram), "ir-class");
+        ast("ir-build", x -> new IRInstructionBuilder(x.irProgram), "ir-param");
+
+        // IR
+        ir("inline", x -> new SimpleInliner(), false,
+                List.of("ir-build"), List.of("liveness", "conflict-graph", "frame"));
+        ir("liveness", x -> new LivenessAnalysis(x.irProgram), true,
+                List.of("ir-build"), List.of());
+        ir("conflict-graph", x -> new ConfictGraphBuilder(), true,
+                List.of("liveness"), List.of());
+        ir("frame", x -> new RegisterOffsetResolver(), true,
+                List.of("ir-build"), List.of());
+        ir("pre-alloc", x -> new PreRegisterAllocator(), true,
+                List.of("ir-build"), List.of());
+        ir("greedy-alloc", x -> new GreedyAllocator(), true,
+                List.of("conflict-graph", "frame", "pre-alloc"), List.of("liveness", "conflict-graph"));
+        ir("emit", x -> new NasmColor(x.out, x.cache), true,
+                List.of("frame", "pre-alloc"), List.of());
+
+        pipelines.put(Level.O0, List.of("class-scan", "func-scan", "class-var-scan", "stmt-scan",
+                "ir-class", "ir-param", "ir-build",
+                "frame", "pre-alloc", "emit"));
+        pipelines.put(Level.O1, List.of("class-scan", "func-scan", "class-var-scan", "stmt-scan",
+                "ir-class", "ir-param", "ir-build",
+                "inline", "liveness", "conflict-graph", "frame", "pre-alloc", "greedy-alloc", "emit"));
+        pipelines.put(Level.O2, List.of("class-scan", "func-scan", "class-var-scan", "stmt-scan", "fold",
+                "ir-class", "ir-param", "ir-build",
+                "inline", "liveness", "conflict-graph", "frame", "pre-alloc", "greedy-alloc", "emit"));
+    }
+
+    private Program program;    // dropped with topTable once the IR is built when running a whole level
+    private TopTable topTable = new TopTable(null, "");
+    private final IRProgram irProgram = new IRProgram();
+    private final Writer out;
+    private final CompilationCache cache;
+    private final CompileStats stats;
+    private final CostBudget budget;
+    private final Profiler profiler;    // null when nothing is timed
+    private final Set<String> valid = new HashSet<>();     // passes whose results are still up to date
+    private List<String> pipeline = List.of();  // being run, part of every cache key, without the analysis-only passes
+    private ForkJoinPool pool = null;           // of the run, stmt-scan and the function-local tail use it
+
+    public PassManager(Program program, Writer out) {
+        this(program, out, null);
+    }
+
+    // with a cache, cache-lookup runs before the IR is built and emit stores what was compiled
+    public PassManager(Program program, Writer out, CompilationCache cache) {
+        this(program, out, cache, null, null, new CostBudget());
+    }
+
+    // with stats, ast-stats counts the AST after the semantic passes and ParallelBackEnd counts every function.
+    // With a profiler every pass is timed, the function-local ones function by function.
+    // budget decides which functions ParallelBackEnd downgrades.
+    public PassManager(Program program, Writer out, CompilationCache cache, CompileStats stats, Profiler profiler,
+                       CostBudget budget) {
+        this.program = program;
+        this.out = out;
+        this.cache = cache;
+        this.stats = stats;
+        this.profiler = profiler;
+        this.budget = budget;
+    }
+
+    public Program getProgram() {
+        return program;
+    }
+
+    public IRProgram getIrProgram() {
+        return irProgram;
+    }
+
+    public static Level parseLevel(String level) {
+        try {
+            return Level.valueOf(level);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("unknown optimization level " + level);
+        }
+    }
+
+    // the passes with every missing requirement filled in, in the order they will run
+    private List<Pass> schedule(List<String> names) {
+        List<Pass> schedule = new ArrayList<>();
+        names.forEach(x -> schedule(x, schedule, new HashSet<>()));
+        return schedule;
+    }
+
+    private void schedule(String name, List<Pass> schedule, Set<String> visiting) {
+        Pass pass = passes.get(name);
+        if (pass == null) {
+            throw new RuntimeException("unknown pass " + name);
+        }
+        if (!visiting.add(name)) {
+            throw new RuntimeException("pass " + name + " requires itself");
+        }
+        pass.requires.stream().filter(x -> !valid.contains(x)).forEach(x -> schedule(x, schedule, visiting));
+        visiting.remove(name);
+        schedule.add(pass);
+        valid.add(name);
+        valid.removeAll(pass.invalidates);
+    }
+
+    // writes the assembly to out, the function-local tail runs on pool if there is one.
+    // Nothing is kept for later passes: the AST is dropped once the IR is built, and every function once it is emitted.
+    public void run(Level level, ForkJoinPool pool) throws IOException {
+        List<String> names = pipelines.get(level);
+        pipeline = names;   // cache-lookup and ast-stats below do not change the output
+        if (cache != null) {
+            names = new ArrayList<>(names);
+            names.add(names.indexOf("ir-class"), "cache-lookup");
+        }
+        if (stats != null) {
+            names = new ArrayList<>(names);
+            names.add(names.indexOf("stmt-scan") + 1, "ast-stats");
+        }
+        run(names, pool, true);
+    }
+
+    // runs the named passes and whatever they still require, passes that already ran are not repeated
+    public void run(String... names) throws IOException {
+        pipeline = List.of(names);
+        run(pipeline, null, false);
+    }
+
+    private void run(List<String> names, ForkJoinPool pool, boolean release) throws IOException {
+        this.pool = pool;
+        List<Pass> schedule = schedule(names);
+        int tail = schedule.size();
+        if (tail > 0 && schedule.get(tail - 1).name.equals("emit")) {
+            while (tail > 0 && schedule.get(tail - 1).functionLocal) {
+                --tail;
+            }
+        }
+        int lastAST = -1;
+        for (int i = 0; i < tail; ++i) {
+            if (schedule.get(i).astPass != null) {
+                lastAST = i;
+            }
+        }
+
+        for (int i = 0; i < tail; ++i) {
+            Pass pass = schedule.get(i);
+            Profiler.Span span = profiler == null ? null : profiler.start(pass.name, null);
+            if (pass.astPass != null) {
+                program.accept(pass.astPass.apply(this));
+            } else {
+                irProgram.accept(pass.irPass.apply(this));
+            }
+            if (span != null) {
+                span.end();
+            }
+            if (release && i == lastAST) {
+                program = null;
+                topTable = null;
+            }
+        }
+        if (tail == schedule.size()) {
+            return;
+        }
+
+        Map<String, Supplier<IIRVistor>> local = new LinkedHashMap<>();
+        for (Pass pass : schedule.subList(tail, schedule.size())) {
+            if (!pass.name.equals("emit")) {
+                local.put(pass.name, () -> pass.irPass.apply(this));
+            }
+        }
+        Profiler.Span span = profiler == null ? null : profiler.start("back-end", null);
+        new ParallelBackEnd(pool, local, cache, stats, profiler, budget, release).run(irProgram, out);
+        if (span != null) {
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package Compiler2018.Stats;
+
+import Compiler2018.AST.*;
+import Compiler2018.CompileStats;
+import Compiler2018.FrontEnd.IASTVistor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Counts the AST nodes of every function into CompileStats, after the semantic passes so processed names are known.
+// Global initializers are counted into _main, which is where they are compiled.
+public class ASTCounter implements IASTVistor {
+    private final CompileStats stats;
+    private final List<VarDecl> globalList = new ArrayList<>();
+    private int counter = 0;
+
+    public ASTCounter(CompileStats stats) {
+        this.stats = stats;
+    }
+
+    private void accept(AbstractASTNode node) {
+        if (node != null) {
+            node.accept(this);
+        }
+    }
+
+    private void count(String name, AbstractASTNode node, List<VarDecl> globalInits) {
+        counter = 0;
+        globalInits.forEach(this::accept);
+        accept(node);
+        stats.function(name).setAstNodes(counter);
+    }
+
+    @Override
+    public void visit(Program node) {
+        node.getSections().stream().filter(x -> x instanceof VarDecl).forEach(x -> globalList.add((VarDecl) x));
+        node.getSections().forEach(x -> {
+            if (x instanceof FuncDecl) {
+                String name = ((FuncDecl) x).getFuncSymbol().getProcessedName();
+                count(name, x, name.equals("_main") ? globalList : List.of());
+            } else if (x instanceof ClassDecl) {
+                x.accept(this);
+            }
+        });
+    }
+
+    @Override
+    public void visit(ClassDecl node) {
+        for (AbstractClassItem item : node.getItems()) {
+            if (item instanceof ClassFuncDecl) {
+                FuncDecl decl = ((ClassFuncDecl) item).getDecl();
+                count(decl.getFuncSymbol().getProcessedName(), decl, List.of());
+            } else if (item instanceof ClassCstrDecl) {
+                count(((ClassCstrDecl) item).getCstrSymbol().getProcessedName(), item, List.of());
+            }
+        }
+    }
+
+    @Override
+    public void visit(FuncDecl node) {
+        ++counter;
+        accept(node.getReturnType());
+        node.getParameters().forEach(this::accept);
+        accept(node.getBlock());
+    }
+
+    @Override
+    public void visit(VarDecl node) {
+        ++counter;
+        accept(node.getType());
+        accept(node.getInit());
+    }
+
+    @Override
+    public void visit(ClassVarDecl node) {
+        ++counter;
+        accept(node.getDecl());
+    }
+
+    @Override
+    public void visit(ClassCstrDecl node) {
+        ++counter;
+        node.getParameters().forEach(this::accept);
+        accept(node.getBlock());
+    }
+
+    @Override
+    public void visit(ClassFuncDecl node) {
+        ++counter;
+        accept(node.getDecl());
+    }
+
+    @Override
+    public void visit(BlockStmt node) {
+        ++counter;
+        node.getStmts().forEach(this::accept);
+    }
+
+    @Override
+    public void visit(VarDeclStmt node) {
+        ++counter;
+        accept(node.getDecl());
+    }
+
+    @Override
+    public void visit(BranchStmt node) {
+        ++counter;
+        accept(node.getCond());
+        accept(node.getIfStmt());
+        accept(node.getElseStmt());
+    }
+
+    @Override
+    public void visit(ExprStmt node) {
+        ++counter;
+        accept(node.getExpr());
+    }
+
+    @Override
+    public void visit(EmptyStmt node) {
+        ++counter;
+    }
+
+    @Override
+    public void visit(ReturnStmt node) {
+        ++counter;
+        accept(node.getExpr());
+    }
+
+    @Override
+    public void visit(BreakStmt node) {
+        ++counter;
+    }
+
+    @Override
+    public void visit(ContinueStmt node) {
+        ++counter;
+    }
+
+    @Override
+    public void visit(ForStmt node) {
+        ++counter;
+        accept(node.getInit());
+        accept(node.getCond());
+        accept(node.getStep());
+        accept(node.getStmt());
+    }
+
+    @Override
+    public void visit(WhileStmt node) {
+        ++counter;
+        accept(node.getCond());
+        accept(node.getStmt());
+    }
+
+    @Override
+    public void visit(ClassType node) {
+        ++counter;
+    }
+
+    @Override
+    public void visit(FunctionCall node) {
+        ++counter;
+        accept(node.getName());
+        node.getParameters().forEach(this::accept);
+    }
+
+    @Override
+    public void visit(ArrayAcess node) {
+        ++counter;
+        accept(node.getArray());
+        accept(node.getSubscript());
+    }
+
+    @Override
+    public void visit(MemberAcess node) {
+        ++counter;
+        accept(node.getExpr());
+    }
+
+    @Override
+    public void visit(NewExpr node) {
+        ++counter;
+        accept(node.getNewObject());
+    }
+
+    @Override
+    public void visit(UnaryExpr node) {
+        ExprWalker.walk(node, this, x -> ++counter, null);
+    }
+
+    @Override
+    public void visit(BinaryExpr node) {
+        ExprWalker.walk(node, this, x -> ++counter, null);
+    }
+
+    @Override
+    public void visit(Identifier node) {
+        ++counter;
+    }
+
+    @Override
+    public void visit(NewArray node) {
+        ++counter;
+        accept(node.getType());
+        node.getLens().forEach(this::accept);
+    }
+
+    @Override
+    public void visit(NewNonArray node) {
+        ++counter;
+        accept(node.getType());
+        node.getParameters().forEach(this::accept);
+    }
+
+    @Override
+    public void visit(BoolConst node) {
+        ++counter;
+    }
+
+    @Override
+    public void visit(NumConst node) {
+        ++counter;
+    }
+
+    @Override
+    public void visit(StrConst node) {
+        ++counter;
+    }
+
+    @Override
+    public void visit(NullConst node) {
+        ++counter;
+    }
+}
@@ -0,0 +1,136 @@
+package Compiler2018.Stats;
+
+import Compiler2018.IR.IRStructure.BasicBlock;
+import Compiler2018.IR.IRStructure.IRFunction;
+import Compiler2018.IR.IRValue.Register;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Counts of one function, a count that was never taken is left out of the report.
+// The IR counts are taken after inlining, those of a function spliced in from the cache are missing.
+public class FunctionStats {
+    private final String name;  // processed name
+    private Integer astNodes = null;
+    private boolean cached = false;
+    private boolean downgraded = false;     // by CostBudget
+    private Integer irInstructions = null;
+    private Integer basicBlocks = null;
+    private Integer conflictEdges = null;
+    private Integer virtualRegisters = null;    // every one has a slot in the frame
+    private Integer allocated = null;
+    private Integer spilled = null;
+    private Integer frameSize = null;
+    private Integer calleeSaved = null;
+    private Integer emitted = null;
+
+    public FunctionStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setAstNodes(int astNodes) {
+        this.astNodes = astNodes;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    public void setDowngraded(boolean downgraded) {
+        this.downgraded = downgraded;
+    }
+
+    public void setConflictEdges(int conflictEdges) {
+        this.conflictEdges = conflictEdges;
+    }
+
+    // before the function-local passes
+    public void countIR(IRFunction irFunction) {
+        int counter = 0;
+        for (BasicBlock basicBlock : irFunction.getBasicBlockSet()) {
+            BasicBlock.Iter iter = new BasicBlock.Iter(basicBlock);
+            while (iter.hasNext()) {
+                iter.next();
+                ++counter;
+            }
+        }
+        irInstructions = counter;
+        basicBlocks = irFunction.getBasicBlockSet().size();
+    }
+
+    // after the function-local passes, before the function is released
+    public void countFrame(IRFunction irFunction) {
+        int counter = 0;
+        for (Register register : irFunction.getStackOffsetMap().keySet()) {
+            if (register.getAllocatedRegister() != null) {
+                ++counter;
+            }
+        }
+        virtualRegisters = irFunction.getStackOffsetMap().size();
+        allocated = counter;
+        spilled = virtualRegisters - counter;
+        frameSize = -irFunction.getTotalOffset();
+        calleeSaved = irFunction.getCalleeUsed().size();
+    }
+
+    // every line NasmColor starts with a tab is an instruction
+    public void countEmitted(String text) {
+        int counter = 0;
+        int i = 0;
+        while (i < text.length()) {
+            if (text.charAt(i) == '\t') {
+                ++counter;
+            }
+            int end = text.indexOf('\n', i);
+            i = end < 0 ? text.length() : end + 1;
+        }
+        emitted = counter;
+    }
+
+    private Map<String, Object> fields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", name);
+        fields.put("astNodes", astNodes);
+        fields.put("cached", cached);
+        fields.put("downgraded", downgraded);
+        fields.put("irInstructions", irInstructions);
+        fields.put("basicBlocks", basicBlocks);
+        fields.put("conflictEdges", conflictEdges);
+        fields.put("virtualRegisters", virtualRegisters);
+        fields.put("allocated", allocated);
+        fields.put("spilled", spilled);
+        fields.put("frameSize", frameSize);
+        fields.put("calleeSaved", calleeSaved);
+        fields.put("emitted", emitted);
+        return fields;
+    }
+
+    public static String quote(String string) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (char c : string.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < ' ') {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    public String toJson() {
+        StringBuilder builder = new StringBuilder("{");
+        fields().forEach((x, y) -> {
+            if (y != null) {
+                builder.append(builder.length() > 1 ? ", " : "").append(quote(x)).append(": ")
+                        .append(y instanceof String ? quote((String) y) : y);
+            }
+        });
+        return builder.append('}').toString();
+    }
+}
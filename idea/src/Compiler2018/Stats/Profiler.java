@@ -0,0 +1,188 @@
+package Compiler2018.Stats;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// Wall time, CPU time and bytes allocated of every stage of one compilation, with --profile.
+// CPU time and allocation are those of the thread running the stage, from ThreadMXBean: a stage
+// that hands work to a pool (stmt-scan with --parallel) counts only its own thread. The function-local
+// passes are recorded per function, on the thread that ran them.
+// The report is a table on stderr, or Chrome trace-event JSON with --profile=trace, for chrome://tracing.
+public class Profiler {
+    private static final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private static class Record {
+        private final String stage;
+        private final String function;     // processed name, null for a stage of the whole program
+        private final String thread;
+        private final long threadId;
+        private final long start;           // ns since the profiler was made
+        private final long wall;
+        private final long cpu;             // ns, -1 when the JVM cannot tell
+        private final long allocated;       // bytes, -1 when the JVM cannot tell
+
+        private Record(String stage, String function, String thread, long threadId, long start, long wall, long cpu,
+                       long allocated) {
+            this.stage = stage;
+            this.function = function;
+            this.thread = thread;
+            this.threadId = threadId;
+            this.start = start;
+            this.wall = wall;
+            this.cpu = cpu;
+            this.allocated = allocated;
+        }
+    }
+
+    public class Span {
+        private final String stage;
+        private final String function;
+        private final long start = System.nanoTime();
+        private final long cpu = cpuTime();
+        private final long allocated = allocatedBytes();
+
+        private Span(String stage, String function) {
+            this.stage = stage;
+            this.function = function;
+        }
+
+        // on the thread that started it
+        public void end() {
+            long wall = System.nanoTime() - start;
+            long cpu = this.cpu < 0 ? -1 : cpuTime() - this.cpu;
+            long allocated = this.allocated < 0 ? -1 : allocatedBytes() - this.allocated;
+            Thread thread = Thread.currentThread();
+            synchronized (records) {
+                records.add(new Record(stage, function, thread.getName(), thread.getId(), start - origin, wall, cpu,
+                        allocated));
+            }
+        }
+    }
+
+    private final long origin = System.nanoTime();
+    private final List<Record> records = new ArrayList<>();
+    private final Path trace;   // where the trace goes, null for the table on stderr
+
+    public Profiler() {
+        this(null);
+    }
+
+    public Profiler(Path trace) {
+        this.trace = trace;
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            ((com.sun.management.ThreadMXBean) threads).setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    public Path getTrace() {
+        return trace;
+    }
+
+    private static long cpuTime() {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean mxBean = (com.sun.management.ThreadMXBean) threads;
+        return mxBean.isThreadAllocatedMemorySupported() ? mxBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    // function is null for a stage of the whole program
+    public Span start(String stage, String function) {
+        return new Span(stage, function);
+    }
+
+    private List<Record> snapshot() {
+        synchronized (records) {
+            List<Record> snapshot = new ArrayList<>(records);
+            snapshot.sort(Comparator.comparingLong(x -> x.start));
+            return snapshot;
+        }
+    }
+
+    private static String millis(long nanos) {
+        return nanos < 0 ? "-" : String.format(Locale.ROOT, "%.2f", nanos / 1e6);
+    }
+
+    private static String kilobytes(long bytes) {
+        return bytes < 0 ? "-" : String.format(Locale.ROOT, "%.1f", bytes / 1024.0);
+    }
+
+    private static void add(long[] sums, Record record) {
+        ++sums[0];
+        sums[1] += record.wall;
+        sums[2] = sums[2] < 0 || record.cpu < 0 ? -1 : sums[2] + record.cpu;
+        sums[3] = sums[3] < 0 || record.allocated < 0 ? -1 : sums[3] + record.allocated;
+    }
+
+    private static void row(StringBuilder builder, String name, String stage, long[] sums) {
+        builder.append(String.format(Locale.ROOT, "%-24s %-16s %6d %10s %10s %12s%n", name, stage, sums[0], millis(sums[1]),
+                millis(sums[2]), kilobytes(sums[3])));
+    }
+
+    // the stages of the whole program in the order they ran, then the function-local passes summed over
+    // every function, then every function with its passes, the slowest first
+    @Override
+    public String toString() {
+        List<Record> snapshot = snapshot();
+        Map<String, long[]> stages = new LinkedHashMap<>();
+        Map<String, long[]> passes = new LinkedHashMap<>();
+        Map<String, Map<String, long[]>> functions = new LinkedHashMap<>();
+        for (Record record : snapshot) {
+            if (record.function == null) {
+                add(stages.computeIfAbsent(record.stage, x -> new long[4]), record);
+            } else {
+                add(passes.computeIfAbsent(record.stage, x -> new long[4]), record);
+                add(functions.computeIfAbsent(record.function, x -> new LinkedHashMap<>())
+                        .computeIfAbsent(record.stage, x -> new long[4]), record);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ROOT, "%-24s %-16s %6s %10s %10s %12s%n", "", "stage", "runs", "wall ms", "cpu ms",
+                "allocated KB"));
+        stages.forEach((x, y) -> row(builder, "program", x, y));
+        passes.forEach((x, y) -> row(builder, "every function", x, y));
+        List<Map.Entry<String, Map<String, long[]>>> byWall = new ArrayList<>(functions.entrySet());
+        byWall.sort(Comparator.comparingLong(x -> -x.getValue().values().stream().mapToLong(y -> y[1]).sum()));
+        for (Map.Entry<String, Map<String, long[]>> function : byWall) {
+            function.getValue().forEach((x, y) -> row(builder, function.getKey(), x, y));
+        }
+        return builder.toString();
+    }
+
+    // complete events in microseconds, one track per thread
+    public String toTrace() {
+        StringJoiner events = new StringJoiner(",\n    ", "[\n    ", "\n  ]");
+        events.setEmptyValue("[]");
+        Map<Long, String> threadNames = new LinkedHashMap<>();
+        for (Record record : snapshot()) {
+            threadNames.putIfAbsent(record.threadId, record.thread);
+            StringBuilder args = new StringBuilder();
+            if (record.function != null) {
+                args.append("\"function\": ").append(FunctionStats.quote(record.function)).append(", ");
+            }
+            args.append("\"cpuMs\": ").append(record.cpu < 0 ? "null" : String.format(Locale.ROOT, "%.3f", record.cpu / 1e6))
+                    .append(", \"allocatedBytes\": ").append(record.allocated < 0 ? "null" : record.allocated);
+            events.add("{\"name\": " + FunctionStats.quote(record.stage)
+                    + ", \"cat\": " + (record.function == null ? "\"program\"" : "\"function\"")
+                    + ", \"ph\": \"X\", \"pid\": 1, \"tid\": " + record.threadId
+                    + String.format(Locale.ROOT, ", \"ts\": %.3f, \"dur\": %.3f", record.start / 1e3, record.wall / 1e3)
+                    + ", \"args\": {" + args + "}}");
+        }
+        threadNames.forEach((x, y) -> events.add("{\"name\": \"thread_name\", \"ph\": \"M\", \"pid\": 1, \"tid\": " + x
+                + ", \"args\": {\"name\": " + FunctionStats.quote(y) + "}}"));
+        return "{\n  \"displayTimeUnit\": \"ms\",\n  \"traceEvents\": " + events + "\n}\n";
+    }
+
+    public void writeTrace() throws IOException {
+        Files.write(trace, toTrace().getBytes(StandardCharsets.UTF_8));
+    }
+}
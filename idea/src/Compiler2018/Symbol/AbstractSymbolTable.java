@@ -1,5 +1,6 @@
 package Compiler2018.Symbol;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -56,25 +57,6 @@ public abstract class AbstractSymbolTable {
         return getVars().get(name);
     }
 
-    public final AbstractSymbol findIdentifier(String name) {
-        AbstractSymbolTable symbolTable = this;
-        while (symbolTable != null) {
-            // TODO class static
-            // ClassSymbol classSymbol = symbolTable.getMyClass(name);
-            FuncSymbol funcSymbol = symbolTable.getFunc(name);
-            if (funcSymbol != null) {
-                return funcSymbol;
-            }
-            VarSymbol varSymbol = symbolTable.getVar(name);
-            if (varSymbol != null) {
-                return varSymbol;
-            } else {
-                symbolTable = symbolTable.getOuterSymbolTable();
-            }
-        }
-        return null;
-    }
-
     public final VarSymbol findVar(String name) {
         AbstractSymbolTable symbolTable = this;
         while (symbolTable != null) {
@@ -88,6 +70,15 @@ public abstract class AbstractSymbolTable {
         return null;
     }
 
+    // what the table holds, for StmtScanner to open its scope with
+    public Map<String, FuncSymbol> getFuncMap() {
+        return Collections.unmodifiableMap(getFuncs());
+    }
+
+    public Map<String, VarSymbol> getVarMap() {
+        return Collections.unmodifiableMap(getVars());
+    }
+
     public void addMyClass(String name, ClassSymbol myClass) {
         getMyClasses().put(name, myClass);
     }
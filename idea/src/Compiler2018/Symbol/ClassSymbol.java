@@ -1,8 +1,13 @@
 package Compiler2018.Symbol;
 
+import Compiler2018.AST.ClassType;
+import Compiler2018.IR.IRStructure.IRClass;
+
 public class ClassSymbol extends AbstractSymbol {
     private final String name;
     private final ClassTable inClassTable;
+    private ClassType type = null;      // of dim 0, set by TypeTable
+    private IRClass irClass = null;     // for IR Generation, set by IRClassBuilder
 
     public ClassSymbol(AbstractSymbolTable belongTable, String name, ClassTable inClassTable) {
         super(belongTable);
@@ -17,4 +22,20 @@ public class ClassSymbol extends AbstractSymbol {
     public ClassTable getInClassTable() {
         return inClassTable;
     }
+
+    public ClassType getType() {
+        return type;
+    }
+
+    public void setType(ClassType type) {
+        this.type = type;
+    }
+
+    public IRClass getIRClass() {
+        return irClass;
+    }
+
+    public void setIRClass(IRClass irClass) {
+        this.irClass = irClass;
+    }
 }
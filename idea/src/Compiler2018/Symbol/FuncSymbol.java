@@ -3,6 +3,7 @@ package Compiler2018.Symbol;
 import Compiler2018.AST.ClassType;
 import Compiler2018.AST.FuncDecl;
 import Compiler2018.AST.VarDecl;
+import Compiler2018.IR.IRStructure.IRProgram;
 import Compiler2018.IR.IRValue.Register;
 
 import java.util.LinkedHashMap;
@@ -16,7 +17,6 @@ public class FuncSymbol extends AbstractSymbol {
     private final Map<String, VarSymbol> stringParameters;
     private final Map<Integer, VarSymbol> intParameters;
     private final BlockTable blockTable;
-    private final List<Register> parameterRegisterList;  // prepare for IR Generation
 
     public static class Builder {
         private AbstractSymbolTable belongTable;
@@ -25,7 +25,6 @@ public class FuncSymbol extends AbstractSymbol {
         private Map<String, VarSymbol> stringParameters = new LinkedHashMap<>();
         private Map<Integer, VarSymbol> intParameters = new LinkedHashMap<>();
         private BlockTable blockTable;
-        private List<Register> parameterRegisterList = new LinkedList<>();  // prepare for IR Generation
 
         public void setBelongTable(AbstractSymbolTable belongTable) {
             this.belongTable = belongTable;
@@ -50,19 +49,17 @@ public class FuncSymbol extends AbstractSymbol {
 
         public FuncSymbol build() {
             stringParameters.forEach((x, y) -> blockTable.addVar(x, y));
-            stringParameters.forEach((x, y) -> parameterRegisterList.add(y.getRegister())); // varSymbol in BlockTable
-            return new FuncSymbol(belongTable, returnType, name, stringParameters, intParameters, blockTable, parameterRegisterList);
+            return new FuncSymbol(belongTable, returnType, name, stringParameters, intParameters, blockTable);
         }
     }
 
-    public FuncSymbol(AbstractSymbolTable belongTable, ClassType returnType, String name, Map<String, VarSymbol> stringParameters, Map<Integer, VarSymbol> intParameters, BlockTable blockTable, List<Register> parameterRegisterList) {
+    public FuncSymbol(AbstractSymbolTable belongTable, ClassType returnType, String name, Map<String, VarSymbol> stringParameters, Map<Integer, VarSymbol> intParameters, BlockTable blockTable) {
         super(belongTable);
         this.returnType = returnType;
         this.name = name;
         this.stringParameters = stringParameters;
         this.intParameters = intParameters;
         this.blockTable = blockTable;
-        this.parameterRegisterList = parameterRegisterList;
     }
 
     public FuncSymbol(AbstractSymbolTable belongTable, FuncDecl decl, BlockTable blockTable) {
@@ -78,8 +75,6 @@ public class FuncSymbol extends AbstractSymbol {
         }
         this.blockTable = blockTable;
         stringParameters.forEach(this.blockTable::addVar);
-        this.parameterRegisterList = new LinkedList<>();
-        stringParameters.forEach((x, y) -> parameterRegisterList.add(y.getRegister()));
     }
 
     public ClassType getReturnType() {
@@ -102,7 +97,10 @@ public class FuncSymbol extends AbstractSymbol {
         return blockTable;
     }
 
-    public List<Register> getParameterRegisterList() {
+    // for IR Generation, parameters are VarSymbols in blockTable
+    public List<Register> getParameterRegisterList(IRProgram irProgram) {
+        List<Register> parameterRegisterList = new LinkedList<>();
+        stringParameters.forEach((x, y) -> parameterRegisterList.add(y.getRegister(irProgram)));
         return parameterRegisterList;
     }
 
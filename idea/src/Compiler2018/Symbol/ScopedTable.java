@@ -0,0 +1,67 @@
+package Compiler2018.Symbol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Every name in scope at a point of StmtScanner in one hash table, in place of a walk out through the tables.
+// A declaration shadows the binding of its name and goes on the undo log, closing a scope takes the log
+// back to where the scope was opened and puts back what was shadowed.
+public class ScopedTable {
+    private static class Binding {
+        private final AbstractSymbol symbol;
+        private final Binding shadowed;
+
+        private Binding(AbstractSymbol symbol, Binding shadowed) {
+            this.symbol = symbol;
+            this.shadowed = shadowed;
+        }
+    }
+
+    private final Map<String, Binding> bindings = new HashMap<>();
+    private final List<String> undoLog = new ArrayList<>();
+    private final List<Integer> scopeStarts = new ArrayList<>();    // undo log size when every open scope was opened
+    private final List<Integer> varCounts = new ArrayList<>();      // variables declared in every open scope
+
+    // 0 for the global scope
+    public int getDepth() {
+        return scopeStarts.size() - 1;
+    }
+
+    public void openScope() {
+        scopeStarts.add(undoLog.size());
+        varCounts.add(0);
+    }
+
+    public void closeScope() {
+        int start = scopeStarts.remove(scopeStarts.size() - 1);
+        varCounts.remove(varCounts.size() - 1);
+        while (undoLog.size() > start) {
+            String name = undoLog.remove(undoLog.size() - 1);
+            Binding binding = bindings.get(name);
+            if (binding.shadowed == null) {
+                bindings.remove(name);
+            } else {
+                bindings.put(name, binding.shadowed);
+            }
+        }
+    }
+
+    // the slot of a variable is its place among the variables of the innermost scope, -1 for a function
+    public int declare(String name, AbstractSymbol symbol) {
+        bindings.put(name, new Binding(symbol, bindings.get(name)));
+        undoLog.add(name);
+        if (!(symbol instanceof VarSymbol)) {
+            return -1;
+        }
+        int slot = varCounts.get(varCounts.size() - 1);
+        varCounts.set(varCounts.size() - 1, slot + 1);
+        return slot;
+    }
+
+    public AbstractSymbol resolve(String name) {
+        Binding binding = bindings.get(name);
+        return binding == null ? null : binding.symbol;
+    }
+}
@@ -2,26 +2,22 @@ package Compiler2018.Symbol;
 
 import Compiler2018.AST.ClassType;
 import Compiler2018.AST.VarDecl;
+import Compiler2018.IR.IRStructure.IRProgram;
+import Compiler2018.IR.IRStructure.StaticData;
 import Compiler2018.IR.IRValue.Register;
 
 public class VarSymbol extends AbstractSymbol {
     private final ClassType type;
     private final String name;
-    private final Register register;    // prepare for IR Generation, only useful when VarSymbol is in BlockTable
+    private Register register = null;   // for IR Generation, only useful when VarSymbol is in BlockTable
+    private StaticData staticData = null;   // for IR Generation, only useful when VarSymbol is in TopTable
+    private int depth = -1;     // of the scope declaring it, set by StmtScanner
+    private int slot = -1;      // among the variables of that scope, for a member its place in the object
 
     public VarSymbol(AbstractSymbolTable belongTable, ClassType type, String name) {
         super(belongTable);
         this.type = type;
         this.name = name;
-
-        if (belongTable instanceof TopTable) {
-            register = null;
-        } else if (belongTable instanceof BlockTable) {
-            register = new Register();
-            // built-in function can be redundant
-        } else {
-            register = null;
-        }
     }
 
     public VarSymbol(AbstractSymbolTable belongTable, VarDecl decl){
@@ -36,8 +32,33 @@ public class VarSymbol extends AbstractSymbol {
         return name;
     }
 
-    public Register getRegister() {
+    // made on first use by the IR builders, so it is numbered by the program being built
+    public Register getRegister(IRProgram irProgram) {
+        if (register == null && getBelongTable() instanceof BlockTable) {
+            register = new Register(irProgram);
+        }
         return register;
     }
 
+    public StaticData getStaticData() {
+        return staticData;
+    }
+
+    public void setStaticData(StaticData staticData) {
+        this.staticData = staticData;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setCoordinate(int depth, int slot) {
+        this.depth = depth;
+        this.slot = slot;
+    }
+
 }
@@ -0,0 +1,286 @@
+package Compiler2018.Synth;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+// Seeded generator of valid Mx programs, to see how the passes scale with program size.
+// The same seed and knobs give the same program. The programs pass the semantic check
+// and compile, they are not meant to be run: loops nest and functions call the ones before them.
+//   java -cp lib/antlr-4.7.1-complete.jar:bin Compiler2018.Synth.ProgramGenerator --functions=1000 --seed=7 > big.Mx
+public class ProgramGenerator {
+    private static final int locals = 4;    // int v0.., bool c0.., string t0.. in every function
+
+    private final Random random;
+    private final int functions;
+    private final int statements;   // per function, nested ones included
+    private final int loopDepth;
+    private final int classes;
+    private final int stringPercent;    // of the statements and leaves that work on strings
+    private final int exprDepth;
+
+    private final StringBuilder builder = new StringBuilder();
+    private int current;        // the function being generated, it calls only the ones before it
+    private int remaining;      // statements left in it
+    private int depth;          // of blocks around the statement being generated, loops open only below loopDepth
+
+    public ProgramGenerator(long seed, int functions, int statements, int loopDepth, int classes, int stringPercent,
+                            int exprDepth) {
+        this.random = new Random(seed);
+        this.functions = functions;
+        this.statements = statements;
+        this.loopDepth = loopDepth;
+        this.classes = classes;
+        this.stringPercent = stringPercent;
+        this.exprDepth = exprDepth;
+    }
+
+    // --seed= --functions= --statements= --loop-depth= --classes= --strings= --expr-depth=, the rest is ignored
+    public static ProgramGenerator parse(List<String> args) {
+        long seed = 1;
+        int functions = 100, statements = 20, loopDepth = 2, classes = 4, stringPercent = 10, exprDepth = 3;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--seed=")) seed = Long.parseLong(value);
+            else if (arg.startsWith("--functions=")) functions = Integer.parseInt(value);
+            else if (arg.startsWith("--statements=")) statements = Integer.parseInt(value);
+            else if (arg.startsWith("--loop-depth=")) loopDepth = Integer.parseInt(value);
+            else if (arg.startsWith("--classes=")) classes = Integer.parseInt(value);
+            else if (arg.startsWith("--strings=")) stringPercent = Integer.parseInt(value);
+            else if (arg.startsWith("--expr-depth=")) exprDepth = Integer.parseInt(value);
+        }
+        return new ProgramGenerator(seed, functions, statements, loopDepth, classes, stringPercent, exprDepth);
+    }
+
+    private boolean chance(int percent) {
+        return random.nextInt(100) < percent;
+    }
+
+    private void indent() {
+        for (int i = 0; i <= depth; ++i) {
+            builder.append("    ");
+        }
+    }
+
+    public String generate() {
+        builder.setLength(0);
+        builder.append("int g0;\nint g1;\nstring gs;\n\n");
+        for (int i = 0; i < classes; ++i) {
+            classDecl(i);
+        }
+        for (current = 0; current < functions; ++current) {
+            function();
+        }
+        builder.append("int main() {\n    g0 = 1;\n    g1 = 2;\n    gs = \"main\";\n");
+        for (int i = Math.max(0, functions - 4); i < functions; ++i) {
+            builder.append("    println(toString(f").append(i).append("(g0, g1, gs)));\n");
+        }
+        builder.append("    return 0;\n}\n");
+        return builder.toString();
+    }
+
+    private void classDecl(int i) {
+        String name = "C" + i;
+        builder.append("class ").append(name).append(" {\n")
+                .append("    int x0;\n    int x1;\n    string name;\n    int[] data;\n")
+                .append("    ").append(name).append("() {\n        x0 = ").append(i).append(";\n        x1 = 1;\n")
+                .append("        name = \"").append(name).append("\";\n        data = new int[8];\n    }\n")
+                .append("    int get(int k) {\n        return x0 * k + x1 + data[k & 7];\n    }\n")
+                .append("    void add(int k) {\n        x0 = x0 + k;\n        data[k & 7] = x0;\n    }\n")
+                .append("    string describe() {\n        return name + toString(x0);\n    }\n")
+                .append("}\n\n");
+    }
+
+    private void function() {
+        builder.append("int f").append(current).append("(int a, int b, string s) {\n");
+        for (int i = 0; i < locals; ++i) {
+            builder.append("    int v").append(i).append(" = a + ").append(i).append(";\n");
+            builder.append("    bool c").append(i).append(" = a < b;\n");
+            builder.append("    string t").append(i).append(" = s;\n");
+        }
+        for (int i = 0; i < loopDepth; ++i) {
+            builder.append("    int i").append(i).append(";\n");
+        }
+        builder.append("    int[] arr = new int[16];\n");
+        depth = 0;
+        remaining = statements;
+        while (remaining > 0) {
+            statement();
+        }
+        builder.append("    return v0 + v1 + t0.length();\n}\n\n");
+    }
+
+    private void block() {
+        ++depth;
+        int count = 1 + random.nextInt(Math.max(1, Math.min(remaining, 4)));
+        for (int i = 0; i < count && remaining > 0; ++i) {
+            statement();
+        }
+        --depth;
+    }
+
+    private void statement() {
+        --remaining;
+        indent();
+        int kind = random.nextInt(100);
+        if (chance(stringPercent)) {
+            stringStatement();
+        } else if (kind < 35) {
+            assign("v" + random.nextInt(locals), () -> intExpr(exprDepth));
+        } else if (kind < 45) {
+            assign("c" + random.nextInt(locals), () -> boolExpr(exprDepth));
+        } else if (kind < 55) {
+            builder.append("arr[").append(intExpr(1)).append(" & 15] = ").append(intExpr(exprDepth)).append(";\n");
+        } else if (kind < 65 && classes > 0) {
+            objectStatement();
+        } else if (kind < 80) {
+            builder.append("if (").append(boolExpr(exprDepth)).append(") {\n");
+            block();
+            indent();
+            if (chance(50)) {
+                builder.append("} else {\n");
+                block();
+                indent();
+            }
+            builder.append("}\n");
+        } else if (depth < loopDepth && remaining > 0) {
+            loop();
+        } else {
+            builder.append('v').append(random.nextInt(locals)).append("++;\n");
+        }
+    }
+
+    // never x = x, NasmColor fails on a move of a register to itself
+    private void assign(String name, Supplier<String> expr) {
+        String value = expr.get();
+        while (value.equals(name)) {
+            value = expr.get();
+        }
+        builder.append(name).append(" = ").append(value).append(";\n");
+    }
+
+    private void loop() {
+        if (chance(70)) {
+            String i = "i" + depth;
+            builder.append("for (").append(i).append(" = 0; ").append(i).append(" < ").append(2 + random.nextInt(30))
+                    .append("; ++").append(i).append(") {\n");
+        } else {
+            builder.append("while (").append(boolExpr(1)).append(") {\n");
+        }
+        block();
+        indent();
+        builder.append("}\n");
+    }
+
+    private void objectStatement() {
+        String name = "C" + random.nextInt(classes);
+        int k = random.nextInt(locals);
+        builder.append(name).append(" o").append(remaining).append(" = new ").append(name).append("();\n");
+        indent();
+        builder.append('o').append(remaining).append(".add(").append(intExpr(exprDepth)).append(");\n");
+        indent();
+        builder.append('v').append(k).append(" = o").append(remaining).append(".get(v").append(k).append(" & 7);\n");
+    }
+
+    private void stringStatement() {
+        int k = random.nextInt(locals);
+        switch (random.nextInt(4)) {
+            case 0:
+                assign("t" + k, () -> stringExpr(exprDepth));
+                break;
+            case 1:
+                builder.append("if (t").append(k).append(".length() > 64) t").append(k).append(" = t").append(k)
+                        .append(".substring(0, 8);\n");
+                break;
+            case 2:
+                builder.append("v").append(k).append(" = v").append(k).append(" + t").append(k).append(".ord(0) + t")
+                        .append(k).append(".parseInt();\n");
+                break;
+            default:
+                builder.append("println(").append(stringExpr(exprDepth)).append(");\n");
+        }
+    }
+
+    private String leaf() {
+        switch (random.nextInt(6)) {
+            case 0:
+                return Integer.toString(random.nextInt(1000));
+            case 1:
+                return chance(50) ? "a" : "b";
+            case 2:
+                return chance(50) ? "g0" : "g1";
+            case 3:
+                return "arr[v" + random.nextInt(locals) + " & 15]";
+            default:
+                return "v" + random.nextInt(locals);
+        }
+    }
+
+    private static final String[] intOps = {"+", "-", "*", "&", "|", "^", "<<", ">>", "+", "-"};
+    private static final String[] compareOps = {"<", "<=", ">", ">=", "==", "!="};
+
+    private String intExpr(int depth) {
+        if (depth <= 0 || chance(20)) {
+            return leaf();
+        }
+        int kind = random.nextInt(100);
+        if (kind < 8 && current > 0) {
+            return "f" + random.nextInt(current) + "(" + intExpr(depth - 1) + ", " + intExpr(depth - 1) + ", "
+                    + stringExpr(0) + ")";
+        }
+        if (kind < 14) {
+            return (chance(50) ? "-" : "~") + "(" + intExpr(depth - 1) + ")";
+        }
+        if (kind < 18 && chance(stringPercent * 2)) {
+            return stringExpr(depth - 1) + ".length()";
+        }
+        if (kind < 22) {
+            return "(" + intExpr(depth - 1) + ") / " + (1 + random.nextInt(9));
+        }
+        return "(" + intExpr(depth - 1) + " " + intOps[random.nextInt(intOps.length)] + " " + intExpr(depth - 1) + ")";
+    }
+
+    private String boolExpr(int depth) {
+        if (depth <= 0) {
+            return "c" + random.nextInt(locals);
+        }
+        int kind = random.nextInt(100);
+        if (kind < 50) {
+            return intExpr(depth - 1) + " " + compareOps[random.nextInt(compareOps.length)] + " " + intExpr(depth - 1);
+        }
+        if (kind < 60 && chance(stringPercent * 2)) {
+            return stringExpr(depth - 1) + (chance(50) ? " < " : " == ") + stringExpr(depth - 1);
+        }
+        if (kind < 70) {
+            return "!(" + boolExpr(depth - 1) + ")";
+        }
+        return "(" + boolExpr(depth - 1) + (chance(50) ? " && " : " || ") + boolExpr(depth - 1) + ")";
+    }
+
+    private String stringExpr(int depth) {
+        if (depth <= 0 || chance(20)) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    return "\"s" + random.nextInt(100) + "\"";
+                case 1:
+                    return "s";
+                case 2:
+                    return "gs";
+                default:
+                    return "t" + random.nextInt(locals);
+            }
+        }
+        switch (random.nextInt(4)) {
+            case 0:
+                return "toString(" + intExpr(depth - 1) + ")";
+            case 1:
+                return stringExpr(depth - 1) + ".substring(0, 1)";
+            default:
+                return "(" + stringExpr(depth - 1) + " + " + stringExpr(depth - 1) + ")";
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.print(parse(List.of(args)).generate());
+    }
+}
@@ -0,0 +1,156 @@
+package Compiler2018.Synth;
+
+import Compiler2018.AST.Program;
+import Compiler2018.FrontEnd.Pratt.PrattParser;
+import Compiler2018.PassManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+// Compiles ProgramGenerator programs of growing size and reports time and retained heap of every stage.
+// One knob is scaled, the others are passed on to the generator as they are. For every stage the
+// time is plotted against size, with the exponent of the best fit of time ~ size^k: about 1 is linear,
+// clearly above 1 is what to look at.
+//   java -cp lib/antlr-4.7.1-complete.jar:bin Compiler2018.Synth.ScalingHarness --scale=functions --sizes=100,200,400,800
+//        [--reps=3] [--csv=scaling.csv] [generator knobs]
+public class ScalingHarness {
+    private static final String[] stages = {"parse", "semantic", "ir-build", "inline", "liveness", "conflict-graph",
+            "frame", "greedy-alloc", "emit"};
+    private static final Map<String, String[]> stagePasses = new LinkedHashMap<>();
+
+    static {
+        stagePasses.put("semantic", new String[]{"class-scan", "func-scan", "class-var-scan", "stmt-scan"});
+        stagePasses.put("ir-build", new String[]{"ir-class", "ir-param", "ir-build"});
+        stagePasses.put("inline", new String[]{"inline"});
+        stagePasses.put("liveness", new String[]{"liveness"});
+        stagePasses.put("conflict-graph", new String[]{"conflict-graph"});
+        stagePasses.put("frame", new String[]{"frame", "pre-alloc"});
+        stagePasses.put("greedy-alloc", new String[]{"greedy-alloc"});
+        stagePasses.put("emit", new String[]{"emit"});
+    }
+
+    private final int reps;
+
+    private ScalingHarness(int reps) {
+        this.reps = reps;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // the fastest of reps runs of every stage in ms, then the heap retained after it in MB
+    private double[][] measure(String prog) throws IOException {
+        double[][] result = new double[2][stages.length];
+        Arrays.fill(result[0], Double.MAX_VALUE);
+        for (int rep = 0; rep < reps; ++rep) {
+            long base = usedHeap();
+            long start = System.nanoTime();
+            Program program = PrattParser.parse(prog);
+            result[0][0] = Math.min(result[0][0], (System.nanoTime() - start) / 1e6);
+            result[1][0] = (usedHeap() - base) / 1048576.0;
+            PassManager passManager = new PassManager(program, Writer.nullWriter());
+            program = null;
+            for (int i = 1; i < stages.length; ++i) {
+                start = System.nanoTime();
+                passManager.run(stagePasses.get(stages[i]));
+                result[0][i] = Math.min(result[0][i], (System.nanoTime() - start) / 1e6);
+                result[1][i] = (usedHeap() - base) / 1048576.0;
+            }
+        }
+        return result;
+    }
+
+    // least squares slope of log time against log size
+    private static double exponent(int[] sizes, double[] times) {
+        int n = 0;
+        double sx = 0, sy = 0, sxx = 0, sxy = 0;
+        for (int i = 0; i < sizes.length; ++i) {
+            if (times[i] <= 0) {
+                continue;
+            }
+            double x = Math.log(sizes[i]), y = Math.log(times[i]);
+            ++n;
+            sx += x;
+            sy += y;
+            sxx += x * x;
+            sxy += x * y;
+        }
+        return n < 2 || n * sxx == sx * sx ? Double.NaN : (n * sxy - sx * sy) / (n * sxx - sx * sx);
+    }
+
+    private static void plot(String knob, int[] sizes, double[][][] results) {
+        for (int stage = 0; stage < stages.length; ++stage) {
+            double[] times = new double[sizes.length];
+            double max = 0;
+            for (int i = 0; i < sizes.length; ++i) {
+                times[i] = results[i][0][stage];
+                max = Math.max(max, times[i]);
+            }
+            System.out.printf("%n%s, time ~ %s^%.2f%n", stages[stage], knob, exponent(sizes, times));
+            for (int i = 0; i < sizes.length; ++i) {
+                int width = max == 0 ? 0 : (int) Math.round(50 * times[i] / max);
+                System.out.printf("%8d |%-50s %10.1f ms %8.1f MB%n", sizes[i], "#".repeat(width), times[i],
+                        results[i][1][stage]);
+            }
+        }
+    }
+
+    private static String csv(String knob, int[] sizes, double[][][] results) {
+        StringBuilder builder = new StringBuilder(knob).append(",stage,ms,retained_mb\n");
+        for (int i = 0; i < sizes.length; ++i) {
+            for (int stage = 0; stage < stages.length; ++stage) {
+                builder.append(sizes[i]).append(',').append(stages[stage]).append(',')
+                        .append(String.format("%.3f,%.3f", results[i][0][stage], results[i][1][stage])).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String generate(List<String> knobs, String knob, int size) {
+        List<String> generatorArgs = new ArrayList<>(knobs);
+        generatorArgs.add("--" + knob + "=" + size);    // the last one counts
+        return ProgramGenerator.parse(generatorArgs).generate();
+    }
+
+    public static void main(String[] args) throws IOException {
+        String knob = "functions";
+        int[] sizes = {50, 100, 200, 400, 800};
+        int reps = 3;
+        String csv = null;
+        List<String> knobs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--scale=")) knob = arg.substring("--scale=".length());
+            else if (arg.startsWith("--sizes=")) sizes = Arrays.stream(arg.substring("--sizes=".length()).split(","))
+                    .mapToInt(Integer::parseInt).toArray();
+            else if (arg.startsWith("--reps=")) reps = Integer.parseInt(arg.substring("--reps=".length()));
+            else if (arg.startsWith("--csv=")) csv = arg.substring("--csv=".length());
+            else knobs.add(arg);
+        }
+
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));   // GreedyAllocator reports to stderr
+        ScalingHarness harness = new ScalingHarness(reps);
+        harness.measure(generate(knobs, knob, sizes[0]));  // warm up the JIT, or the smallest size looks the slowest
+        double[][][] results = new double[sizes.length][][];
+        for (int i = 0; i < sizes.length; ++i) {
+            String prog = generate(knobs, knob, sizes[i]);
+            results[i] = harness.measure(prog);
+            err.println(knob + "=" + sizes[i] + ": " + prog.length() + " chars");
+        }
+        System.setErr(err);
+
+        plot(knob, sizes, results);
+        if (csv != null) {
+            Files.write(Paths.get(csv), csv(knob, sizes, results).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,124 +1,258 @@
 package Compiler2018;
 
 import Compiler2018.AST.Program;
-import Compiler2018.BackEnd.*;
+import Compiler2018.BackEnd.CostBudget;
+import Compiler2018.Cache.CompilationCache;
 import Compiler2018.FrontEnd.*;
-import Compiler2018.FrontEnd.IRBuilder.IRClassBuilder;
-import Compiler2018.FrontEnd.IRBuilder.IRFuncParamBuilder;
-import Compiler2018.FrontEnd.IRBuilder.IRInstructionBuilder;
-import Compiler2018.FrontEnd.Semantic.ClassScanner;
-import Compiler2018.FrontEnd.Semantic.ClassVarScanner;
-import Compiler2018.FrontEnd.Semantic.FuncScanner;
-import Compiler2018.FrontEnd.Semantic.StmtScanner;
-import Compiler2018.IR.IRStructure.IRProgram;
+import Compiler2018.FrontEnd.Pratt.PrattException;
+import Compiler2018.FrontEnd.Pratt.PrattParser;
 import Compiler2018.Parser.MLexer;
 import Compiler2018.Parser.MParser;
-import Compiler2018.Symbol.TopTable;
-import org.antlr.v4.runtime.CharStream;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
+import Compiler2018.Stats.Profiler;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.IterativeParseTreeWalker;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class WantonWind {
-    private static String readTestFile(String filePath) {
-        StringBuilder ans = new StringBuilder();
-        File file = new File(filePath);
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String tempString;
-            while ((tempString = reader.readLine()) != null) {
-                ans.append(tempString).append('\n');
-            }
+    // every line ending as '\n', and one at the end, as reading line by line gives: a LineComment needs its '\n'
+    public static String normalize(String prog) {
+        if (prog.indexOf('\r') >= 0) {
+            prog = prog.replace("\r\n", "\n").replace('\r', '\n');
+        }
+        return prog.isEmpty() || prog.endsWith("\n") ? prog : prog + "\n";
+    }
+
+    public static String readTestFile(String filePath) {
+        try {
+            return normalize(new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8));
         } catch (IOException e) {
             e.printStackTrace();
+            return "";
+        }
+    }
+
+    // copies a whole file to the channel without going through the heap
+    static void transfer(Path file, WritableByteChannel out) throws IOException {
+        try (FileChannel in = FileChannel.open(file)) {
+            long position = 0, size = in.size();
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
         }
-        return ans.toString();
     }
 
     public static void run(String prog) {
-        try {
-            CharStream input = CharStreams.fromString(prog);
-            MLexer lexer = new MLexer(input);
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
-            MParser parser = new MParser(tokens);
+        run(prog, false);
+    }
 
-            ParseTree tree = parser.program();
-            ParseTreeWalker walker = new ParseTreeWalker();
-            ASTBuilder astBuilder = new ASTBuilder();
-            walker.walk(astBuilder, tree);
-            Program program = astBuilder.getProgram();
-
-            ASTPrinter astPrinter = new ASTPrinter();
-            TopTable topTable = new TopTable(null, "");
-            ClassScanner classScanner = new ClassScanner(topTable);
-            FuncScanner funcScanner = new FuncScanner(topTable);
-            ClassVarScanner classVarScanner = new ClassVarScanner(topTable);
-            StmtScanner stmtScanner = new StmtScanner(topTable);
-
-//            program.accept(astPrinter);
-            program.accept(classScanner);
-            program.accept(funcScanner);
-            program.accept(classVarScanner);
-            program.accept(stmtScanner);
-
-            // IR Generation
-            IRProgram irProgram = new IRProgram();
-            IRClassBuilder irClassBuilder = new IRClassBuilder(irProgram);
-            IRFuncParamBuilder irFuncParamBuilder = new IRFuncParamBuilder(irProgram);
-            IRInstructionBuilder irInstructionBuilder = new IRInstructionBuilder(irProgram);
-
-            program.accept(irClassBuilder);
-            program.accept(irFuncParamBuilder);
-            program.accept(irInstructionBuilder);
-
-            SimpleInliner simpleInliner = new SimpleInliner();
-            irProgram.accept(simpleInliner);
-
-            // Liveness Analysis
-            LivenessAnalysis livenessAnalysis = new LivenessAnalysis(irProgram);
-            ConfictGraphBuilder confictGraphBuilder = new ConfictGraphBuilder();
-            irProgram.accept(livenessAnalysis);
-            irProgram.accept(confictGraphBuilder);
-
-            // Code Generation
-            IRPrinter irPrinter = new IRPrinter();
-            RegisterOffsetResolver registerOffsetResolver = new RegisterOffsetResolver();
-//            irProgram.accept(irPrinter);
-            irProgram.accept(registerOffsetResolver);
-
-            // Register Allocation
-            PreRegisterAllocator preRegisterAllocator = new PreRegisterAllocator();
-            irProgram.accept(preRegisterAllocator);
-            GreedyAllocator greedyAllocator = new GreedyAllocator();
-            irProgram.accept(greedyAllocator);
-
-//            PreRegisterAllocator preRegisterAllocator = new PreRegisterAllocator();
-//            NaiveRegisterAllocator naiveRegisterAllocator = new NaiveRegisterAllocator();
-//            irProgram.accept(preRegisterAllocator);
-//            irProgram.accept(naiveRegisterAllocator);
-
-            // NASM generation
-//            NasmM2M nasmM2M = new NasmM2M();
-//            nasmM2M.getBuilder().append(getTxt("./allInOne.asm"));
-//            irProgram.accept(nasmM2M);
-//            System.out.println(nasmM2M.getBuilder().toString());
-
-            NasmColor nasmColor = new NasmColor();
-            irProgram.accept(nasmColor);
-            System.out.println(nasmColor.getBuilder().toString());
+    public static void run(String prog, boolean parallel) {
+        run(prog, null, PassManager.Level.O1, parallel, null, null, null, new CostBudget());
+    }
 
+    // writes runtime (if any) and then the program to stdout, function by function
+    public static void run(String prog, Path runtime, PassManager.Level level, boolean parallel, CompileStats stats,
+                           Profiler profiler, CompilationCache cache, CostBudget budget) {
+        try {
+            FileChannel stdout = new FileOutputStream(FileDescriptor.out).getChannel();
+            if (runtime != null) {
+                transfer(runtime, stdout);
+            }
+            Writer out = new BufferedWriter(Channels.newWriter(stdout, StandardCharsets.UTF_8.newEncoder(), -1), 1 << 16);
+            compile(prog, level, parallel, stats, profiler, cache, budget, out);
+            out.write('\n');
+            out.flush();
+            if (cache != null) {
+                cache.evict();
+            }
+            if (stats != null && stats.getJson() != null) {
+                stats.writeJson();
+            } else if (stats != null) {
+                System.err.print(stats);
+                System.err.print(cache == null ? "" : cache);
+            }
+            if (profiler != null && profiler.getTrace() != null) {
+                profiler.writeTrace();
+            } else if (profiler != null) {
+                System.err.print(profiler);
+            }
         } catch (Exception e) {
             e.printStackTrace(System.err);
             System.exit(1);
         }
     }
 
-    public static void main(String[] args) {
-        String program;
-        if (args.length == 1) program = readTestFile(args[0]);
-        else program = readTestFile("program.txt");
-        run(program);
+    // SLL first, it fails fast and is right for almost every program; full LL only when it gives up
+    public static ParseTree parse(String prog, CompileStats stats) {
+        CharStream input = CharStreams.fromString(prog);
+        MLexer lexer = new MLexer(input);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        MParser parser = new MParser(tokens);
+
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            ParseTree tree = parser.program();
+            if (stats != null) stats.setParseStage(CompileStats.ParseStage.SLL);
+            return tree;
+        } catch (ParseCancellationException e) {
+            tokens.seek(0);
+            parser.reset();
+            parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            ParseTree tree = parser.program();
+            if (stats != null) stats.setParseStage(CompileStats.ParseStage.LL);
+            return tree;
+        }
+    }
+
+    public static String compile(String prog, PassManager.Level level, boolean parallel) throws Exception {
+        StringWriter out = new StringWriter();
+        compile(prog, level, parallel, null, null, null, new CostBudget(), out);
+        return out.toString();
+    }
+
+    // PrattParser is the default front end, ParserDiff checks it against ANTLR on the test programs.
+    // --antlr sends every program through MParser, as before it, the parse stage of --stats is then SLL or LL.
+    private static boolean prattParser = true;
+
+    // PrattParser first, it builds the AST without a parse tree. What it leaves to ANTLR, mostly programs
+    // with syntax errors, goes through MParser and ASTBuilder, which report the errors as before.
+    private static Program buildAST(String prog, CompileStats stats, Profiler profiler) {
+        if (!prattParser) {
+            return buildAntlrAST(prog, stats, profiler);
+        }
+        try {
+            Profiler.Span span = profiler == null ? null : profiler.start("lex", null);
+            PrattParser parser = new PrattParser(prog);
+            if (span != null) span.end();
+            span = profiler == null ? null : profiler.start("parse", null);
+            Program program = parser.program();
+            if (span != null) span.end();
+            if (stats != null) stats.setParseStage(CompileStats.ParseStage.PRATT);
+            return program;
+        } catch (PrattException e) {
+            return buildAntlrAST(prog, stats, profiler);
+        }
+    }
+
+    // the parse tree, and the map ASTBuilder keeps into it, are garbage once this returns.
+    // MParser lexes as it goes, antlr-parse includes the lexing.
+    private static Program buildAntlrAST(String prog, CompileStats stats, Profiler profiler) {
+        Profiler.Span span = profiler == null ? null : profiler.start("antlr-parse", null);
+        ParseTree tree = parse(prog, stats);
+        if (span != null) span.end();
+        span = profiler == null ? null : profiler.start("ast-builder", null);
+        ParseTreeWalker walker = new IterativeParseTreeWalker();    // the tree of a + b + ... is as deep as it is long
+        ASTBuilder astBuilder = new ASTBuilder();
+        walker.walk(astBuilder, tree);
+        if (span != null) span.end();
+        return astBuilder.getProgram();
+    }
+
+    // writes the assembly of one program to out, without the runtime in allInOne.asm
+    public static void compile(String prog, PassManager.Level level, boolean parallel, CompileStats stats,
+                               Profiler profiler, CompilationCache cache, CostBudget budget, Writer out) throws Exception {
+        PassManager passManager = new PassManager(buildAST(prog, stats, profiler), out, cache, stats, profiler, budget);
+        if (!parallel) {
+            passManager.run(level, null);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            passManager.run(level, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String file = "program.txt";
+        boolean parallel = false;
+        String server = null;   // "" for stdin / stdout, otherwise a socket path
+        long idleSeconds = 0;
+        boolean batch = false;
+        List<String> inputs = new ArrayList<>();
+        String out = null;
+        String runtime = null;
+        int jobs = 1;
+        CompileStats stats = null;
+        boolean statsJson = false;
+        String statsFile = "stats.json";
+        Profiler profiler = null;
+        boolean profileTrace = false;
+        String profileFile = "profile.json";
+        PassManager.Level level = PassManager.Level.O1;
+        String cacheDir = null;
+        long cacheMegabytes = 64;
+        long cacheDays = 7;
+        long functionCost = CostBudget.defaultFunctionCost;
+        long timeBudget = 0;
+        for (String arg : args) {
+            if (arg.equals("--parallel")) parallel = true;
+            else if (arg.equals("--antlr")) prattParser = false;
+            else if (arg.equals("--server")) server = "";
+            else if (arg.startsWith("--server=")) server = arg.substring("--server=".length());
+            else if (arg.startsWith("--idle=")) idleSeconds = Long.parseLong(arg.substring("--idle=".length()));
+            else if (arg.equals("--batch")) batch = true;
+            else if (arg.startsWith("--out=")) out = arg.substring("--out=".length());
+            else if (arg.startsWith("--runtime=")) runtime = arg.substring("--runtime=".length());
+            else if (arg.startsWith("--jobs=")) jobs = Integer.parseInt(arg.substring("--jobs=".length()));
+            else if (arg.equals("--stats")) stats = new CompileStats();
+            else if (arg.equals("--stats=json")) statsJson = true;
+            else if (arg.startsWith("--stats-file=")) statsFile = arg.substring("--stats-file=".length());
+            else if (arg.equals("--profile")) profiler = new Profiler();
+            else if (arg.equals("--profile=trace")) profileTrace = true;
+            else if (arg.startsWith("--profile-file=")) profileFile = arg.substring("--profile-file=".length());
+            else if (arg.startsWith("-O")) level = PassManager.parseLevel(arg.substring(1));
+            else if (arg.startsWith("--cache=")) cacheDir = arg.substring("--cache=".length());
+            else if (arg.startsWith("--cache-size=")) cacheMegabytes = Long.parseLong(arg.substring("--cache-size=".length()));
+            else if (arg.startsWith("--cache-age=")) cacheDays = Long.parseLong(arg.substring("--cache-age=".length()));
+            else if (arg.startsWith("--function-budget=")) functionCost = Long.parseLong(arg.substring("--function-budget=".length()));
+            else if (arg.startsWith("--time-budget=")) timeBudget = Long.parseLong(arg.substring("--time-budget=".length()));
+            else inputs.add(arg);
+        }
+        if (!inputs.isEmpty()) file = inputs.get(inputs.size() - 1);
+        if (statsJson) stats = new CompileStats(Paths.get(statsFile));
+        if (profileTrace) profiler = new Profiler(Paths.get(profileFile));
+        CompilationCache cache = cacheDir == null ? null
+                : new CompilationCache(Paths.get(cacheDir), cacheMegabytes << 20, cacheDays * 24 * 3600 * 1000);
+        if (batch) {
+            BatchCompiler compiler = new BatchCompiler(out == null ? null : Paths.get(out),
+                    runtime == null ? null : Paths.get(runtime), level, jobs, cache, functionCost, timeBudget);
+            if (compiler.run(BatchCompiler.collect(inputs)) > 0) {
+                System.exit(1);
+            }
+        } else if (server == null) {
+            run(readTestFile(file), runtime == null ? null : Paths.get(runtime), level, parallel, stats, profiler, cache,
+                    new CostBudget(functionCost, timeBudget));
+        } else {
+            CompileServer compileServer = new CompileServer(level, parallel, cache, functionCost, timeBudget);
+            if (server.isEmpty()) {
+                compileServer.serve(new BufferedInputStream(System.in), new BufferedOutputStream(System.out));
+            } else {
+                compileServer.serve(Paths.get(server), idleSeconds * 1000);
+            }
+            if (cache != null) {
+                cache.evict();
+                System.err.print(cache);
+            }
+        }
     }
 }